@@ -0,0 +1,21 @@
+package com.ms.patient.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ms.patient.utils.BlockAllocator;
+import com.ms.patient.utils.BlockIdGenerator;
+
+/**
+ * Entrega ao Hibernate o {@link BlockAllocator} usado pelos 'IDs' gerados em blocos
+ * ({@link com.ms.patient.utils.BlockId}).
+ */
+@Configuration
+public class BlockIdConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer blockIdCustomizer(BlockAllocator blockAllocator) {
+        return properties -> properties.put(BlockIdGenerator.ALLOCATOR_SETTING, blockAllocator);
+    }
+}
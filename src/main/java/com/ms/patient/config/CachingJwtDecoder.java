@@ -0,0 +1,101 @@
+package com.ms.patient.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * {@link JwtDecoder} que guarda os tokens já verificados, evitando repetir a verificação
+ * HMAC e a leitura das claims a cada requisição feita com o mesmo token.
+ *
+ * <p>A chave do cache é o SHA-256 do token; o valor é o {@link Jwt} decodificado, que
+ * mantém o token original em {@link Jwt#getTokenValue()} enquanto a entrada existir. Cada entrada expira no {@code exp} do token, limitado a {@code maxTtl}, e o
+ * cache guarda no máximo {@code maximumSize} tokens. Tokens recusados não são guardados:
+ * a próxima tentativa passa de novo pelo decodificador original.</p>
+ *
+ * <p>Métricas: {@code cache.gets} (tag {@code result} hit/miss), {@code cache.size} e
+ * {@code cache.evictions} com a tag {@code cache=jwt}, e {@code jwt.decode} com o tempo
+ * das decodificações fora do cache.</p>
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Clock clock;
+    private final Duration maxTtl;
+    private final Cache<String, Jwt> cache;
+    private final Timer decodeTimer;
+
+    public CachingJwtDecoder(JwtDecoder delegate, MeterRegistry meterRegistry, long maximumSize,
+                             Duration maxTtl, Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.maxTtl = maxTtl;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(Expiry.creating((String key, Jwt jwt) -> timeToLive(jwt)))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt");
+        this.decodeTimer = Timer.builder("jwt.decode")
+            .description("Verificação da assinatura e leitura das claims dos tokens fora do cache")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = digest(token);
+        Jwt cached = cache.getIfPresent(key);
+        if (cached != null) {
+            // O cache expira pelo relógio próprio; o exp é conferido de novo pelo relógio da aplicação
+            if (!expired(cached)) {
+                return cached;
+            }
+            cache.invalidate(key);
+        }
+        Jwt jwt = decodeTimer.record(() -> delegate.decode(token));
+        if (!expired(jwt)) {
+            cache.put(key, jwt);
+        }
+        return jwt;
+    }
+
+    private Duration timeToLive(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return maxTtl;
+        }
+        Duration untilExpiry = Duration.between(clock.instant(), expiresAt);
+        return untilExpiry.isNegative() ? Duration.ZERO : (untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry : maxTtl);
+    }
+
+    private boolean expired(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        return expiresAt != null && !clock.instant().isBefore(expiresAt);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Toda JVM tem SHA-256 (exigido pela especificação do Java SE)
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ms.patient.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/**
+ * Substituto do SQS em memória, usado pelo perfil {@code perf} para medir o caminho de
+ * publicação sem credenciais AWS.
+ *
+ * <p>Cada requisição responde depois de {@code latência ± jitter} (distribuição uniforme) e
+ * pode falhar por inteiro ou por entrada, com as taxas configuradas. As mensagens aceitas
+ * são apenas contadas, não guardadas. Os parâmetros podem ser alterados em execução,
+ * para variar a latência entre rodadas de um benchmark.</p>
+ */
+public class InProcessSqsAsyncClient implements SqsAsyncClient {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "in-process-sqs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile long latencyMicros;
+    private volatile long jitterMicros;
+    private volatile double entryFailureRate;
+    private volatile double requestFailureRate;
+
+    public InProcessSqsAsyncClient(long latencyMs, long jitterMs, double entryFailureRate, double requestFailureRate) {
+        setLatency(latencyMs, jitterMs);
+        setFailureRates(entryFailureRate, requestFailureRate);
+    }
+
+    /** Define a latência de cada requisição, em milissegundos. */
+    public void setLatency(long latencyMs, long jitterMs) {
+        if (latencyMs < 0 || jitterMs < 0) {
+            throw new IllegalArgumentException("latency and jitter must not be negative");
+        }
+        this.latencyMicros = TimeUnit.MILLISECONDS.toMicros(latencyMs);
+        this.jitterMicros = TimeUnit.MILLISECONDS.toMicros(jitterMs);
+    }
+
+    /** Define a probabilidade (0 a 1) de recusar cada entrada e de falhar cada requisição. */
+    public void setFailureRates(double entryFailureRate, double requestFailureRate) {
+        if (entryFailureRate < 0 || entryFailureRate > 1 || requestFailureRate < 0 || requestFailureRate > 1) {
+            throw new IllegalArgumentException("failure rates must be between 0 and 1");
+        }
+        this.entryFailureRate = entryFailureRate;
+        this.requestFailureRate = requestFailureRate;
+    }
+
+    /** Quantidade de mensagens aceitas desde o início. */
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    /** Quantidade de mensagens recusadas (por entrada ou com a requisição inteira). */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /** Quantidade de requisições recebidas. */
+    public long requests() {
+        return requests.sum();
+    }
+
+    @Override
+    public CompletableFuture<GetQueueUrlResponse> getQueueUrl(GetQueueUrlRequest request) {
+        return CompletableFuture.completedFuture(
+            GetQueueUrlResponse.builder().queueUrl("http://in-process-sqs/queue/" + request.queueName()).build());
+    }
+
+    @Override
+    public CompletableFuture<SendMessageResponse> sendMessage(SendMessageRequest request) {
+        return delayed(() -> {
+            if (random() < requestFailureRate || random() < entryFailureRate) {
+                rejected.increment();
+                throw SqsException.builder().statusCode(500).message("injected failure").build();
+            }
+            accepted.increment();
+            return SendMessageResponse.builder().messageId(Long.toString(accepted.sum())).build();
+        });
+    }
+
+    @Override
+    public CompletableFuture<SendMessageBatchResponse> sendMessageBatch(SendMessageBatchRequest request) {
+        return delayed(() -> {
+            if (random() < requestFailureRate) {
+                rejected.add(request.entries().size());
+                throw SqsException.builder().statusCode(500).message("injected request failure").build();
+            }
+            List<SendMessageBatchResultEntry> ok = new ArrayList<>(request.entries().size());
+            List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                if (random() < entryFailureRate) {
+                    rejected.increment();
+                    failed.add(BatchResultErrorEntry.builder().id(entry.id())
+                        .code("InternalError").message("injected entry failure").senderFault(false).build());
+                } else {
+                    accepted.increment();
+                    ok.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId(entry.id()).build());
+                }
+            }
+            return SendMessageBatchResponse.builder().successful(ok).failed(failed).build();
+        });
+    }
+
+    private <T> CompletableFuture<T> delayed(Supplier<T> response) {
+        requests.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long delay = latencyMicros;
+        if (jitterMicros > 0) {
+            delay = Math.max(0, delay + ThreadLocalRandom.current().nextLong(-jitterMicros, jitterMicros + 1));
+        }
+        scheduler.schedule(() -> {
+            try {
+                result.complete(response.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.MICROSECONDS);
+        return result;
+    }
+
+    private static double random() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    public String serviceName() {
+        return "sqs";
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
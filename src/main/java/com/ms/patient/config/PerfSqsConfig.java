@@ -0,0 +1,26 @@
+package com.ms.patient.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Perfil {@code perf}: troca o cliente do SQS por um {@link InProcessSqsAsyncClient}, com latência,
+ * jitter e falhas configuráveis, para medir a aplicação sem acesso à AWS.
+ */
+@Configuration
+@Profile("perf")
+public class PerfSqsConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public InProcessSqsAsyncClient inProcessSqsAsyncClient(
+            @Value("${medcare.perf.sqs.latency-ms:20}") long latencyMs,
+            @Value("${medcare.perf.sqs.jitter-ms:5}") long jitterMs,
+            @Value("${medcare.perf.sqs.entry-failure-rate:0}") double entryFailureRate,
+            @Value("${medcare.perf.sqs.request-failure-rate:0}") double requestFailureRate) {
+        return new InProcessSqsAsyncClient(latencyMs, jitterMs, entryFailureRate, requestFailureRate);
+    }
+}
@@ -1,6 +1,11 @@
 package com.ms.patient.config;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.spec.SecretKeySpec;
 
@@ -10,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
@@ -17,6 +23,7 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.security.web.SecurityFilterChain;
 
 import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Configuração de segurança do Resource Server para o microsserviço de gerenciamento de entidades.
@@ -33,6 +40,15 @@ public class ResourceServerConfig {
 
     @Value("${api.security.token.secret}")
     private String secret;
+
+    @Value("${medcare.security.jwt-cache.enabled:true}")
+    private boolean jwtCacheEnabled;
+
+    @Value("${medcare.security.jwt-cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
+    @Value("${medcare.security.jwt-cache.max-ttl:PT15M}")
+    private Duration jwtCacheMaxTtl;
     /**
      * Define a corrente de filtros de segurança (Security Filter Chain).
      * * Configura:
@@ -40,6 +56,8 @@ public class ResourceServerConfig {
      * <li>Desabilitação do CSRF.</li>
      * <li>Liberação pública dos endpoints do Swagger/OpenAPI.</li>
      * <li>Liberação do endpoint de criação de pacientes (auto-cadastro).</li>
+     * <li>Liberação apenas da verificação de saúde do Actuator; os demais endpoints do Actuator
+     * (métricas e coleta do Prometheus) exigem um token com o papel ADMIN.</li>
      * <li>Exigência de autenticação para qualquer outra rota.</li>
      * <li>Configuração do suporte a JWT como padrão do Resource Server.</li>
      * </ul>
@@ -55,6 +73,9 @@ public class ResourceServerConfig {
             // Liberando Swagger
             .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
             .requestMatchers("/patient/create").permitAll()
+            // Liberando só o health check; as métricas expõem a carga e a topologia do serviço
+            .requestMatchers("/actuator/health/**").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
             .anyRequest().authenticated()
         )
         .oauth2ResourceServer(oauth2 -> oauth2
@@ -66,33 +87,44 @@ public class ResourceServerConfig {
     /**
      * Configura o decodificador de JWT utilizando uma chave secreta simétrica.
      * * <p>O método decodifica a chave Base64 fornecida nas propriedades do sistema
-     * e utiliza o algoritmo HMAC-SHA256 para validar a assinatura dos tokens recebidos.</p>
-     * * @return Um bean de {@link JwtDecoder} configurado com a chave secreta.
+     * e utiliza o algoritmo HMAC-SHA256 para validar a assinatura dos tokens recebidos.
+     * Com {@code medcare.security.jwt-cache.enabled} (padrão), os tokens verificados são
+     * guardados pelo {@link CachingJwtDecoder} até o seu {@code exp}.</p>
+     * * @param meterRegistry Registro das métricas do cache de tokens.
+     * @return Um bean de {@link JwtDecoder} configurado com a chave secreta.
      */
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
     
         SecretKeySpec secretKey = new SecretKeySpec(keyBytes, "HmacSHA256");
         
-        return NimbusJwtDecoder.withSecretKey(secretKey).build();
+        JwtDecoder decoder = NimbusJwtDecoder.withSecretKey(secretKey).build();
+        if (!jwtCacheEnabled) {
+            return decoder;
+        }
+        return new CachingJwtDecoder(decoder, meterRegistry, jwtCacheMaximumSize, jwtCacheMaxTtl, Clock.systemUTC());
     }
     /**
      * Personaliza a conversão do JWT para o contexto de segurança do Spring.
      * * <p>Este conversor extrai a claim "role" do payload do JWT e a transforma em uma 
      * autoridade do Spring Security, prefixando-a com "ROLE_". Isso permite o uso 
-     * de anotações como {@code @PreAuthorize("hasRole('ADMIN')")}.</p>
+     * de anotações como {@code @PreAuthorize("hasRole('ADMIN')")}. A lista de autoridades
+     * de cada role é criada uma única vez e reaproveitada pelas requisições seguintes.</p>
      * * @return Um {@link JwtAuthenticationConverter} com lógica de mapeamento de roles.
      */
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
 
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        // Poucas roles, todas vindas de tokens já verificados
+        Map<String, Collection<GrantedAuthority>> authorities = new ConcurrentHashMap<>();
 
         converter.setJwtGrantedAuthoritiesConverter(jwt -> {
             String role = jwt.getClaim("role");
 
-            return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+            return authorities.computeIfAbsent(String.valueOf(role),
+                key -> List.of(new SimpleGrantedAuthority("ROLE_" + key)));
         });
 
         return converter;
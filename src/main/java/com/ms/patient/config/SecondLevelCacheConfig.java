@@ -0,0 +1,121 @@
+package com.ms.patient.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache sobre Caffeine) para as buscas por 'ID'.
+ *
+ * <p>Com a herança {@code JOINED}, cada {@code findById} de Pessoa, Paciente, Médico ou
+ * Assistente junta {@code person} com a tabela da subclasse (e {@code address}, pelo grafo).
+ * As entidades ficam em duas regiões, {@value #PERSON_REGION} (toda a hierarquia de
+ * {@link com.ms.patient.models.Person}, já que o Hibernate guarda as subclasses na região da raiz)
+ * e {@value #ADDRESS_REGION}, com estratégia {@code READ_WRITE}: atualizações e remoções feitas
+ * pelo Hibernate (PUT e DELETE dos serviços) substituem ou removem a entrada ao fim da transação,
+ * e leituras concorrentes com uma escrita em andamento vão ao banco.</p>
+ *
+ * <p>A região {@value #NATURAL_ID_REGION} guarda a resolução e-mail → 'ID' do identificador
+ * natural de Person; com ela, uma busca por e-mail já resolvida vai à região
+ * {@value #PERSON_REGION} sem SQL. A troca de e-mail em uma atualização substitui a entrada.</p>
+ *
+ * <p>O cache é local a cada instância. Escritas feitas fora do Hibernate (SQL manual, outra
+ * instância) só são vistas depois do TTL da região; por isso o TTL é curto.</p>
+ *
+ * <p>As regiões são criadas aqui (e não pelo Hibernate) para aplicar os limites de cada uma;
+ * uma região não declarada faz a inicialização falhar. Métricas: {@code cache.gets} (tag
+ * {@code result} hit/miss), {@code cache.puts} e {@code cache.removals} com a tag
+ * {@code cache=person}, {@code cache=person-natural-id} ou {@code cache=address}.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "medcare.cache.second-level.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    /** Região das entidades da hierarquia de Person (Patient, Medic, Assistant). */
+    public static final String PERSON_REGION = "person";
+
+    /** Região da resolução e-mail (identificador natural) → 'ID' das pessoas. */
+    public static final String NATURAL_ID_REGION = "person-natural-id";
+
+    /** Região dos endereços. */
+    public static final String ADDRESS_REGION = "address";
+
+    @Value("${medcare.cache.second-level.person.maximum-size:50000}")
+    private long personMaximumSize;
+
+    @Value("${medcare.cache.second-level.person.ttl:PT5M}")
+    private Duration personTtl;
+
+    @Value("${medcare.cache.second-level.person-natural-id.maximum-size:50000}")
+    private long naturalIdMaximumSize;
+
+    @Value("${medcare.cache.second-level.person-natural-id.ttl:PT5M}")
+    private Duration naturalIdTtl;
+
+    @Value("${medcare.cache.second-level.address.maximum-size:50000}")
+    private long addressMaximumSize;
+
+    @Value("${medcare.cache.second-level.address.ttl:PT5M}")
+    private Duration addressTtl;
+
+    /**
+     * O {@link CacheManager} do Caffeine com as regiões do Hibernate já criadas.
+     *
+     * @param meterRegistry Registro onde as estatísticas de cada região são publicadas.
+     * @return O gerenciador, fechado junto com o contexto.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(MeterRegistry meterRegistry) {
+        // URI próprio: o gerenciador padrão do provedor é compartilhado pela JVM (ex: vários contextos nos testes)
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("medcare:second-level:" + UUID.randomUUID()), getClass().getClassLoader());
+        createRegion(cacheManager, meterRegistry, PERSON_REGION, personMaximumSize, personTtl);
+        createRegion(cacheManager, meterRegistry, NATURAL_ID_REGION, naturalIdMaximumSize, naturalIdTtl);
+        createRegion(cacheManager, meterRegistry, ADDRESS_REGION, addressMaximumSize, addressTtl);
+        return cacheManager;
+    }
+
+    /**
+     * Liga o cache de segundo nível e entrega ao Hibernate o {@link CacheManager} acima.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, MeterRegistry meterRegistry, String region,
+                                     long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+            .setMaximumSize(OptionalLong.of(maximumSize))
+            .setExpireAfterWrite(OptionalLong.of(ttl.toNanos()))
+            // As entradas do Hibernate já são cópias desmontadas da entidade; dispensa a serialização a cada get
+            .setStoreByValue(false)
+            .setStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(region, configuration);
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+}
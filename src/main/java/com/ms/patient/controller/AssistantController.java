@@ -1,9 +1,10 @@
 package com.ms.patient.controller;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,14 +12,19 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ms.patient.dto.AssistantCreationDTO;
 import com.ms.patient.dto.AssistantResponseDTO;
+import com.ms.patient.dto.SliceResponseDTO;
 import com.ms.patient.mappers.AssistantMapper;
 import com.ms.patient.models.Assistant;
 import com.ms.patient.service.AssistantService;
+import com.ms.patient.utils.EntityTags;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import jakarta.validation.Valid;
 
@@ -71,15 +77,25 @@ public class AssistantController {
     /**
      * Busca os detalhes de um assistente específico pelo seu ID.
      *
+     * <p>A resposta leva a ETag do registro; se o {@code If-None-Match} já a contém,
+     * responde 304 sem carregar o assistente.</p>
+     *
      * @param id O identificador único do assistente a ser buscado.
+     * @param ifNoneMatch As ETags que o cliente já possui (opcional).
      * @return ResponseEntity contendo o {@link AssistantResponseDTO} correspondente
-     * e o status HTTP 200 (OK).
+     * e o status HTTP 200 (OK), ou HTTP 304 (Not Modified).
      * @throws NoSuchElementException Se nenhum assistente for encontrado com o ID fornecido (mapeado para 404 Not Found).
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ASSISTANT', 'ADMIN')")
-    public ResponseEntity<AssistantResponseDTO> findById(@PathVariable long id){
-        
+    public ResponseEntity<AssistantResponseDTO> findById(@PathVariable long id,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+        ResponseEntity<AssistantResponseDTO> notModified = EntityTags.notModified(ifNoneMatch, id, service::findVersion);
+        if(notModified != null){
+            return notModified;
+        }
+
         Assistant foundAssistant = service.findById(id);
 
         if(foundAssistant == null){
@@ -87,19 +103,22 @@ public class AssistantController {
         }
         
         AssistantResponseDTO responseDTO = mapper.toAssistantResponseDTO(foundAssistant);
-        return ResponseEntity.ok(responseDTO);
+        return ResponseEntity.ok().eTag(EntityTags.of(foundAssistant)).body(responseDTO);
     }
     /**
-     * Retorna os dados de todos os pacientes
+     * Retorna os dados dos assistentes, paginados por cursor (keyset pagination)
      * 
-     * @return ResponseEntity contendo a lista de AssistantDTO e o status
+     * @param after O último 'ID' já lido (0 para a primeira página).
+     * @param limit A quantidade máxima de assistentes na resposta.
+     * @return ResponseEntity contendo a fatia de AssistantDTO, o próximo cursor e o status
      * HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<AssistantResponseDTO>> findAll(){
+    public ResponseEntity<SliceResponseDTO<AssistantResponseDTO>> findAll(@RequestParam(defaultValue = "0") long after,
+                                                                          @RequestParam(defaultValue = KeysetPageRequest.DEFAULT_LIMIT) int limit){
         
-        List<AssistantResponseDTO> assistants = service.findAll();
+        Slice<AssistantResponseDTO> assistants = service.findAll(after, limit);
 
-        return ResponseEntity.ok(assistants);
+        return ResponseEntity.ok(SliceResponseDTO.of(assistants));
     }
 }
@@ -3,15 +3,20 @@ package com.ms.patient.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.ms.patient.dto.MedicCreationDTO;
 import com.ms.patient.dto.MedicResponseDTO;
+import com.ms.patient.dto.SliceResponseDTO;
 import com.ms.patient.mappers.MedicMapper;
 import com.ms.patient.models.Medic;
 import com.ms.patient.service.MedicService;
+import com.ms.patient.utils.EntityTags;
+import com.ms.patient.utils.KeysetPageRequest;
 import jakarta.validation.Valid;
 
-import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,8 +25,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador REST para gerir operações relacionadas à entidade Médico (Medic).
@@ -73,14 +81,24 @@ public class MedicController {
     /**
      * Busca os detalhes de um médico específico pelo seu 'ID'.
      *
+     * <p>A resposta leva a ETag do registro; se o {@code If-None-Match} já a contém,
+     * responde 304 sem carregar o médico.</p>
+     *
      * @param id O identificador único do médico a ser buscado.
+     * @param ifNoneMatch As ETags que o cliente já possui (opcional).
      * @return ResponseEntity contendo o {@link MedicResponseDTO} correspondente
-     * e o status HTTP 200 (OK).
+     * e o status HTTP 200 (OK), ou HTTP 304 (Not Modified).
      * @throws NoSuchElementException Se nenhum médico for encontrado com o 'ID' fornecido (mapeado para 404 Not Found).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<MedicResponseDTO> findById(@PathVariable long id){
-        
+    public ResponseEntity<MedicResponseDTO> findById(@PathVariable long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+        ResponseEntity<MedicResponseDTO> notModified = EntityTags.notModified(ifNoneMatch, id, service::findVersion);
+        if(notModified != null){
+            return notModified;
+        }
+
         Medic foundMedic = service.findById(id);
 
         if(foundMedic == null){
@@ -88,39 +106,75 @@ public class MedicController {
         }
         
         MedicResponseDTO responseDTO = mapper.toMedicResponseDTO(foundMedic);
-        return ResponseEntity.ok(responseDTO);
+        return ResponseEntity.ok().eTag(EntityTags.of(foundMedic)).body(responseDTO);
     }
     /**
-     * Retorna os dados de todos os pacientes
+     * Retorna os dados dos médicos, paginados por cursor (keyset pagination)
      * 
-     * @return ResponseEntity contendo a lista de PacienteDTO e o status
+     * @param after O último 'ID' já lido (0 para a primeira página).
+     * @param limit A quantidade máxima de médicos na resposta.
+     * @return ResponseEntity contendo a fatia de MedicResponseDTO, o próximo cursor e o status
      * HTTP 200 (OK).
      */
     @GetMapping("/all")
-    public ResponseEntity<List<MedicResponseDTO>> findAll(){
+    public ResponseEntity<SliceResponseDTO<MedicResponseDTO>> findAll(@RequestParam(defaultValue = "0") long after,
+                                                                      @RequestParam(defaultValue = KeysetPageRequest.DEFAULT_LIMIT) int limit){
         
-        List<Medic> medics = service.findAll();
-        List<MedicResponseDTO> response = mapper.toDtoResponse(medics);
+        Slice<Medic> medics = service.findAll(after, limit);
+        Slice<MedicResponseDTO> response = medics.map(mapper::toMedicResponseDTO);
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(SliceResponseDTO.of(response));
     }
 
+    /**
+     * Exporta todos os médicos como NDJSON (application/x-ndjson), um registro por linha.
+     *
+     * <p>A resposta é escrita em streaming, à medida que os registros são lidos do banco,
+     * sem carregar a lista completa em memória. Usado pela sincronização noturna.</p>
+     *
+     * @return ResponseEntity contendo o corpo em streaming e o status HTTP 200 (OK).
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT')")
+    public ResponseEntity<StreamingResponseBody> exportAll(){
+
+        StreamingResponseBody body = out -> service.exportAll(out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Atualiza os dados de um médico.
+     *
+     * <p>Com {@code If-Match}, a atualização só é aplicada se a ETag informada ainda for a atual;
+     * caso contrário responde 412 (Precondition Failed). A resposta leva a nova ETag.</p>
+     *
+     * @param medicId O 'ID' do médico.
+     * @param ifMatch A ETag da versão que o cliente leu (opcional).
+     * @param entity Os novos dados do médico.
+     * @return ResponseEntity contendo o médico atualizado e o status HTTP 201 (Created).
+     */
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT', 'MEDIC')")
-    public ResponseEntity<MedicResponseDTO> updateMedic(@PathVariable long medicId, @Valid @RequestBody MedicCreationDTO entity) {
+    public ResponseEntity<MedicResponseDTO> updateMedic(@PathVariable("id") long medicId,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        @Valid @RequestBody MedicCreationDTO entity) {
 
         
-        Medic medicUpdated = service.updateMedic(entity, medicId);
+        Medic medicUpdated = service.updateMedic(entity, medicId, EntityTags.expectedVersion(ifMatch, medicId));
         MedicResponseDTO response = mapper.toMedicResponseDTO(medicUpdated);
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
+                .eTag(EntityTags.of(medicUpdated))
                 .body(response);
     }
     
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('ASSISTANT', 'ADMIN')")
-    public ResponseEntity<Void> deleteMedic(@PathVariable long medicId){
+    @PreAuthorize("hasAnyRole('ASSISTANT', 'ADMIN')")
+    public ResponseEntity<Void> deleteMedic(@PathVariable("id") long medicId){
         
         service.deleteMedic(medicId);
         return ResponseEntity.noContent().build();
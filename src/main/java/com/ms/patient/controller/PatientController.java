@@ -5,7 +5,10 @@ import java.util.List;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,14 +16,21 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ms.patient.dto.BatchCreationResultDTO;
 import com.ms.patient.dto.PatientCreationDTO;
 import com.ms.patient.dto.PatientResponseDTO;
+import com.ms.patient.dto.SliceResponseDTO;
 import com.ms.patient.mappers.PatientMapper;
 import com.ms.patient.models.Patient;
 import com.ms.patient.service.PatientService;
+import com.ms.patient.utils.EntityTags;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import jakarta.validation.Valid;
 /**
@@ -68,19 +78,42 @@ public class PatientController {
                 .status(HttpStatus.CREATED)
                 .body(response);
     }
+    /**
+     * Cria vários pacientes em uma única requisição (cadastro inicial de clínicas).
+     *
+     * <p>Cada item é validado individualmente; os inválidos voltam com o motivo e não
+     * impedem a criação dos demais.
+     *
+     * @param dtos Os pacientes a criar (no máximo {@value PatientService#MAX_CREATION_BATCH_SIZE}).
+     * @return ResponseEntity com um resultado por item, na mesma ordem da requisição.
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ASSISTANT')")
+    public ResponseEntity<List<BatchCreationResultDTO>> registerPatients(@RequestBody List<PatientCreationDTO> dtos) throws JsonProcessingException {
+        return ResponseEntity.ok(service.createPatients(dtos));
+    }
+
     /**
      * Retorna os dados do paciente através do id
      * 
-     * <p>O 'ID' é esperado como uma variável de caminho (path variable).
+     * <p>O 'ID' é esperado como uma variável de caminho (path variable). A resposta leva a
+     * ETag do registro; se o {@code If-None-Match} já a contém, responde 304 sem carregar o paciente.
      * 
      * @param id O identificador único do paciente (geralmente um Long ou UUID)
      * a ser buscado no sistema.
+     * @param ifNoneMatch As ETags que o cliente já possui (opcional).
      * @return ResponseEntity contendo o PacienteDTO correspondente e o status ou ResponseEntity.notFound()
-     * HTTP 200 (OK).
+     * HTTP 200 (OK), ou HTTP 304 (Not Modified).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<PatientResponseDTO> findById(@PathVariable long id){
-        
+    public ResponseEntity<PatientResponseDTO> findById(@PathVariable long id,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+
+        ResponseEntity<PatientResponseDTO> notModified = EntityTags.notModified(ifNoneMatch, id, service::findVersion);
+        if(notModified != null){
+            return notModified;
+        }
+
         Patient foundPatient = service.findById(id);
 
         if(foundPatient == null){
@@ -89,40 +122,104 @@ public class PatientController {
         
         PatientResponseDTO responseDTO = mapper.toPatientResponseDTO(foundPatient);
 
-        return ResponseEntity.ok(responseDTO);
+        return ResponseEntity.ok().eTag(EntityTags.of(foundPatient)).body(responseDTO);
     }
     
     /**
-     * Retorna os dados de todos os pacientes
+     * Retorna os dados dos pacientes, paginados por cursor (keyset pagination)
      * 
-     * @return ResponseEntity contendo a lista de PacienteDTO e o status
+     * @param after O último 'ID' já lido (0 para a primeira página).
+     * @param limit A quantidade máxima de pacientes na resposta.
+     * @param symptom Se informado, só os pacientes com este sintoma.
+     * @param allergy Se informado, só os pacientes com esta alergia.
+     * @return ResponseEntity contendo a fatia de PacienteDTO, o próximo cursor e o status
      * HTTP 200 (OK).
      */
     @GetMapping("/all")
     @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT')")
-    public ResponseEntity<List<PatientResponseDTO>> findAll(){
+    public ResponseEntity<SliceResponseDTO<PatientResponseDTO>> findAll(@RequestParam(defaultValue = "0") long after,
+                                                                        @RequestParam(defaultValue = KeysetPageRequest.DEFAULT_LIMIT) int limit,
+                                                                        @RequestParam(required = false) String symptom,
+                                                                        @RequestParam(required = false) String allergy){
         
-        List<Patient> patients = service.findAll();
-        List<PatientResponseDTO> responseDTO = mapper.toDtoResponse(patients);
-        return ResponseEntity.ok(responseDTO);
+        Slice<Patient> patients = service.findAll(after, limit, symptom, allergy);
+        Slice<PatientResponseDTO> responseDTO = patients.map(mapper::toPatientResponseDTO);
+        return ResponseEntity.ok(SliceResponseDTO.of(responseDTO));
     }
 
+    /**
+     * Busca clínica: pacientes que atendem a uma consulta booleana sobre sintomas, alergias e
+     * situação, paginados por cursor (keyset pagination)
+     * 
+     * <p>Exemplo: {@code q=allergy:penicilina AND situation:HOSPITALIZED}. A consulta é
+     * resolvida no índice em memória; responde 400 se for inválida e 503 enquanto o índice carrega.
+     * 
+     * @param q A consulta ({@code symptom:}, {@code allergy:} e {@code situation:} com AND, OR, NOT e parênteses).
+     * @param after O último 'ID' já lido (0 para a primeira página).
+     * @param limit A quantidade máxima de pacientes na resposta.
+     * @return ResponseEntity contendo a fatia de PacienteDTO, o próximo cursor e o status
+     * HTTP 200 (OK).
+     */
+    @GetMapping("/search/clinical")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT')")
+    public ResponseEntity<SliceResponseDTO<PatientResponseDTO>> searchClinical(@RequestParam String q,
+                                                                               @RequestParam(defaultValue = "0") long after,
+                                                                               @RequestParam(defaultValue = KeysetPageRequest.DEFAULT_LIMIT) int limit){
+
+        Slice<Patient> patients = service.searchClinical(q, after, limit);
+        Slice<PatientResponseDTO> responseDTO = patients.map(mapper::toPatientResponseDTO);
+        return ResponseEntity.ok(SliceResponseDTO.of(responseDTO));
+    }
+
+    /**
+     * Exporta todos os pacientes como NDJSON (application/x-ndjson), um registro por linha.
+     *
+     * <p>A resposta é escrita em streaming, à medida que os registros são lidos do banco,
+     * sem carregar a lista completa em memória. Usado pela sincronização noturna.</p>
+     *
+     * @return ResponseEntity contendo o corpo em streaming e o status HTTP 200 (OK).
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT')")
+    public ResponseEntity<StreamingResponseBody> exportAll(){
+
+        StreamingResponseBody body = out -> service.exportAll(out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Atualiza os dados de um paciente.
+     *
+     * <p>Com {@code If-Match}, a atualização só é aplicada se a ETag informada ainda for a atual;
+     * caso contrário responde 412 (Precondition Failed). A resposta leva a nova ETag.
+     *
+     * @param patientId O 'ID' do paciente.
+     * @param ifMatch A ETag da versão que o cliente leu (opcional).
+     * @param entity Os novos dados do paciente.
+     * @return ResponseEntity contendo o paciente atualizado e o status HTTP 201 (Created).
+     */
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'ASSISTANT', 'PATIENT')")
-    public ResponseEntity<PatientResponseDTO> updatePatient(@PathVariable long patientId, @Valid @RequestBody PatientCreationDTO entity) {
+    public ResponseEntity<PatientResponseDTO> updatePatient(@PathVariable("id") long patientId,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                            @Valid @RequestBody PatientCreationDTO entity) {
 
         
-        Patient updatedPatient = service.updatePatient(entity, patientId);
+        Patient updatedPatient = service.updatePatient(entity, patientId, EntityTags.expectedVersion(ifMatch, patientId));
         PatientResponseDTO response = mapper.toPatientResponseDTO(updatedPatient);
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
+                .eTag(EntityTags.of(updatedPatient))
                 .body(response);
     }
     
     @DeleteMapping("/{id}")
-    @PreAuthorize("hasRole('PATIENT', 'ADMIN')")
-    public ResponseEntity<Void> deletePatient(@PathVariable long patientId){
+    @PreAuthorize("hasAnyRole('PATIENT', 'ADMIN')")
+    public ResponseEntity<Void> deletePatient(@PathVariable("id") long patientId){
         
         service.deletePatient(patientId);
         return ResponseEntity.noContent().build();
@@ -4,19 +4,31 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.ms.patient.service.PersonService;
+import com.ms.patient.dto.BatchLookupResultDTO;
 import com.ms.patient.dto.PersonEmailSenderDto;
 import com.ms.patient.dto.PersonResponseDTO;
+import com.ms.patient.dto.SliceResponseDTO;
 import com.ms.patient.mappers.PersonMapper;
 import com.ms.patient.models.Person;
+import com.ms.patient.utils.EntityTags;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 /**
  * Controlador REST para gerir operações CRUD (Criação, Leitura, Atualização e Deleção)
@@ -41,20 +53,30 @@ public class PersonController {
     /**
      * Busca os detalhes de uma pessoa específica pelo seu 'ID'.
      *
+     * <p>A resposta leva a ETag do registro; se o {@code If-None-Match} já a contém,
+     * responde 304 sem carregar a pessoa.</p>
+     *
      * @param id O identificador único da pessoa a ser buscada.
+     * @param ifNoneMatch As ETags que o cliente já possui (opcional).
      * @return ResponseEntity contendo o {@link PersonResponseDTO} correspondente
-     * e o status HTTP 200 (OK).
+     * e o status HTTP 200 (OK), ou HTTP 304 (Not Modified).
      * @throws NoSuchElementException Se nenhuma pessoa for encontrada com o 'ID' fornecido (mapeado para 404).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<PersonResponseDTO> findPersonById(@PathVariable long id) {
-        
+    public ResponseEntity<PersonResponseDTO> findPersonById(@PathVariable long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        //Respondendo 304 se o cliente já tem a versão atual
+        ResponseEntity<PersonResponseDTO> notModified = EntityTags.notModified(ifNoneMatch, id, service::findVersion);
+        if (notModified != null) {
+            return notModified;
+        }
         //Pegando o objeto person do service
         Person entity = service.findPersonById(id);
         //Transformando em DTO de resposta
         PersonResponseDTO responseDto = mapper.toDtoResponse(entity);
         //Mandando o DTO
-        return ResponseEntity.ok(responseDto);
+        return ResponseEntity.ok().eTag(EntityTags.of(entity)).body(responseDto);
     }
     /**
      * Busca uma pessoa pelo 'ID' e retorna um DTO simplificado, contendo apenas
@@ -71,21 +93,75 @@ public class PersonController {
         return ResponseEntity.ok(entity);
     }
     /**
-     * Lista todas as pessoas cadastradas no sistema.
+     * Busca várias pessoas de uma só vez, para serviços que hoje chamam {@code GET /person/{id}} em loop.
+     *
+     * <p>O corpo é um array JSON de 'IDs' (no máximo {@value PersonService#MAX_BATCH_SIZE}).
+     * A resposta traz um item por 'ID', na mesma ordem, com {@code found = false} para os inexistentes.</p>
+     *
+     * @param ids Os 'IDs' das pessoas a serem buscadas.
+     * @return ResponseEntity contendo a lista de {@link BatchLookupResultDTO} e o status HTTP 200 (OK).
+     * @throws IllegalArgumentException Se a lista for vazia ou exceder o limite (mapeado para 400).
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BatchLookupResultDTO<PersonResponseDTO>>> findPersonsByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(service.findPersonsByIds(ids));
+    }
+
+    /**
+     * Versão em lote de {@code GET /person/email/{id}}, usada pelo serviço de notificações.
+     *
+     * <p>O corpo é um array JSON de 'IDs' (no máximo {@value PersonService#MAX_BATCH_SIZE}).
+     * A resposta traz um item por 'ID', na mesma ordem, com {@code found = false} para os inexistentes.</p>
+     *
+     * @param ids Os 'IDs' das pessoas a serem buscadas.
+     * @return ResponseEntity contendo a lista de {@link BatchLookupResultDTO} e o status HTTP 200 (OK).
+     * @throws IllegalArgumentException Se a lista for vazia ou exceder o limite (mapeado para 400).
+     */
+    @PostMapping("/email/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BatchLookupResultDTO<PersonEmailSenderDto>>> findPersonsToSendEmail(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(service.findPersonsToSendEmailByIds(ids));
+    }
+
+    /**
+     * Lista as pessoas cadastradas no sistema, paginadas por cursor (keyset pagination).
      *
-     * @return ResponseEntity contendo uma {@link List} de {@link PersonResponseDTO}s
+     * @param after O último 'ID' já lido (0 para a primeira página).
+     * @param limit A quantidade máxima de pessoas na resposta.
+     * @return ResponseEntity contendo um {@link SliceResponseDTO} de {@link PersonResponseDTO}s
      * e o status HTTP 200 (OK).
      */
     @GetMapping("/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<PersonResponseDTO>> findAll() {
-        //Pegando a lista de pessoas do service
-        List<Person> persons = service.findAll();
-        //Transformando a lista em responseDto
-        List<PersonResponseDTO> personResponseDTOs = mapper.toDtoResponse(persons);
-        //Retornando a lista
-        return ResponseEntity.ok(personResponseDTOs);
+    public ResponseEntity<SliceResponseDTO<PersonResponseDTO>> findAll(@RequestParam(defaultValue = "0") long after,
+                                                                       @RequestParam(defaultValue = KeysetPageRequest.DEFAULT_LIMIT) int limit) {
+        //Pegando a fatia de pessoas do service
+        Slice<Person> persons = service.findAll(after, limit);
+        //Transformando a fatia em responseDto
+        Slice<PersonResponseDTO> personResponseDTOs = persons.map(mapper::toDtoResponse);
+        //Retornando a fatia com o próximo cursor
+        return ResponseEntity.ok(SliceResponseDTO.of(personResponseDTOs));
+
+    }
+
+    /**
+     * Exporta todas as pessoas como NDJSON (application/x-ndjson), um registro por linha.
+     *
+     * <p>A resposta é escrita em streaming, à medida que os registros são lidos do banco,
+     * sem carregar a lista completa em memória. Usado pela sincronização noturna.</p>
+     *
+     * @return ResponseEntity contendo o corpo em streaming e o status HTTP 200 (OK).
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAll(){
+
+        StreamingResponseBody body = out -> service.exportAll(out);
 
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
 }
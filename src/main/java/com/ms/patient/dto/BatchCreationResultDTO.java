@@ -0,0 +1,80 @@
+package com.ms.patient.dto;
+
+/**
+ * DTO (Data Transfer Object) que representa o resultado de um item em uma criação em lote
+ * (ex: {@code POST /patient/batch}).
+ *
+ * <p>Os resultados são devolvidos na mesma ordem dos itens da requisição ({@code index}
+ * começa em 0). Itens criados trazem o 'ID' gerado; itens rejeitados trazem o motivo em
+ * {@code error} e não impedem a criação dos demais.</p>
+ */
+public class BatchCreationResultDTO {
+
+    private int index;
+    private boolean created;
+    private Long id;
+    private String error;
+
+    public BatchCreationResultDTO() {}
+
+    public BatchCreationResultDTO(int index, boolean created, Long id, String error) {
+        this.index = index;
+        this.created = created;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * Cria o resultado de um item persistido.
+     *
+     * @param index A posição do item na requisição.
+     * @param id O 'ID' gerado.
+     * @return O resultado com {@code created = true}.
+     */
+    public static BatchCreationResultDTO created(int index, long id) {
+        return new BatchCreationResultDTO(index, true, id, null);
+    }
+
+    /**
+     * Cria o resultado de um item rejeitado na validação.
+     *
+     * @param index A posição do item na requisição.
+     * @param error O motivo da rejeição.
+     * @return O resultado com {@code created = false} e sem 'ID'.
+     */
+    public static BatchCreationResultDTO rejected(int index, String error) {
+        return new BatchCreationResultDTO(index, false, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+
+    public void setCreated(boolean created) {
+        this.created = created;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
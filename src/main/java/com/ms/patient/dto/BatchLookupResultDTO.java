@@ -0,0 +1,71 @@
+package com.ms.patient.dto;
+
+/**
+ * DTO (Data Transfer Object) que representa o resultado de um 'ID' em uma busca em lote
+ * (ex: {@code POST /person/batch}).
+ *
+ * <p>Os resultados são devolvidos na mesma ordem dos 'IDs' da requisição. Quando o 'ID'
+ * não existe, {@code found} é {@code false} e {@code data} é {@code null}, deixando a
+ * ausência explícita para o chamador.</p>
+ *
+ * @param <T> O tipo do DTO retornado para os 'IDs' encontrados.
+ */
+public class BatchLookupResultDTO<T> {
+
+    private long id;
+    private boolean found;
+    private T data;
+
+    public BatchLookupResultDTO() {}
+
+    public BatchLookupResultDTO(long id, boolean found, T data) {
+        this.id = id;
+        this.found = found;
+        this.data = data;
+    }
+
+    /**
+     * Cria o resultado de um 'ID' encontrado.
+     *
+     * @param id O 'ID' pedido.
+     * @param data O DTO correspondente.
+     * @return O resultado com {@code found = true}.
+     */
+    public static <T> BatchLookupResultDTO<T> found(long id, T data) {
+        return new BatchLookupResultDTO<>(id, true, data);
+    }
+
+    /**
+     * Cria o resultado de um 'ID' que não existe.
+     *
+     * @param id O 'ID' pedido.
+     * @return O resultado com {@code found = false} e sem dados.
+     */
+    public static <T> BatchLookupResultDTO<T> missing(long id) {
+        return new BatchLookupResultDTO<>(id, false, null);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public void setData(T data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ms.patient.dto;
+
+import java.util.Objects;
+
+/**
+ * DTO (Data Transfer Object) com um resumo da tabela de pacientes, calculado em uma única
+ * consulta por {@link com.ms.patient.repositories.PatientRepository#findFingerprint}.
+ *
+ * <p>Cadastros e remoções alteram a quantidade ou o maior 'ID', e cada atualização incrementa
+ * a versão do paciente; o índice clínico compara o resumo gravado no snapshot com o atual para
+ * saber se o snapshot ainda corresponde ao banco.</p>
+ */
+public class PatientsFingerprintDTO {
+
+    private final long count;
+    private final long maxId;
+    private final long versionSum;
+
+    /**
+     * Construtor usado pela consulta de projeção ({@code max} e {@code sum} são {@code null}
+     * sem pacientes).
+     */
+    public PatientsFingerprintDTO(Long count, Long maxId, Long versionSum) {
+        this.count = count == null ? 0 : count;
+        this.maxId = maxId == null ? 0 : maxId;
+        this.versionSum = versionSum == null ? 0 : versionSum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public long getVersionSum() {
+        return versionSum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PatientsFingerprintDTO other)) {
+            return false;
+        }
+        return count == other.count && maxId == other.maxId && versionSum == other.versionSum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, maxId, versionSum);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", maxId=" + maxId + ", versionSum=" + versionSum;
+    }
+}
@@ -4,12 +4,31 @@ package com.ms.patient.dto;
  * DTO (Data Transfer Object) simplificado, usado especificamente para fornecer
  * informações mínimas de uma pessoa ('ID', e-mail, nome) para serviços externos,
  * como um serviço de envio de e-mail.
+ *
+ * <p>Preenchido diretamente pela consulta de projeção
+ * {@link com.ms.patient.repositories.PersonRepository#findEmailSenderById(long)},
+ * sem carregar a entidade Person.</p>
  */
 public class PersonEmailSenderDto {
 
     private long id;
     private String email;
     private String nome;
+
+    public PersonEmailSenderDto() {}
+
+    /**
+     * Construtor usado pelas consultas de projeção (JPQL {@code select new ...}).
+     *
+     * @param id O 'ID' da pessoa.
+     * @param email O e-mail da pessoa.
+     * @param nome O nome da pessoa.
+     */
+    public PersonEmailSenderDto(long id, String email, String nome) {
+        this.id = id;
+        this.email = email;
+        this.nome = nome;
+    }
     
     public long getId() {
         return id;
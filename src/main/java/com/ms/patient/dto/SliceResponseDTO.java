@@ -0,0 +1,69 @@
+package com.ms.patient.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * DTO (Data Transfer Object) genérico utilizado nas listagens paginadas por cursor
+ * (keyset pagination) da API.
+ *
+ * <p>Contém os registros da página atual, se existe uma próxima página e o cursor
+ * ({@code nextCursor}) que deve ser enviado no parâmetro {@code after} para buscá-la.
+ * Como a consulta é feita sobre um {@link Slice}, nenhum {@code COUNT(*)} é executado
+ * e o total de registros não é informado.</p>
+ *
+ * @param <T> O tipo do DTO de resposta, sempre derivado de {@link PersonResponseDTO}.
+ */
+public class SliceResponseDTO<T extends PersonResponseDTO> {
+
+    private List<T> content;
+    private boolean hasNext;
+    private Long nextCursor;
+
+    public SliceResponseDTO() {}
+
+    public SliceResponseDTO(List<T> content, boolean hasNext, Long nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Constrói a resposta a partir de um {@link Slice} já mapeado para DTOs.
+     *
+     * <p>O cursor é o 'ID' do último registro da página, ou {@code null} se a página estiver vazia.</p>
+     *
+     * @param slice A fatia de DTOs retornada pelo serviço.
+     * @return O {@link SliceResponseDTO} correspondente.
+     */
+    public static <T extends PersonResponseDTO> SliceResponseDTO<T> of(Slice<T> slice) {
+        List<T> content = slice.getContent();
+        Long nextCursor = content.isEmpty() ? null : content.get(content.size() - 1).getId();
+        return new SliceResponseDTO<>(content, slice.hasNext(), nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
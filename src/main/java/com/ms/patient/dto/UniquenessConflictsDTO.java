@@ -0,0 +1,47 @@
+package com.ms.patient.dto;
+
+/**
+ * DTO (Data Transfer Object) com o resultado da verificação de unicidade feita em uma
+ * única consulta por {@link com.ms.patient.repositories.PersonRepository#findConflicts}.
+ *
+ * <p>Cada campo indica se já existe outro registro com o mesmo valor. O CRM só é
+ * verificado para Médicos; para os demais papéis ele é sempre {@code false}.</p>
+ */
+public class UniquenessConflictsDTO {
+
+    private final boolean email;
+    private final boolean cpf;
+    private final boolean phone;
+    private final boolean crm;
+
+    /**
+     * Construtor usado pela consulta de projeção. Cada parâmetro é a quantidade de registros
+     * que conflitam com o valor informado ({@code null} quando nenhuma linha foi encontrada).
+     */
+    public UniquenessConflictsDTO(Long email, Long cpf, Long phone, Long crm) {
+        this.email = isPositive(email);
+        this.cpf = isPositive(cpf);
+        this.phone = isPositive(phone);
+        this.crm = isPositive(crm);
+    }
+
+    private static boolean isPositive(Long count) {
+        return count != null && count > 0;
+    }
+
+    public boolean isEmail() {
+        return email;
+    }
+
+    public boolean isCpf() {
+        return cpf;
+    }
+
+    public boolean isPhone() {
+        return phone;
+    }
+
+    public boolean isCrm() {
+        return crm;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ms.patient.enums;
+
+/**
+ * Estado de entrega de um evento gravado na outbox ({@code outbox_events}).
+ */
+public enum OutboxStatus {
+
+    /** Aguardando envio (ou reenvio, após uma falha) ao SQS. */
+    PENDING,
+
+    /** Aceito pelo SQS. Removido depois do período de retenção. */
+    SENT,
+
+    /** Esgotou as tentativas de envio; precisa de intervenção manual. */
+    FAILED
+}
@@ -0,0 +1,169 @@
+package com.ms.patient.events;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+/**
+ * Etapa única de codificação do {@link UserCreationEvent} em corpo de mensagem.
+ *
+ * <p>Usa um {@link ObjectWriter} criado uma única vez para o tipo do evento (o serializador é
+ * resolvido na inicialização, não a cada envio). Cada thread reaproveita o seu
+ * {@link JsonGenerator} e o buffer de bytes em que ele escreve, então codificar um evento só
+ * aloca o próprio evento e o {@code String} do corpo.</p>
+ *
+ * <p>A codificação é definida por {@code medcare.events.encoding}: {@code json} (padrão) ou
+ * {@code cbor}. Como o corpo de uma mensagem SQS precisa ser texto, o CBOR vai em Base64; o
+ * consumidor identifica o formato pelo atributo {@value #CONTENT_TYPE_ATTRIBUTE} da mensagem.
+ * Com os três campos atuais, o Base64 consome o ganho de tamanho do CBOR, então só vale a pena
+ * ativá-lo se o evento crescer e o consumidor já o suportar.</p>
+ */
+@Component
+public class UserCreationEventEncoder {
+
+    /** Atributo da mensagem SQS que informa o formato do corpo. */
+    public static final String CONTENT_TYPE_ATTRIBUTE = "contentType";
+    public static final String JSON = "application/json";
+    /** CBOR (RFC 8949) codificado em Base64. */
+    public static final String CBOR = "application/cbor";
+
+    // Buffers maiores que isso (evento anormal) não ficam retidos na thread
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    /**
+     * Um evento codificado.
+     *
+     * @param body O corpo da mensagem.
+     * @param contentType O formato do corpo ({@link #JSON} ou {@link #CBOR}).
+     */
+    public record Encoded(String body, String contentType) {
+    }
+
+    private final ObjectWriter writer;
+    private final boolean binary;
+    private final String contentType;
+    private final ThreadLocal<Output> outputs;
+
+    public UserCreationEventEncoder(ObjectMapper objectMapper,
+                                    @Value("${medcare.events.encoding:json}") String encoding) {
+        switch (encoding) {
+            case "json" -> {
+                this.writer = objectMapper.writerFor(UserCreationEvent.class);
+                this.binary = false;
+                this.contentType = JSON;
+            }
+            case "cbor" -> {
+                this.writer = new CBORMapper().writerFor(UserCreationEvent.class);
+                this.binary = true;
+                this.contentType = CBOR;
+            }
+            default -> throw new IllegalArgumentException("Unsupported event encoding: " + encoding);
+        }
+        this.outputs = ThreadLocal.withInitial(() -> new Output(writer, binary));
+    }
+
+    /**
+     * Codifica o evento de criação de usuário.
+     *
+     * @param personId O 'ID' da pessoa.
+     * @param username O nome de usuário (e-mail).
+     * @param role O papel do usuário (ex: "USER", "MEDIC", "ASSISTANT").
+     * @return O corpo da mensagem e o seu formato.
+     */
+    public Encoded encode(long personId, String username, String role) throws JsonProcessingException {
+        var event = new UserCreationEvent();
+        event.setPerson_id(personId);
+        event.setUsername(username);
+        event.setRole(role);
+
+        Output output = outputs.get();
+        Buffer buffer = output.buffer;
+        buffer.reset();
+        try {
+            writer.writeValue(output.generator, event);
+            output.generator.flush();
+        } catch (IOException e) {
+            // Gerador em estado desconhecido: descarta o da thread
+            outputs.remove();
+            if (e instanceof JsonProcessingException processing) {
+                throw processing;
+            }
+            // O destino é um buffer em memória; não há E/S real que possa falhar
+            throw new UncheckedIOException(e);
+        }
+
+        String body = binary
+            ? new String(Base64.getEncoder().encode(ByteBuffer.wrap(buffer.bytes, 0, buffer.size)).array(),
+                StandardCharsets.ISO_8859_1)
+            : new String(buffer.bytes, 0, buffer.size, StandardCharsets.UTF_8);
+        if (buffer.bytes.length > MAX_RETAINED_BUFFER) {
+            outputs.remove();
+        }
+        return new Encoded(body, contentType);
+    }
+
+    /** O formato produzido por este codificador. */
+    public String contentType() {
+        return contentType;
+    }
+
+    // Gerador e buffer reaproveitados por uma thread. Sem separador entre valores raiz,
+    // cada evento escrito no mesmo gerador sai como um documento independente.
+    private static final class Output {
+        final Buffer buffer = new Buffer();
+        final JsonGenerator generator;
+
+        Output(ObjectWriter writer, boolean binary) {
+            try {
+                this.generator = writer.createGenerator(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!binary) {
+                this.generator.setRootValueSeparator(null);
+            }
+        }
+    }
+
+    // Buffer de bytes sem sincronização (ByteArrayOutputStream sincroniza cada escrita)
+    private static final class Buffer extends OutputStream {
+        byte[] bytes = new byte[256];
+        int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(size + 1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensureCapacity(size + length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
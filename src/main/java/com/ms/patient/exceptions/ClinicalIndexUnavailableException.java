@@ -0,0 +1,13 @@
+package com.ms.patient.exceptions;
+
+/**
+ * Exceção lançada quando a busca clínica é pedida antes de o índice em memória terminar de
+ * carregar, ou com o índice desativado ou com falha na carga (mapeada para 503 Service Unavailable).
+ */
+public class ClinicalIndexUnavailableException extends RuntimeException{
+
+    public ClinicalIndexUnavailableException(String message) {
+        super(message);
+    }
+
+}
@@ -6,6 +6,7 @@ import java.nio.file.AccessDeniedException;
 
 import javax.naming.AuthenticationException;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -27,6 +28,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    @ExceptionHandler(InvalidCpfException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCpf(InvalidCpfException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                400
+        );
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleNotFound(EntityNotFoundException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -36,6 +47,50 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler({
+            EmailAlreadyExistsException.class,
+            CpfAlreadyExistsException.class,
+            PhoneAlreadyExistsException.class,
+            RegistrationNumberAlreadyExistsException.class,
+            CrmInvalidException.class
+    })
+    public ResponseEntity<ErrorResponse> handleConflict(RuntimeException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                409
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                412
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    // Índice clínico ainda carregando (ou desativado): o cliente pode tentar de novo
+    @ExceptionHandler(ClinicalIndexUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleClinicalIndexUnavailable(ClinicalIndexUnavailableException ex) {
+        ErrorResponse error = new ErrorResponse(
+                ex.getMessage(),
+                503
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    // Duas atualizações simultâneas do mesmo registro: a segunda a gravar perde
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        ErrorResponse error = new ErrorResponse(
+                "The resource was modified by another request",
+                409
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneric(Exception ex) {
         ErrorResponse error = new ErrorResponse(
@@ -0,0 +1,13 @@
+package com.ms.patient.exceptions;
+
+/**
+ * Exceção lançada quando a pré-condição {@code If-Match} de uma atualização não confere
+ * com a versão atual do registro (mapeada para 412 Precondition Failed).
+ */
+public class PreconditionFailedException extends RuntimeException{
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.ms.patient.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exceção lançada quando o cadastro ou a atualização de um Assistente grava um
+ * **número de registro que já pertence a outro assistente**, violando a regra de unicidade.
+ *
+ * <p>Esta exceção é mapeada para o status HTTP **409 Conflict** (Conflito)
+ * através da anotação {@code @ResponseStatus(HttpStatus.CONFLICT)}.</p>
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class RegistrationNumberAlreadyExistsException extends RuntimeException{
+
+    /**
+     * Construtor que cria a exceção.
+     *
+     * @param registrationNumber O número de registro que causou a violação de unicidade ou a mensagem de erro detalhada.
+     */
+    public RegistrationNumberAlreadyExistsException(String registrationNumber) {
+        super(registrationNumber);
+    }
+}
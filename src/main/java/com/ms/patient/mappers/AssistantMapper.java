@@ -9,12 +9,15 @@ import org.springframework.context.annotation.ComponentScan;
 import com.ms.patient.dto.AssistantCreationDTO;
 import com.ms.patient.dto.AssistantResponseDTO;
 import com.ms.patient.models.Assistant;
+import com.ms.patient.utils.CpfValidatorUtils;
 
 @ComponentScan
-@Mapper(componentModel = "spring", uses = { AddressMapper.class })
+@Mapper(componentModel = "spring", uses = { AddressMapper.class }, imports = CpfValidatorUtils.class)
 public interface AssistantMapper {
 
     @Mapping(source = "address", target = "address") // Mapeia AddressRequestDTO -> Address Entity
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     Assistant toAssistant(AssistantCreationDTO dto);
 
     
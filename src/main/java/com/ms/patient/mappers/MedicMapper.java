@@ -3,6 +3,7 @@ package com.ms.patient.mappers;
 import com.ms.patient.dto.MedicCreationDTO;
 import com.ms.patient.dto.MedicResponseDTO;
 import com.ms.patient.models.Medic;
+import com.ms.patient.utils.CpfValidatorUtils;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -12,7 +13,7 @@ import org.springframework.context.annotation.ComponentScan;
 import java.util.List;
 
 @ComponentScan
-@Mapper(componentModel = "spring", uses = { AddressMapper.class })
+@Mapper(componentModel = "spring", uses = { AddressMapper.class }, imports = CpfValidatorUtils.class)
 public interface MedicMapper {
 
     /**
@@ -25,6 +26,8 @@ public interface MedicMapper {
      * mas neste caso não é necessário.
      */
     @Mapping(source = "address", target = "address") // Mapeia AddressRequestDTO -> Address Entity
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     Medic toMedic(MedicCreationDTO dto);
 
     /**
@@ -38,5 +41,7 @@ public interface MedicMapper {
 
     List<Medic> toMedicResponse(List<MedicResponseDTO> dtos);
     List<MedicResponseDTO> toDtoResponse(List<Medic> medics);
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     void updateMedicFromDto(MedicCreationDTO dto, @MappingTarget Medic medic);
 }
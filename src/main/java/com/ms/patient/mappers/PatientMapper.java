@@ -3,6 +3,7 @@ package com.ms.patient.mappers;
 import com.ms.patient.dto.PatientCreationDTO;
 import com.ms.patient.dto.PatientResponseDTO;
 import com.ms.patient.models.Patient;
+import com.ms.patient.utils.CpfValidatorUtils;
 
 import java.util.List;
 
@@ -12,10 +13,12 @@ import org.mapstruct.MappingTarget;
 import org.springframework.context.annotation.ComponentScan;
 
 @ComponentScan
-@Mapper(componentModel = "spring", uses = { AddressMapper.class })
+@Mapper(componentModel = "spring", uses = { AddressMapper.class }, imports = CpfValidatorUtils.class)
 public interface PatientMapper {
     
     @Mapping(source = "address", target = "address")
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     Patient toPatient(PatientCreationDTO dto);
 
     @Mapping(source = "address", target = "address") // Mapeia Address Entity -> AddressResponseDTO
@@ -24,6 +27,8 @@ public interface PatientMapper {
     List<Patient> toPatientResponse(List<PatientResponseDTO> dtos);
     List<PatientResponseDTO> toDtoResponse(List<Patient> patients);
 
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     void updatePatientFromDto(PatientCreationDTO dto, @MappingTarget Patient patient);
 
 }
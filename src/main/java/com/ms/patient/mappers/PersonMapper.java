@@ -10,14 +10,15 @@ import org.springframework.context.annotation.ComponentScan;
 import com.ms.patient.dto.PersonCreationDTO;
 import com.ms.patient.dto.PersonResponseDTO;
 import com.ms.patient.models.Person;
+import com.ms.patient.utils.CpfValidatorUtils;
 
 @ComponentScan
-@Mapper(componentModel = "spring", uses = {AddressMapper.class})
+@Mapper(componentModel = "spring", uses = {AddressMapper.class}, imports = CpfValidatorUtils.class)
 public interface PersonMapper {
     
     //A primeira linha passa o telefone para apenas digitos e a segundo linha passa o cpf
-    @Mapping(target = "phone", expression = "java(dto.getPhone().replaceAll(\"[^0-9]\", \"\"))")
-    @Mapping(target = "cpf", expression = "java(dto.getCpf().replaceAll(\"[^0-9]\", \"\"))")
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     @Mapping(target = "id", ignore = true)
     Person toEntityCreation(PersonCreationDTO dto);
     PersonCreationDTO toDtoCreation(Person person);
@@ -28,6 +29,8 @@ public interface PersonMapper {
     List<Person> toEntityResponse(List<PersonResponseDTO> dtos);
     List<PersonResponseDTO> toDtoResponse(List<Person> entities);
 
+    @Mapping(target = "phone", expression = "java(CpfValidatorUtils.digitsOnly(dto.getPhone()))")
+    @Mapping(target = "cpf", expression = "java(CpfValidatorUtils.digitsOnly(dto.getCpf()))")
     void updatePersonFromDto(PersonCreationDTO dto, @MappingTarget Person person);
 }
 
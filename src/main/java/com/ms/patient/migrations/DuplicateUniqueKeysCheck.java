@@ -0,0 +1,110 @@
+package com.ms.patient.migrations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.callback.BaseCallback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+/**
+ * Confere, antes das migrações, que não há valores repetidos nas colunas que ganham chave única na
+ * V2 ({@code uk_person_phone}, {@code uk_person_email}, {@code uk_person_cpf},
+ * {@code uk_employees_registration_number} e {@code uk_medics_crm}).
+ *
+ * <p>Bancos criados pelo {@code ddl-auto=update} não tinham essas chaves, e o telefone nunca foi
+ * conferido pelo serviço. Em vez de alterar dados de contato sem aviso, a migração é interrompida
+ * informando quantos valores repetidos cada chave tem; os valores saem do relatório {@value #REPORT},
+ * que também pode ser rodado antes da atualização. Corrigidos os dados, basta subir a aplicação de novo.</p>
+ *
+ * <p>É um callback {@code beforeMigrate} (registrado pelo Spring Boot por ser um bean), e não uma
+ * migração versionada: nada é gravado no histórico do Flyway quando a conferência falha, então não é
+ * preciso um {@code flyway repair}. Só roda enquanto {@code person} existe sem a chave {@code uk_person_phone}.</p>
+ */
+@Component
+public class DuplicateUniqueKeysCheck extends BaseCallback {
+
+    /** Consulta com uma linha por valor repetido: chave, valor e ocorrências. */
+    public static final String REPORT = "db/preflight/duplicate_unique_keys.sql";
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_MIGRATE;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        Map<String, Integer> duplicates = new TreeMap<>();
+        try {
+            Connection connection = context.getConnection();
+            if (!needsCheck(connection)) {
+                return;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery(report())) {
+                while (rows.next()) {
+                    duplicates.merge(rows.getString(1), 1, Integer::sum);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new FlywayException("Could not check for duplicated unique keys", e);
+        }
+        if (!duplicates.isEmpty()) {
+            throw new FlywayException("Cannot add the unique keys of V2, there are duplicated values ("
+                + duplicates.entrySet().stream().map(e -> e.getKey() + ": " + e.getValue())
+                    .collect(Collectors.joining(", "))
+                + "). List them with classpath:" + REPORT + ", fix the rows and start the application again.");
+        }
+    }
+
+    // Banco anterior à V2: a tabela person existe, mas ainda sem a chave única do telefone
+    private static boolean needsCheck(Connection connection) throws SQLException {
+        DatabaseMetaData metadata = connection.getMetaData();
+        String person = metadata.storesUpperCaseIdentifiers() ? "PERSON" : "person";
+        try (ResultSet tables = metadata.getTables(connection.getCatalog(), connection.getSchema(), person, null)) {
+            if (!tables.next()) {
+                return false;
+            }
+        }
+        try (ResultSet indexes = metadata.getIndexInfo(connection.getCatalog(), connection.getSchema(), person, true, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase(Locale.ROOT).startsWith("uk_person_phone")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lê o relatório {@value #REPORT} como um único comando, sem os comentários e sem o {@code ;} final.
+     *
+     * @return A consulta dos valores repetidos.
+     * @throws IOException Se o script não estiver no classpath.
+     */
+    public static String report() throws IOException {
+        try (InputStream in = DuplicateUniqueKeysCheck.class.getClassLoader().getResourceAsStream(REPORT)) {
+            if (in == null) {
+                throw new IOException(REPORT + " not found");
+            }
+            String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.strip().startsWith("--"))
+                .collect(Collectors.joining("\n"))
+                .strip();
+            return sql.endsWith(";") ? sql.substring(0, sql.length() - 1) : sql;
+        }
+    }
+}
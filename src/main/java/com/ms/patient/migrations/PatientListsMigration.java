@@ -0,0 +1,129 @@
+package com.ms.patient.migrations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Migração V4: copia as listas de sintomas e alergias, gravadas pelo Hibernate como
+ * {@code ArrayList<String>} serializado ({@code patients.symptoms} e {@code patients.allergies}),
+ * para as tabelas {@code patient_symptoms} e {@code patient_allergies} criadas na V3.
+ *
+ * <p>A desserialização precisa do Java e por isso não cabe em um script SQL. O Flyway encontra
+ * esta classe pelo pacote listado em {@code spring.flyway.locations}, junto com os scripts de
+ * {@code db/migration/<banco>}, e a V5 remove as colunas antigas. Valores nulos e repetidos na
+ * mesma lista são descartados (as novas tabelas têm o valor na chave primária). A comparação é
+ * exata, como no {@code Set<String>} da entidade e na collation binária das novas tabelas.</p>
+ */
+public class PatientListsMigration implements JavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientListsMigration.class);
+
+    // Linhas lidas por vez do cursor e inserts por lote JDBC
+    private static final int BATCH_SIZE = 1000;
+
+    // Só ArrayList de String (o Object[] é o array interno da lista): nenhuma outra classe é instanciada
+    private static final ObjectInputFilter LIST_OF_STRINGS =
+        ObjectInputFilter.Config.createFilter("java.util.ArrayList;java.lang.String;java.lang.Object;!*");
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("4");
+    }
+
+    @Override
+    public String getDescription() {
+        return "copy serialized patient lists";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        long patients = 0;
+        try (Statement select = connection.createStatement();
+             PreparedStatement symptoms = connection.prepareStatement(
+                 "insert into patient_symptoms (patient_id, symptom) values (?, ?)");
+             PreparedStatement allergies = connection.prepareStatement(
+                 "insert into patient_allergies (patient_id, allergy) values (?, ?)")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery(
+                    "select person_id, symptoms, allergies from patients where symptoms is not null or allergies is not null")) {
+                int pending = 0;
+                while (rows.next()) {
+                    long patientId = rows.getLong(1);
+                    pending += addBatch(symptoms, patientId, rows.getBytes(2));
+                    pending += addBatch(allergies, patientId, rows.getBytes(3));
+                    patients++;
+                    if (pending >= BATCH_SIZE) {
+                        symptoms.executeBatch();
+                        allergies.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            symptoms.executeBatch();
+            allergies.executeBatch();
+        }
+        log.info("Copied symptoms and allergies of {} patients", patients);
+    }
+
+    private static int addBatch(PreparedStatement insert, long patientId, byte[] serialized) throws SQLException, IOException {
+        Set<String> values = deserialize(serialized);
+        for (String value : values) {
+            insert.setLong(1, patientId);
+            insert.setString(2, value);
+            insert.addBatch();
+        }
+        return values.size();
+    }
+
+    /**
+     * Lê uma lista gravada pelo Hibernate ({@code ArrayList<String>} serializado).
+     *
+     * @param serialized O conteúdo da coluna, ou {@code null}.
+     * @return Os valores não nulos, sem repetição e na ordem original.
+     * @throws IOException Se o conteúdo não for uma lista de strings serializada.
+     */
+    static Set<String> deserialize(byte[] serialized) throws IOException {
+        Set<String> values = new LinkedHashSet<>();
+        if (serialized == null) {
+            return values;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            in.setObjectInputFilter(LIST_OF_STRINGS);
+            for (Object value : (List<?>) in.readObject()) {
+                if (value != null) {
+                    values.add((String) value);
+                }
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a serialized list of strings", e);
+        }
+        return values;
+    }
+}
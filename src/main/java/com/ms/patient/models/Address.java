@@ -1,12 +1,15 @@
 package com.ms.patient.models;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.ms.patient.enums.Habitation;
+import com.ms.patient.utils.BlockId;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
@@ -16,17 +19,23 @@ import jakarta.validation.constraints.NotNull;
  *
  * <p>Mapeada para a tabela {@code address} no banco de dados. Armazena detalhes
  * geográficos e o tipo de habitação associado a uma Pessoa.</p>
+ *
+ * <p>Fica no cache de segundo nível, na região {@code address}
+ * (ver {@link com.ms.patient.config.SecondLevelCacheConfig}).</p>
  */
 @Entity
 @Table(name="address")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "address")
 public class Address {
 
     /**
      * Chave primária (Primary Key) da entidade.
-     * <p>Auto-gerada pelo banco de dados usando estratégia de identidade.</p>
+     * <p>Gerada em blocos de 50 a partir da tabela {@code id_generators}, permitindo inserts
+     * em lote (ver {@link Person}).</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId(name = "address")
     private Long id;
     
     /**
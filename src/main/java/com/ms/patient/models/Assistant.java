@@ -2,16 +2,23 @@ package com.ms.patient.models;
 
 import java.util.Date;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.PrimaryKeyJoinColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", uniqueConstraints = @UniqueConstraint(name = "uk_employees_registration_number",
+    columnNames = "registration_number"))
+@NamedEntityGraph(name = "Assistant.withAddress", attributeNodes = @NamedAttributeNode("address"))
 @PrimaryKeyJoinColumn(name = "person_id")
 public class Assistant extends Person{
 
+    @Column(updatable = false)
     private String registrationNumber;
     @NotNull
     private Boolean active;
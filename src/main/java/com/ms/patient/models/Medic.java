@@ -14,13 +14,15 @@ import java.util.Date;
  * referenciando a chave primária da tabela {@code persons} através da coluna {@code person_id}.</p>
  */
 @Entity
-@Table(name = "medics")
+@Table(name = "medics", uniqueConstraints = @UniqueConstraint(name = "uk_medics_crm", columnNames = "crm"))
+@NamedEntityGraph(name = "Medic.withAddress", attributeNodes = @NamedAttributeNode("address"))
 @PrimaryKeyJoinColumn(name = "person_id")
 public class Medic extends Person{
 
     /**
      * O número de registro do Conselho Regional de Medicina (CRM).
-     * <p>Restrição: Não nulo (NOT NULL).</p>
+     * <p>Restrição: Não nulo (NOT NULL) e único ({@code uk_medics_crm}), o que cria o índice usado
+     * pelas verificações por CRM.</p>
      */
     @NotNull
     private String crm;
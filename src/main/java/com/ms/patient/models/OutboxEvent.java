@@ -0,0 +1,138 @@
+package com.ms.patient.models;
+
+import java.time.Instant;
+
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.utils.BlockId;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entidade JPA de um evento de criação de usuário ainda não entregue ao SQS (padrão transactional outbox).
+ *
+ * <p>Mapeada para a tabela {@code outbox_events}. O evento é gravado na mesma transação da
+ * {@link Person}: se a transação for desfeita, o evento também é, e nenhuma chamada de rede
+ * acontece durante a requisição. O {@code OutboxRelay} lê os eventos pendentes em segundo
+ * plano, envia ao SQS e registra o resultado.</p>
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_due", columnList = "status, next_attempt_at"))
+public class OutboxEvent {
+
+    // Gerador em blocos (não IDENTITY) para que os eventos de um cadastro em lote sejam inseridos em lotes JDBC
+    @Id
+    @BlockId(name = "outbox_event")
+    private Long id;
+
+    /** 'ID' da pessoa que originou o evento. */
+    @Column(nullable = false)
+    private long personId;
+
+    /** Corpo da mensagem, já codificado. */
+    @Column(nullable = false, length = 1000)
+    private String payload;
+
+    /** Formato do corpo, enviado no atributo {@code contentType} (nulo em eventos antigos: JSON). */
+    @Column(length = 64)
+    private String contentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    /** Quantidade de envios que falharam. */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Momento a partir do qual o evento pode ser (re)enviado. Também funciona como reserva:
+     * ao pegar o evento, o relay o adia, para que outra instância não o envie ao mesmo tempo.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(long personId, String payload, String contentType, Instant createdAt) {
+        this.personId = personId;
+        this.payload = payload;
+        this.contentType = contentType;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getPersonId() {
+        return personId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -1,7 +1,11 @@
 package com.ms.patient.models;
 
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.ms.patient.enums.PatientSituation;
 
@@ -13,9 +17,16 @@ import jakarta.persistence.*;
  * <p>Herda todos os campos de identificação e contato da entidade {@link Person}.
  * Os campos específicos do Paciente são armazenados na tabela {@code patients},
  * referenciando a chave primária da tabela {@code persons} (Table-Per-Class/Joined).</p>
+ *
+ * <p>Sintomas e alergias ficam nas tabelas {@code patient_symptoms} e {@code patient_allergies},
+ * uma linha por valor. São carregados sob demanda, em lotes ({@code default_batch_fetch_size}):
+ * uma página de pacientes carrega as listas de todos em uma consulta {@code IN} por tabela.
+ * O índice pelo valor permite filtrar pacientes por sintoma ou alergia
+ * ({@code PatientRepository.findBySymptom}, {@code findByAllergy}).</p>
  */
 @Entity
 @Table(name = "patients")
+@NamedEntityGraph(name = "Patient.withAddress", attributeNodes = @NamedAttributeNode("address"))
 @PrimaryKeyJoinColumn(name = "person_id")
 public class Patient extends Person{
 
@@ -32,18 +43,30 @@ public class Patient extends Person{
     private String description;
     
     /**
-     * Lista de sintomas reportados pelo paciente ou observados.
-     * <p>Nota: Para persistir {@code ArrayList<String>} em JPA, é comum usar {@code @ElementCollection}
-     * ou transformar em JSON/String antes de salvar, dependendo da configuração do banco/Hibernate.</p>
+     * Sintomas reportados pelo paciente ou observados, sem repetição e em ordem alfabética.
+     * <p>Tabela {@code patient_symptoms} (chave {@code patient_id, symptom}); fica no cache de
+     * segundo nível junto com o paciente.</p>
      */
-    private ArrayList<String> symptoms;
+    @ElementCollection
+    @CollectionTable(name = "patient_symptoms", joinColumns = @JoinColumn(name = "patient_id"),
+        indexes = @Index(name = "idx_patient_symptoms_symptom", columnList = "symptom, patient_id"))
+    @Column(name = "symptom", nullable = false)
+    @OrderBy
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
+    private Set<String> symptoms = new LinkedHashSet<>();
     
     /**
-     * Lista de alergias conhecidas do paciente.
-     * <p>Nota: Para persistir {@code ArrayList<String>} em JPA, é comum usar {@code @ElementCollection}
-     * ou transformar em JSON/String antes de salvar, dependendo da configuração do banco/Hibernate.</p>
+     * Alergias conhecidas do paciente, sem repetição e em ordem alfabética.
+     * <p>Tabela {@code patient_allergies} (chave {@code patient_id, allergy}); fica no cache de
+     * segundo nível junto com o paciente.</p>
      */
-    private ArrayList<String> allergies;
+    @ElementCollection
+    @CollectionTable(name = "patient_allergies", joinColumns = @JoinColumn(name = "patient_id"),
+        indexes = @Index(name = "idx_patient_allergies_allergy", columnList = "allergy, patient_id"))
+    @Column(name = "allergy", nullable = false)
+    @OrderBy
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
+    private Set<String> allergies = new LinkedHashSet<>();
     
     /**
      * A situação clínica ou estado atual de acompanhamento do paciente.
@@ -77,8 +100,6 @@ public class Patient extends Person{
     public Patient(String name, Date birthDate, String cpf, String gender, String email, String phone,
                     Address address, String description, String healthPlan, PatientSituation patientSituation) {
         super(name,birthDate,cpf,gender,email,phone,address);
-        this.symptoms = new ArrayList<>();
-        this.allergies = new ArrayList<>();
         setHealthPlan(healthPlan);
         setDescription(description);
         setPatientSituation(patientSituation);
@@ -101,22 +122,22 @@ public class Patient extends Person{
         this.description = description;
     }
 
-    public ArrayList<String> getSymptoms() {
+    public Set<String> getSymptoms() {
         return symptoms;
     }
 
 
-    public void setSymptoms(ArrayList<String> symptoms) {
+    public void setSymptoms(Set<String> symptoms) {
         this.symptoms = symptoms;
     }
 
 
-    public ArrayList<String> getAllergies() {
+    public Set<String> getAllergies() {
         return allergies;
     }
 
 
-    public void setAllergies(ArrayList<String> allergies) {
+    public void setAllergies(Set<String> allergies) {
         this.allergies = allergies;
     }
 
@@ -3,6 +3,14 @@ package com.ms.patient.models;
 
 import java.util.Date;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import com.ms.patient.utils.BlockId;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
@@ -15,19 +23,50 @@ import jakarta.validation.constraints.NotNull;
  * <p>Esta entidade utiliza a estratégia de herança {@code InheritanceType.JOINED},
  * onde as subclasses ({@link Medic}, {@link Patient}) terão as suas próprias tabelas
  * que se unirão (JOIN) à tabela {@code person} usando a chave primária.</p>
+ *
+ * <p>O grafo {@code Person.withAddress} carrega o {@link Address} no mesmo SELECT e é usado
+ * pelas consultas que renderizam o endereço (listagens e detalhe). Nas demais, o endereço
+ * é carregado sob demanda.</p>
+ *
+ * <p>Toda a hierarquia fica no cache de segundo nível, na região {@code person}
+ * (ver {@link com.ms.patient.config.SecondLevelCacheConfig}). O e-mail é o identificador
+ * natural: a resolução e-mail → 'ID' fica na região {@code person-natural-id}.</p>
  */
 @Entity
-@Table(name="person")
+@Table(name="person", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_person_cpf", columnNames = "cpf"),
+    @UniqueConstraint(name = "uk_person_email", columnNames = "email"),
+    @UniqueConstraint(name = "uk_person_phone", columnNames = "phone")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
+@NaturalIdCache(region = "person-natural-id")
+@NamedEntityGraph(name = "Person.withAddress", attributeNodes = @NamedAttributeNode("address"))
 @Inheritance(strategy = InheritanceType.JOINED)
 public class Person {
 
     /**
      * Chave primária (Primary Key) da entidade.
-     * <p>Auto-gerada pelo banco de dados usando estratégia de identidade.</p>
+     * <p>Gerada em blocos de 50 a partir da tabela {@code id_generators}, reservados fora da
+     * transação da requisição (ver {@link BlockId}), de modo que o 'ID' é conhecido antes do INSERT
+     * e os inserts podem ser agrupados em lotes JDBC (com {@code IDENTITY} cada insert exigiria
+     * um round trip).</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId(name = "person")
     private Long id;
+
+    /**
+     * Versão do registro (controle de concorrência otimista), incrementada pelo Hibernate a cada atualização.
+     * <p>Forma, com o 'ID', a ETag das respostas de detalhe ({@code "id-versão"}): um
+     * {@code If-None-Match} é respondido com 304 lendo só esta coluna, e um {@code If-Match}
+     * desatualizado no PUT é recusado com 412. O padrão 0 preenche os registros já existentes
+     * e os inserts feitos fora do JPA.</p>
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
     
     /**
      * Nome completo da pessoa.
@@ -45,7 +84,8 @@ public class Person {
     
     /**
      * CPF (Cadastro de Pessoas Físicas).
-     * <p>Restrição: Não nulo (NOT NULL). Espera-se que a camada de Serviço garanta a unicidade.</p>
+     * <p>Restrição: Não nulo (NOT NULL) e único ({@code uk_person_cpf}). A violação da restrição é
+     * convertida em {@code CpfAlreadyExistsException} pela camada de Serviço.</p>
      */
     @NotNull
     private String cpf;
@@ -58,15 +98,17 @@ public class Person {
     private String gender;
     
     /**
-     * Endereço de e-mail da pessoa.
-     * <p>Restrição: Não nulo (NOT NULL). Espera-se que a camada de Serviço garanta a unicidade.</p>
+     * Endereço de e-mail da pessoa; identificador natural (mutável) da hierarquia.
+     * <p>Restrição: Não nulo (NOT NULL) e único ({@code uk_person_email}). As buscas por e-mail ({@code PersonRepository.findPersonByEmail}) são resolvidas
+     * pelo cache de identificadores naturais, sem SQL quando a pessoa já está em cache.</p>
      */
     @NotNull
+    @NaturalId(mutable = true)
     private String email;
     
     /**
      * Número de telefone da pessoa.
-     * <p>Restrição: Não nulo (NOT NULL). Espera-se que a camada de Serviço garanta a unicidade.</p>
+     * <p>Restrição: Não nulo (NOT NULL) e único ({@code uk_person_phone}).</p>
      */
     @NotNull
     private String phone;
@@ -75,9 +117,11 @@ public class Person {
      * Relação One-to-One (Um para Um) com a entidade {@link Address}.
      * <p>O {@code cascade = CascadeType.ALL} garante que operações como salvar ou deletar Pessoa
      * sejam propagadas para o Address associado.</p>
+     * <p>Carregado de forma LAZY: consultas que precisam do endereço usam o grafo
+     * {@code *.withAddress}, evitando um SELECT extra por registro (N+1).</p>
      */
     @NotNull
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "address_id", referencedColumnName = "id")
     private Address address;
     
@@ -110,6 +154,10 @@ public class Person {
     public long getId(){
         return id;
     }
+
+    public long getVersion(){
+        return version;
+    }
     
     public String getName() {
         return name;
@@ -0,0 +1,201 @@
+package com.ms.patient.producers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.models.OutboxEvent;
+import com.ms.patient.repositories.OutboxEventRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Entrega ao SQS, em segundo plano, os eventos gravados na outbox pelo {@link UserCreationProducer}.
+ *
+ * <p>A cada execução: 1. reserva até {@code batch-size} eventos vencidos em uma transação curta
+ * ({@code SKIP LOCKED}, adiando o próximo envio pelo tempo de reserva); 2. entrega todos ao
+ * {@link SqsBatchPublisher}, fora de qualquer transação, e aguarda o resultado de cada um
+ * (os lotes de 10 seguem em paralelo); 3. marca os aceitos como
+ * {@link OutboxStatus#SENT} e reagenda os que falharam com espera exponencial, até
+ * {@code max-attempts}, quando passam a {@link OutboxStatus#FAILED}.</p>
+ *
+ * <p>A entrega é "pelo menos uma vez": se a instância cair depois do envio e antes de registrar o
+ * resultado, o evento é reenviado quando a reserva expirar. O consumidor deve ignorar um
+ * {@code person_id} já processado.</p>
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repository;
+    private final SqsBatchPublisher publisher;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+
+    public OutboxRelay(OutboxEventRepository repository, SqsBatchPublisher publisher,
+                       PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${medcare.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${medcare.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${medcare.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${medcare.outbox.relay.backoff-ms:1000}") long backoffMs,
+                       @Value("${medcare.outbox.relay.max-backoff-ms:300000}") long maxBackoffMs,
+                       @Value("${medcare.outbox.relay.lease-ms:60000}") long leaseMs,
+                       @Value("${medcare.outbox.retention-days:7}") long retentionDays) {
+        if (batchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("batch-size and max-attempts must be positive");
+        }
+        this.repository = repository;
+        this.publisher = publisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = Duration.ofMillis(backoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retention = Duration.ofDays(retentionDays);
+        this.sent = counter(meterRegistry, "sent");
+        this.retried = counter(meterRegistry, "retried");
+        this.dead = counter(meterRegistry, "failed");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("outbox.relay.events")
+            .description("Eventos da outbox enviados (sent), reagendados (retried) ou abandonados (failed)")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Entrega os eventos pendentes, lote a lote, até não restarem eventos vencidos.
+     */
+    @Scheduled(fixedDelayString = "${medcare.outbox.relay.interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            while (relayBatch() == batchSize) {
+                // lote cheio: provavelmente há mais eventos vencidos
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed; pending events will be retried on the next run", e);
+        }
+    }
+
+    /**
+     * Reserva, envia e registra o resultado de um lote de eventos.
+     *
+     * @return A quantidade de eventos reservados.
+     */
+    int relayBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> claimed = transaction.execute(status -> {
+            List<OutboxEvent> events = repository.lockDue(OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+            events.forEach(event -> event.setNextAttemptAt(now.plus(lease)));
+            return events;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, String> failures = send(claimed);
+
+        Instant finished = Instant.now();
+        transaction.executeWithoutResult(status -> {
+            for (OutboxEvent event : repository.findAllById(claimed.stream().map(OutboxEvent::getId).toList())) {
+                if (!failures.containsKey(event.getId())) {
+                    event.setStatus(OutboxStatus.SENT);
+                    event.setSentAt(finished);
+                    sent.increment();
+                } else {
+                    scheduleRetry(event, failures.get(event.getId()), finished);
+                }
+            }
+        });
+        return claimed.size();
+    }
+
+    // Publica todos os eventos e devolve o erro de cada um não aceito, por 'ID'. A espera é
+    // limitada a metade da reserva, para registrar o resultado antes que outra instância os pegue.
+    private Map<Long, String> send(List<OutboxEvent> events) {
+        Map<Long, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            results.put(event.getId(), publisher.publish(event.getPayload(), event.getContentType()));
+        }
+        long deadline = System.nanoTime() + lease.toNanos() / 2;
+        Map<Long, String> failures = new HashMap<>();
+        results.forEach((id, result) -> {
+            try {
+                result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                failures.put(id, e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                failures.put(id, "timed out waiting for SQS");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(id, "interrupted");
+            }
+        });
+        return failures;
+    }
+
+    private void scheduleRetry(OutboxEvent event, String error, Instant now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 500)));
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            dead.increment();
+            log.error("Giving up on outbox event {} for person {} after {} attempts: {}",
+                event.getId(), event.getPersonId(), attempts, error);
+            return;
+        }
+        // 1s, 2s, 4s, ... limitado a max-backoff
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        event.setNextAttemptAt(now.plus(delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay));
+        retried.increment();
+    }
+
+    /**
+     * Remove os eventos entregues há mais tempo que o período de retenção.
+     */
+    @Scheduled(fixedDelayString = "${medcare.outbox.cleanup-interval-ms:3600000}")
+    public void purgeSent() {
+        if (!enabled) {
+            return;
+        }
+        Integer removed = transaction.execute(status -> repository.deleteSentBefore(Instant.now().minus(retention)));
+        if (removed != null && removed > 0) {
+            log.info("Removed {} delivered outbox events", removed);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.ms.patient.producers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ms.patient.events.UserCreationEventEncoder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+
+/**
+ * Publicador assíncrono que agrupa mensagens em {@code SendMessageBatch} do SQS.
+ *
+ * <p>{@link #publish} apenas coloca a mensagem em uma fila limitada em memória e devolve um
+ * {@link CompletableFuture}. Uma thread dedicada esvazia a fila e envia um lote quando junta
+ * {@value #SQS_BATCH_LIMIT} mensagens ou quando a mais antiga espera {@code linger-ms}, o que
+ * ocorrer primeiro. Os envios usam o {@link SqsAsyncClient} e até {@code max-in-flight} lotes
+ * podem estar em andamento ao mesmo tempo.</p>
+ *
+ * <p>Contrapressão: com a fila cheia, {@link #publish} espera até {@code offer-timeout-ms} por
+ * espaço e, se não houver, devolve o futuro já com falha ({@link RejectedExecutionException}).
+ * Entradas recusadas pelo SQS por erro do servidor (ou perdidas em uma falha da requisição inteira)
+ * são reenviadas até {@code max-attempts}; erros do remetente ({@code senderFault}) falham na hora.</p>
+ */
+@Component
+public class SqsBatchPublisher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SqsBatchPublisher.class);
+
+    /** Quantidade máxima de mensagens aceita pelo SQS em um {@code SendMessageBatch}. */
+    static final int SQS_BATCH_LIMIT = 10;
+
+    private final SqsAsyncClient sqsClient;
+    private final String queue;
+    private final BlockingQueue<Entry> pending;
+    private final long lingerNanos;
+    private final long offerTimeoutMs;
+    private final int maxAttempts;
+    private final Semaphore inFlight;
+    private final Thread flusher;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter rejected;
+
+    // Atributos imutáveis reaproveitados entre mensagens do mesmo formato
+    private final Map<String, MessageAttributeValue> contentTypes = new ConcurrentHashMap<>();
+
+    private volatile String queueUrl;
+    private volatile boolean running = true;
+
+    public SqsBatchPublisher(SqsAsyncClient sqsClient, MeterRegistry meterRegistry,
+                             @Value("${medcare.aws.sqs.queue.entity.register}") String queue,
+                             @Value("${medcare.sqs.publisher.capacity:10000}") int capacity,
+                             @Value("${medcare.sqs.publisher.linger-ms:20}") long lingerMs,
+                             @Value("${medcare.sqs.publisher.offer-timeout-ms:1000}") long offerTimeoutMs,
+                             @Value("${medcare.sqs.publisher.max-in-flight:8}") int maxInFlight,
+                             @Value("${medcare.sqs.publisher.max-attempts:3}") int maxAttempts) {
+        if (capacity <= 0 || maxInFlight <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("capacity, max-in-flight and max-attempts must be positive");
+        }
+        this.sqsClient = sqsClient;
+        this.queue = queue;
+        this.pending = new LinkedBlockingQueue<>(capacity);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        Gauge.builder("sqs.publisher.queue.depth", pending, BlockingQueue::size)
+            .description("Mensagens aguardando envio ao SQS")
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("sqs.publisher.batch.size")
+            .description("Mensagens por SendMessageBatch")
+            .register(meterRegistry);
+        this.flushLatency = Timer.builder("sqs.publisher.flush.latency")
+            .description("Duração de cada SendMessageBatch")
+            .register(meterRegistry);
+        this.sent = counter(meterRegistry, "sent");
+        this.retried = counter(meterRegistry, "retried");
+        this.failed = counter(meterRegistry, "failed");
+        this.rejected = counter(meterRegistry, "rejected");
+
+        this.flusher = new Thread(this::flushLoop, "sqs-batch-publisher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("sqs.publisher.entries")
+            .description("Mensagens enviadas (sent), reenviadas (retried), com falha (failed) ou recusadas por fila cheia (rejected)")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Enfileira uma mensagem JSON para envio em lote.
+     *
+     * @see #publish(String, String)
+     */
+    public CompletableFuture<Void> publish(String body) {
+        return publish(body, UserCreationEventEncoder.JSON);
+    }
+
+    /**
+     * Enfileira uma mensagem para envio em lote.
+     *
+     * @param body O corpo da mensagem.
+     * @param contentType O formato do corpo, enviado no atributo
+     * {@value UserCreationEventEncoder#CONTENT_TYPE_ATTRIBUTE} (nulo equivale a JSON).
+     * @return Um futuro concluído quando o SQS aceitar a mensagem, ou com falha se ela for
+     * recusada, esgotar as tentativas ou não couber na fila.
+     */
+    public CompletableFuture<Void> publish(String body, String contentType) {
+        Entry entry = new Entry(body, contentType == null ? UserCreationEventEncoder.JSON : contentType);
+        try {
+            if (running && pending.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return entry.result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        entry.result.completeExceptionally(new RejectedExecutionException("SQS publisher queue is full"));
+        return entry.result;
+    }
+
+    /** Quantidade de mensagens aguardando envio. */
+    public int queueDepth() {
+        return pending.size();
+    }
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(SQS_BATCH_LIMIT);
+        while (running || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt + lingerNanos;
+                while (batch.size() < SQS_BATCH_LIMIT) {
+                    long remaining = deadline - System.nanoTime();
+                    Entry next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : pending.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                inFlight.acquire();
+                send(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(entry -> entry.result.completeExceptionally(e));
+                return;
+            } catch (RuntimeException e) {
+                // Nunca deixa a thread morrer: falha o lote atual e segue
+                inFlight.release();
+                batch.forEach(entry -> retryOrFail(entry, e.getMessage(), false));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Entry> batch) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                .id(Integer.toString(i))
+                .messageBody(batch.get(i).body)
+                .messageAttributes(Map.of(UserCreationEventEncoder.CONTENT_TYPE_ATTRIBUTE, contentTypes.computeIfAbsent(batch.get(i).contentType,
+                    type -> MessageAttributeValue.builder().dataType("String").stringValue(type).build())))
+                .build());
+        }
+        batchSize.record(batch.size());
+        long start = System.nanoTime();
+        sqsClient.sendMessageBatch(request -> request.queueUrl(queueUrl()).entries(entries))
+            .whenComplete((response, error) -> {
+                inFlight.release();
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    log.warn("SendMessageBatch failed for {} messages: {}", batch.size(), cause.getMessage());
+                    batch.forEach(entry -> retryOrFail(entry, cause.getMessage(), false));
+                } else {
+                    complete(batch, response);
+                }
+            });
+    }
+
+    private void complete(List<Entry> batch, SendMessageBatchResponse response) {
+        boolean[] done = new boolean[batch.size()];
+        response.successful().forEach(ok -> {
+            int index = Integer.parseInt(ok.id());
+            done[index] = true;
+            sent.increment();
+            batch.get(index).result.complete(null);
+        });
+        for (BatchResultErrorEntry error : response.failed()) {
+            int index = Integer.parseInt(error.id());
+            done[index] = true;
+            retryOrFail(batch.get(index), error.code() + ": " + error.message(), Boolean.TRUE.equals(error.senderFault()));
+        }
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i]) {
+                retryOrFail(batch.get(i), "missing from SendMessageBatch response", false);
+            }
+        }
+    }
+
+    // Reenfileira sem bloquear (a fila pode estar cheia) ou conclui o futuro com falha
+    private void retryOrFail(Entry entry, String error, boolean senderFault) {
+        entry.attempts++;
+        if (!senderFault && entry.attempts < maxAttempts && running) {
+            entry.enqueuedAt = System.nanoTime();
+            if (pending.offer(entry)) {
+                retried.increment();
+                return;
+            }
+        }
+        failed.increment();
+        entry.result.completeExceptionally(new IllegalStateException("SQS rejected message: " + error));
+    }
+
+    private String queueUrl() {
+        String url = queueUrl;
+        if (url == null) {
+            url = queue.startsWith("https://") || queue.startsWith("http://")
+                ? queue
+                : sqsClient.getQueueUrl(request -> request.queueName(queue)).join().queueUrl();
+            queueUrl = url;
+        }
+        return url;
+    }
+
+    /**
+     * Para de aceitar mensagens e envia as que ainda estão na fila (até 10 segundos).
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static final class Entry {
+        final String body;
+        final String contentType;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        volatile long enqueuedAt = System.nanoTime();
+        volatile int attempts;
+
+        Entry(String body, String contentType) {
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+}
@@ -1,109 +1,101 @@
 package com.ms.patient.producers;
 
-import org.springframework.beans.factory.annotation.Value;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ms.patient.events.UserCreationEvent;
+import com.ms.patient.events.UserCreationEventEncoder;
 import com.ms.patient.models.Assistant;
 import com.ms.patient.models.Medic;
+import com.ms.patient.models.OutboxEvent;
 import com.ms.patient.models.Patient;
+import com.ms.patient.repositories.OutboxEventRepository;
 
-import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.annotation.Timed;
 
 /**
- * Componente responsável por produzir e enviar eventos de criação de usuário
- * para o broker RabbitMQ de forma assíncrona.
+ * Componente responsável por produzir os eventos de criação de usuário consumidos
+ * pelo Serviço de Autenticação (Auth Service) para criar as credenciais de login
+ * de novos Médicos, Assistentes e Pacientes.
+ *
+ * <p>Os eventos não são enviados aqui: são gravados na outbox ({@link OutboxEvent}) na
+ * mesma transação do cadastro, e o {@link OutboxRelay} os entrega ao SQS em segundo plano.
+ * Assim a requisição não espera a rede, e um cadastro desfeito não gera usuário no Auth Service.</p>
  *
- * <p>Estes eventos são consumidos pelo Serviço de Autenticação (Auth Service)
- * para criar as credenciais de login para novos Médicos e Pacientes.</p>
+ * <p>A gravação é medida no timer {@code medcare.producer}; o envio ao SQS, nas métricas
+ * {@code outbox.relay.*} e {@code sqs.publisher.*}.</p>
  */
 @Component
+@Timed(value = "medcare.producer", description = "Duração da gravação dos eventos de criação de usuário na outbox")
 public class UserCreationProducer {
 
-    private final SqsTemplate sqsTemplate;
-    private final ObjectMapper objectMapper;
+    private final OutboxEventRepository outboxRepository;
+    private final UserCreationEventEncoder encoder;
 
     /**
-     * Construtor para injeção de dependência do sqsTemplate.
+     * Construtor para injeção de dependência.
      *
-     * @param sqsTemplate A instância do 'template' do Amazon SQS para envio de mensagens.
+     * @param outboxRepository O repositório onde os eventos são gravados.
+     * @param encoder A etapa de codificação dos eventos.
      */
-    public UserCreationProducer(SqsTemplate sqsTemplate, ObjectMapper objectMapper) {
-        this.sqsTemplate = sqsTemplate;
-        this.objectMapper = objectMapper;
+    public UserCreationProducer(OutboxEventRepository outboxRepository, UserCreationEventEncoder encoder) {
+        this.outboxRepository = outboxRepository;
+        this.encoder = encoder;
     }
 
-    //É necessário ter três filas, pois cada usuário irá receber um tratamento diferente no service (role)
-    @Value(value = "${medcare.aws.sqs.queue.entity.register}")
-    private String entityQueue;
-
     /**
-     * Constrói e publica um evento de criação de usuário para um novo {@link Medic}.
-     *
-     * <p>O evento é enviado para a fila definida pela {@code routingKeyMedic} com o papel "MEDIC".</p>
+     * Grava o evento de criação de usuário de um novo {@link Medic} com o papel "MEDIC".
      *
      * @param medic A entidade Medic recém-criada, contendo 'ID' e E-mail necessários para o evento.
      */
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishUserCreationToMedicEvent(Medic medic) throws JsonProcessingException {
         //Usando o mesmo ID para ambas as entidades (Medic = UserMedic)
-        var event = new UserCreationEvent();
-        event.setPerson_id(medic.getId());
-        event.setUsername(medic.getEmail());
-        event.setRole(("MEDIC"));   
-        //Passando os dados como 'string'
-        String json = objectMapper.writeValueAsString(event);
-
-        //Enviando a mensagem(medicEventDto) para fila entityQueue
-        sqsTemplate.send(to -> to
-                .queue(entityQueue)
-                .payload(json));
-            System.out.println("Message sent!");
+        outboxRepository.save(toOutbox(medic.getId(), medic.getEmail(), "MEDIC"));
     }
 
     /**
-     * Constrói e publica um evento de criação de usuário para um novo {@link Assistant}.
-     *
-     * <p>O evento é enviado para a fila definida pela {@code routingKeyAssistant} com o papel "Assistant".</p>
+     * Grava o evento de criação de usuário de um novo {@link Assistant} com o papel "ASSISTANT".
      *
      * @param assistant A entidade Assistant recém-criada, contendo 'ID' e Endereço eletrónico necessários para o evento.
      */
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishUserCreationToAssistantEvent(Assistant assistant) throws JsonProcessingException{
-        var event = new UserCreationEvent();
-        event.setPerson_id(assistant.getId());
-        event.setUsername(assistant.getEmail());
-        event.setRole(("ASSISTANT"));
-        //Passando os dados como 'string'
-        String json = objectMapper.writeValueAsString(event);
-
-        //Enviando a mensagem(medicEventDto) para fila entityQueue
-        sqsTemplate.send(to -> to
-                .queue(entityQueue)
-                .payload(json));
-        System.out.println("Message sent!");
+        outboxRepository.save(toOutbox(assistant.getId(), assistant.getEmail(), "ASSISTANT"));
     }
 
     /**
-     * Constrói e publica um evento de criação de usuário para um novo {@link Patient}.
-     *
-     * <p>O evento é enviado para a fila definida pela {@code routingKeyPatient} com o papel "USER".</p>
+     * Grava o evento de criação de usuário de um novo {@link Patient} com o papel "USER".
      *
      * @param patient A entidade Patient recém-criada, contendo 'ID' e 'E-mail' necessários para o evento.
      */
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishUserCreationToPatientEvent(Patient patient) throws JsonProcessingException{
-        //Usando o mesmo ID para ambas as entidades (Medic = UserMedic)
-        var event = new UserCreationEvent();
-        event.setPerson_id(patient.getId());
-        event.setUsername(patient.getEmail());
-        event.setRole(("USER"));
-        //Passando os dados como 'string'
-        String json = objectMapper.writeValueAsString(event);
+        outboxRepository.save(toOutbox(patient.getId(), patient.getEmail(), "USER"));
+    }
+
+    /**
+     * Grava os eventos de criação de usuário de vários {@link Patient} de uma vez
+     * (inserts agrupados em lotes JDBC).
+     *
+     * @param patients Os pacientes recém-criados.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishUserCreationToPatientEvents(List<Patient> patients) throws JsonProcessingException {
+        List<OutboxEvent> events = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            events.add(toOutbox(patient.getId(), patient.getEmail(), "USER"));
+        }
+        outboxRepository.saveAll(events);
+    }
 
-        //Enviando a mensagem(medicEventDto) para fila entityQueue
-        sqsTemplate.send(to -> to
-                .queue(entityQueue)
-                .payload(json));
-        System.out.println("Message sent!");
+    private OutboxEvent toOutbox(long personId, String username, String role) throws JsonProcessingException {
+        UserCreationEventEncoder.Encoded encoded = encoder.encode(personId, username, role);
+        return new OutboxEvent(personId, encoded.body(), encoded.contentType(), Instant.now());
     }
 }
@@ -1,6 +1,14 @@
 package com.ms.patient.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ms.patient.models.Assistant;
@@ -8,5 +16,46 @@ import com.ms.patient.models.Assistant;
 @Repository
 public interface AssistantRepository extends JpaRepository<Assistant, Long>{
 
-    boolean existsByRegistrationNumber(String registrationNumber);
+    /**
+     * Lista todos os números de registro já atribuídos, usado uma única vez pelo
+     * {@link com.ms.patient.utils.RegistrationNumber} para não repetir números antigos.
+     *
+     * @return Os números de registro cadastrados.
+     */
+    @Query("select a.registrationNumber from Assistant a where a.registrationNumber is not null")
+    List<String> findAllRegistrationNumbers();
+
+    /**
+     * Busca pelo 'ID' já com o endereço carregado (grafo {@code Assistant.withAddress}),
+     * usado pelo endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Override
+    @EntityGraph("Assistant.withAddress")
+    Optional<Assistant> findById(Long id);
+
+    /**
+     * Lê apenas a versão do assistente, sem carregar a entidade, para comparar com o
+     * {@code If-None-Match} do endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão atual, ou vazio se o assistente não existir.
+     */
+    @Query("select a.version from Assistant a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    /**
+     * Busca a próxima fatia de assistentes após o cursor, ordenada por 'ID' (keyset pagination).
+     *
+     * <p>Retorna um {@link Slice}, portanto nenhum {@code COUNT(*)} é executado. O endereço
+     * é carregado no mesmo SELECT (grafo {@code Assistant.withAddress}).</p>
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os assistentes com 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Assistant.withAddress")
+    Slice<Assistant> findByIdGreaterThanOrderByIdAsc(long after, Pageable pageable);
 }
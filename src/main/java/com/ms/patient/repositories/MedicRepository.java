@@ -1,7 +1,21 @@
 package com.ms.patient.repositories;
 
+import java.util.Optional;
+import java.util.stream.Stream;
+
 import com.ms.patient.models.Medic;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -19,4 +33,82 @@ public interface MedicRepository extends JpaRepository<Medic, Long> {
 
     Boolean existsByCpf(String cpf);
     Boolean existsByCrm(String crm);
+
+    /**
+     * Busca pelo 'ID' já com o endereço carregado (grafo {@code Medic.withAddress}),
+     * usado pelo endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Override
+    @EntityGraph("Medic.withAddress")
+    Optional<Medic> findById(Long id);
+
+    /**
+     * Lê apenas a versão do médico, sem carregar a entidade, para comparar com o
+     * {@code If-None-Match} do endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão atual, ou vazio se o médico não existir.
+     */
+    @Query("select m.version from Medic m where m.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    /**
+     * Busca pelo 'ID' para atualização.
+     *
+     * <p>A versão é incrementada ao fim da transação mesmo que só o endereço (outra entidade)
+     * mude, para que a ETag anterior deixe de valer. Exige uma transação ativa. O endereço não
+     * entra no grafo porque o modo de lock valeria também para ele, que não tem versão.</p>
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Medic> findForUpdateById(long id);
+
+    /**
+     * Busca a próxima fatia de médicos após o cursor, ordenada por 'ID' (keyset pagination).
+     *
+     * <p>Retorna um {@link Slice}, portanto nenhum {@code COUNT(*)} é executado. O endereço
+     * é carregado no mesmo SELECT (grafo {@code Medic.withAddress}).</p>
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os médicos com 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Medic.withAddress")
+    Slice<Medic> findByIdGreaterThanOrderByIdAsc(long after, Pageable pageable);
+
+    /**
+     * Percorre todos os médicos em ordem de 'ID', já com o endereço carregado, para exportação em lote.
+     *
+     * <p>Os registros são lidos do cursor JDBC em blocos de {@code fetchSize} e as entidades
+     * são carregadas como somente leitura. O {@link Stream} precisa ser consumido dentro de
+     * uma transação e fechado ao final.</p>
+     *
+     * @return Um {@link Stream} de {@link Medic}.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Medic p left join fetch p.address order by p.id")
+    Stream<Medic> streamAll();
+
+    /**
+     * Lê apenas o CRM de todos os médicos, em blocos, para alimentar o filtro de unicidade
+     * na inicialização.
+     *
+     * <p>Deve ser consumido dentro de uma transação e fechado após o uso.</p>
+     *
+     * @return Um {@link Stream} com os CRMs cadastrados.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m.crm from Medic m")
+    Stream<String> streamCrms();
 }
@@ -0,0 +1,51 @@
+package com.ms.patient.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.models.OutboxEvent;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+/**
+ * Interface de repositório para os eventos da outbox ({@link OutboxEvent}).
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Busca os eventos pendentes cujo próximo envio já venceu, em ordem de criação, travando as
+     * linhas ({@code FOR UPDATE SKIP LOCKED}). Linhas travadas por outra instância são puladas
+     * em vez de aguardadas, então vários relays podem trabalhar em paralelo sem disputa.
+     *
+     * @param now O instante atual.
+     * @param pageable A quantidade máxima de eventos (use {@code PageRequest.of(0, n)}).
+     * @return Os eventos reservados para esta transação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")) // -2 = SKIP LOCKED
+    @Query("select e from OutboxEvent e where e.status = :status and e.nextAttemptAt <= :now order by e.id")
+    List<OutboxEvent> lockDue(@Param("status") OutboxStatus status, @Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Remove os eventos já entregues antes do instante informado.
+     *
+     * @return A quantidade de eventos removidos.
+     */
+    @Modifying
+    @Query("delete from OutboxEvent e where e.status = com.ms.patient.enums.OutboxStatus.SENT and e.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+
+    long countByStatus(OutboxStatus status);
+}
@@ -1,7 +1,24 @@
 package com.ms.patient.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.ms.patient.dto.PatientsFingerprintDTO;
 import com.ms.patient.models.Patient;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -16,4 +33,170 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+
+    /**
+     * Busca pelo 'ID' já com o endereço carregado (grafo {@code Patient.withAddress}),
+     * usado pelo endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Override
+    @EntityGraph("Patient.withAddress")
+    Optional<Patient> findById(Long id);
+
+    /**
+     * Lê apenas a versão do paciente, sem carregar a entidade, para comparar com o
+     * {@code If-None-Match} do endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão atual, ou vazio se o paciente não existir.
+     */
+    @Query("select p.version from Patient p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    /**
+     * Busca pelo 'ID' para atualização.
+     *
+     * <p>A versão é incrementada ao fim da transação mesmo que só o endereço (outra entidade)
+     * mude, para que a ETag anterior deixe de valer. Exige uma transação ativa. O endereço não
+     * entra no grafo porque o modo de lock valeria também para ele, que não tem versão.</p>
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Patient> findForUpdateById(long id);
+
+    /**
+     * Busca a próxima fatia de pacientes após o cursor, ordenada por 'ID' (keyset pagination).
+     *
+     * <p>Retorna um {@link Slice}, portanto nenhum {@code COUNT(*)} é executado. O endereço
+     * é carregado no mesmo SELECT (grafo {@code Patient.withAddress}).</p>
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os pacientes com 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Patient.withAddress")
+    Slice<Patient> findByIdGreaterThanOrderByIdAsc(long after, Pageable pageable);
+
+    /**
+     * Versão de {@link #findByIdGreaterThanOrderByIdAsc} só com os pacientes que têm o sintoma.
+     *
+     * <p>A busca percorre o índice {@code idx_patient_symptoms_symptom} (sintoma, 'ID'), que já
+     * entrega os pacientes em ordem de 'ID'.</p>
+     *
+     * @param symptom O sintoma, exatamente como cadastrado.
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os pacientes com o sintoma e 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Patient.withAddress")
+    @Query("select p from Patient p join p.symptoms s where s = :symptom and p.id > :after order by p.id")
+    Slice<Patient> findBySymptom(@Param("symptom") String symptom, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Versão de {@link #findByIdGreaterThanOrderByIdAsc} só com os pacientes que têm a alergia
+     * (índice {@code idx_patient_allergies_allergy}).
+     *
+     * @param allergy A alergia, exatamente como cadastrada.
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os pacientes com a alergia e 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Patient.withAddress")
+    @Query("select p from Patient p join p.allergies a where a = :allergy and p.id > :after order by p.id")
+    Slice<Patient> findByAllergy(@Param("allergy") String allergy, @Param("after") long after, Pageable pageable);
+
+    /**
+     * Pacientes que têm o sintoma e a alergia, após o cursor.
+     *
+     * @param symptom O sintoma, exatamente como cadastrado.
+     * @param allergy A alergia, exatamente como cadastrada.
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return Os pacientes com os dois valores e 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Patient.withAddress")
+    @Query("""
+        select p from Patient p join p.symptoms s join p.allergies a
+        where s = :symptom and a = :allergy and p.id > :after
+        order by p.id
+        """)
+    Slice<Patient> findBySymptomAndAllergy(@Param("symptom") String symptom, @Param("allergy") String allergy,
+                                           @Param("after") long after, Pageable pageable);
+
+    /**
+     * Percorre todos os pacientes em ordem de 'ID', já com o endereço carregado, para exportação em lote.
+     *
+     * <p>Os registros são lidos do cursor JDBC em blocos de {@code fetchSize} e as entidades
+     * são carregadas como somente leitura. O {@link Stream} precisa ser consumido dentro de
+     * uma transação e fechado ao final. Sintomas e alergias ficam LAZY: o
+     * {@link com.ms.patient.service.NdjsonExporter} os carrega em lote, um bloco de pacientes por vez.</p>
+     *
+     * @return Um {@link Stream} de {@link Patient}.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Patient p left join fetch p.address order by p.id")
+    Stream<Patient> streamAll();
+
+    /**
+     * Busca os pacientes dos 'ID's informados, em ordem de 'ID' e com o endereço carregado
+     * (resultado de uma busca no índice clínico).
+     *
+     * @param ids Os 'ID's procurados; os que não existirem mais são ignorados.
+     * @return Os pacientes encontrados.
+     */
+    @EntityGraph("Patient.withAddress")
+    List<Patient> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Resumo da tabela (quantidade, maior 'ID' e soma das versões) usado para validar o snapshot
+     * do índice clínico.
+     *
+     * @return O resumo atual; com a tabela vazia, todos os campos são zero.
+     */
+    @Query("select new com.ms.patient.dto.PatientsFingerprintDTO(count(p), max(p.id), sum(p.version)) from Patient p")
+    PatientsFingerprintDTO findFingerprint();
+
+    /**
+     * Percorre a situação e a versão de todos os pacientes (carga do índice clínico).
+     * Cada linha contém {@code [id, situação, versão]}; a situação pode ser {@code null}.
+     *
+     * @return Um {@link Stream} a ser consumido dentro de uma transação e fechado ao final.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.id, p.patientSituation, p.version from Patient p")
+    Stream<Object[]> streamSituations();
+
+    /**
+     * Percorre os pares {@code [id, sintoma]} de todos os pacientes (carga do índice clínico).
+     *
+     * @return Um {@link Stream} a ser consumido dentro de uma transação e fechado ao final.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.id, s from Patient p join p.symptoms s")
+    Stream<Object[]> streamSymptoms();
+
+    /**
+     * Percorre os pares {@code [id, alergia]} de todos os pacientes (carga do índice clínico).
+     *
+     * @return Um {@link Stream} a ser consumido dentro de uma transação e fechado ao final.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.id, a from Patient p join p.allergies a")
+    Stream<Object[]> streamAllergies();
 }
@@ -0,0 +1,22 @@
+package com.ms.patient.repositories;
+
+import com.ms.patient.models.Person;
+
+/**
+ * Fragmento do {@link PersonRepository} com as buscas pelo identificador natural
+ * de {@link Person} (o e-mail).
+ *
+ * <p>Implementado em {@link PersonNaturalIdRepositoryImpl} com a API de identificadores
+ * naturais do Hibernate, que consulta o cache e-mail → 'ID' antes do banco (uma consulta
+ * derivada, como {@code findByEmail}, sempre iria ao banco).</p>
+ */
+public interface PersonNaturalIdRepository {
+
+    /**
+     * Busca uma pessoa (de qualquer subclasse) pelo e-mail.
+     *
+     * @param email O e-mail procurado.
+     * @return A pessoa encontrada, ou {@code null} se não existir.
+     */
+    Person findPersonByEmail(String email);
+}
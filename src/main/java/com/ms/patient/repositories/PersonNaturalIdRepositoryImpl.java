@@ -0,0 +1,32 @@
+package com.ms.patient.repositories;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ms.patient.models.Person;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Implementação do {@link PersonNaturalIdRepository}.
+ *
+ * <p>A resolução segue: contexto de persistência → cache de identificadores naturais
+ * (região {@code person-natural-id}) → banco, e a entidade é então lida pelo 'ID'
+ * (região {@code person}). Com os dois em cache, nenhum SQL é executado.</p>
+ */
+@Transactional(readOnly = true)
+public class PersonNaturalIdRepositoryImpl implements PersonNaturalIdRepository {
+
+    private final EntityManager entityManager;
+
+    public PersonNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Person findPersonByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(Person.class)
+            .load(email);
+    }
+}
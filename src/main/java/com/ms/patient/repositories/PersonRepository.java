@@ -1,23 +1,38 @@
 package com.ms.patient.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.ms.patient.dto.PersonEmailSenderDto;
+import com.ms.patient.dto.UniquenessConflictsDTO;
 import com.ms.patient.models.Person;
 /**
  * Interface de repositório responsável por operações de acesso a dados (CRUD)
  * para a entidade {@link Person}.
  *
  * <p>Estende {@link org.springframework.data.jpa.repository.JpaRepository},
- * fornecendo implementações padrão para métodos de persistência.</p>
+ * fornecendo implementações padrão para métodos de persistência. A busca por e-mail
+ * ({@code findPersonByEmail}) vem do {@link PersonNaturalIdRepository}.</p>
  *
  * @author Lucas Edson Machado
  * @since 2025-11-17
  */
 @Repository
-public interface PersonRepository extends JpaRepository<Person, Long> {
-    
-    Person findPersonByEmail(String email);
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonNaturalIdRepository {
 
     /*
      * . A consulta para de rodar assim que encontra o primeiro registro e retorna apenas um
@@ -29,4 +44,152 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
 
     Boolean existsByPhone(String phone);
 
+    /**
+     * Dentre os e-mails informados, retorna os que já estão cadastrados (validação em lote).
+     *
+     * @param emails Os e-mails a verificar.
+     * @return Os e-mails já existentes, como gravados no banco.
+     */
+    @Query("select p.email from Person p where p.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Dentre os CPFs informados (somente dígitos), retorna os que já estão cadastrados.
+     *
+     * @param cpfs Os CPFs a verificar.
+     * @return Os CPFs já existentes.
+     */
+    @Query("select p.cpf from Person p where p.cpf in :cpfs")
+    List<String> findExistingCpfs(@Param("cpfs") Collection<String> cpfs);
+
+    /**
+     * Dentre os telefones informados (somente dígitos), retorna os que já estão cadastrados.
+     *
+     * @param phones Os telefones a verificar.
+     * @return Os telefones já existentes.
+     */
+    @Query("select p.phone from Person p where p.phone in :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
+    /**
+     * Verifica em uma única consulta se e-mail, CPF, telefone ou CRM (de Médico) já estão cadastrados.
+     *
+     * <p>Substitui as chamadas separadas a {@code existsByEmail}, {@code existsByCpf},
+     * {@code existsByCrm} etc., economizando um round trip ao banco por verificação.
+     * Cada chave é uma subconsulta própria, resolvida pelo seu índice único ({@code uk_person_*}
+     * e {@code uk_medics_crm}); um único {@code where} com {@code or} entre as colunas levaria
+     * o banco a ler a tabela inteira. O parâmetro {@code crm} pode ser {@code null}.</p>
+     *
+     * @param email O e-mail a verificar.
+     * @param cpf O CPF (somente dígitos) a verificar.
+     * @param phone O telefone (somente dígitos) a verificar.
+     * @param crm O CRM a verificar, ou {@code null}.
+     * @return Quais dos valores já existem.
+     */
+    @Query("""
+        select new com.ms.patient.dto.UniquenessConflictsDTO(
+            (select count(p) from Person p where p.email = :email),
+            (select count(p) from Person p where p.cpf = :cpf),
+            (select count(p) from Person p where p.phone = :phone),
+            (select count(m) from Medic m where m.crm = :crm))
+        """)
+    UniquenessConflictsDTO findConflicts(@Param("email") String email, @Param("cpf") String cpf, @Param("phone") String phone,
+                                         @Param("crm") String crm);
+
+    /**
+     * Busca apenas 'ID', e-mail e nome de uma pessoa, já no formato do {@link PersonEmailSenderDto}.
+     *
+     * <p>Consulta de projeção: lê somente as três colunas da tabela {@code person}, sem
+     * hidratar a entidade, o endereço ou as tabelas das subclasses.</p>
+     *
+     * @param id O 'ID' da pessoa.
+     * @return O DTO preenchido, ou vazio se a pessoa não existir.
+     */
+    @Query("select new com.ms.patient.dto.PersonEmailSenderDto(p.id, p.email, p.name) from Person p where p.id = :id")
+    Optional<PersonEmailSenderDto> findEmailSenderById(@Param("id") long id);
+
+    /**
+     * Versão em lote de {@link #findEmailSenderById(long)}: uma única consulta {@code IN}
+     * que lê apenas 'ID', e-mail e nome das pessoas informadas.
+     *
+     * @param ids Os 'IDs' procurados (o chamador limita o tamanho da lista).
+     * @return Os DTOs das pessoas encontradas, em qualquer ordem.
+     */
+    @Query("select new com.ms.patient.dto.PersonEmailSenderDto(p.id, p.email, p.name) from Person p where p.id in :ids")
+    List<PersonEmailSenderDto> findEmailSendersByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Busca as pessoas com os 'IDs' informados em uma única consulta {@code IN},
+     * já com o endereço carregado (grafo {@code Person.withAddress}).
+     *
+     * @param ids Os 'IDs' procurados (o chamador limita o tamanho da lista).
+     * @return As pessoas encontradas, em qualquer ordem.
+     */
+    @EntityGraph("Person.withAddress")
+    List<Person> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Busca pelo 'ID' já com o endereço carregado (grafo {@code Person.withAddress}),
+     * usado pelo endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return O registro encontrado, ou vazio.
+     */
+    @Override
+    @EntityGraph("Person.withAddress")
+    Optional<Person> findById(Long id);
+
+    /**
+     * Lê apenas a versão da pessoa, sem carregar a entidade, para comparar com o
+     * {@code If-None-Match} do endpoint de detalhe.
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão atual, ou vazio se a pessoa não existir.
+     */
+    @Query("select p.version from Person p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    /**
+     * Busca a próxima fatia de pessoas após o cursor, ordenada por 'ID' (keyset pagination).
+     *
+     * <p>Retorna um {@link Slice}, portanto nenhum {@code COUNT(*)} é executado. O endereço
+     * é carregado no mesmo SELECT (grafo {@code Person.withAddress}).</p>
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param pageable O tamanho da fatia (deslocamento sempre zero).
+     * @return As pessoas com 'ID' maior que {@code after}.
+     */
+    @EntityGraph("Person.withAddress")
+    Slice<Person> findByIdGreaterThanOrderByIdAsc(long after, Pageable pageable);
+
+    /**
+     * Percorre todas as pessoas em ordem de 'ID', já com o endereço carregado, para exportação em lote.
+     *
+     * <p>Os registros são lidos do cursor JDBC em blocos de {@code fetchSize} e as entidades
+     * são carregadas como somente leitura. O {@link Stream} precisa ser consumido dentro de
+     * uma transação e fechado ao final.</p>
+     *
+     * @return Um {@link Stream} de {@link Person}.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Person p left join fetch p.address order by p.id")
+    Stream<Person> streamAll();
+
+    /**
+     * Lê apenas e-mail, CPF e telefone de todas as pessoas (de qualquer papel), em blocos,
+     * para alimentar o filtro de unicidade na inicialização.
+     *
+     * <p>Deve ser consumido dentro de uma transação e fechado após o uso.</p>
+     *
+     * @return Um {@link Stream} de arrays {@code [email, cpf, phone]}.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.email, p.cpf, p.phone from Person p")
+    Stream<Object[]> streamUniqueKeys();
 }
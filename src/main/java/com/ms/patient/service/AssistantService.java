@@ -1,11 +1,17 @@
 package com.ms.patient.service;
 
-import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.ms.patient.utils.KeysetPageRequest;
 import com.ms.patient.utils.RegistrationNumber;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.annotation.Timed;
 
 import com.ms.patient.dto.AssistantCreationDTO;
 import com.ms.patient.dto.AssistantResponseDTO;
@@ -17,12 +23,14 @@ import com.ms.patient.producers.UserCreationProducer;
 import com.ms.patient.repositories.AssistantRepository;
 
 @Service
+@Timed(value = "medcare.service", description = "Duração dos métodos públicos dos serviços")
 public class AssistantService {
 
     private final AssistantRepository repository;
     private final AssistantMapper mapper;
     private final UserCreationProducer assistantProducer;
     private final PersonService personService;
+    private final RegistrationNumber registrationNumber;
 
     /**
      * Construtor para injeção de dependências dos componentes de persistência,
@@ -31,12 +39,15 @@ public class AssistantService {
      * @param repository O repositório para acesso a dados de {@link Medic}.
      * @param mapper O mapper para conversão entre DTOs e entidades.
      * @param assistantProducer O produtor de eventos para criação de usuários.
+     * @param registrationNumber O gerador de números de registro.
      */
-    public AssistantService(AssistantRepository repository, AssistantMapper mapper, UserCreationProducer assistantProducer, PersonService personService) {
+    public AssistantService(AssistantRepository repository, AssistantMapper mapper, UserCreationProducer assistantProducer, PersonService personService,
+                            RegistrationNumber registrationNumber) {
         this.repository = repository;
         this.mapper = mapper;
         this.assistantProducer = assistantProducer;
         this.personService = personService;
+        this.registrationNumber = registrationNumber;
     }
 
     /**
@@ -48,9 +59,9 @@ public class AssistantService {
      * @throws RuntimeException se o CRM já estiver cadastrado.
      * @throws CpfAlreadyExistsException se o Cpf já estiver cadastrado.
      */
+    @Transactional(rollbackFor = Exception.class)
     public AssistantResponseDTO createAssistant(AssistantCreationDTO dto) throws JsonProcessingException {
 
-        RegistrationNumber registrationNumber = new RegistrationNumber();
         // 1. VALIDAÇÃO DE REGRA DE NEGÓCIO
 
         //Validação dos campos de Person via personService
@@ -59,19 +70,25 @@ public class AssistantService {
             throw new IllegalArgumentException();
         }
 
-        do {
-            dto.setRegistrationNumber(registrationNumber.generateNumber());
-        } while (repository.existsByRegistrationNumber(dto.getRegistrationNumber()));
+        //Número único entre todos os nós, sem consulta ao banco (alocação em blocos)
+        dto.setRegistrationNumber(registrationNumber.generateNumber());
 
         // 2. CONVERSÃO DTO ≥ ENTIDADE
         // O Mapper cuida da criação de Person, Address e Assistant.
         Assistant assistant = mapper.toAssistant(dto);
 
         // 3. PERSISTÊNCIA
-        Assistant savedAssistant = repository.save(assistant);
+        Assistant savedAssistant;
+        try {
+            savedAssistant = repository.saveAndFlush(assistant);
+        } catch (DataIntegrityViolationException e) {
+            // Cadastro concorrente com o mesmo valor, recusado pela restrição UNIQUE
+            throw personService.uniqueKeyConflict(e, assistant);
+        }
+        personService.registerUniqueKeys(savedAssistant);
 
         // ---------------------------------------------
-        // ENVIO DO EVENTO ASSÍNCRONO
+        // EVENTO NA OUTBOX (enviado ao SQS em segundo plano pelo OutboxRelay)
         // ---------------------------------------------
 
         // 4. Criando o objeto de evento
@@ -81,14 +98,16 @@ public class AssistantService {
     }
 
     /**
-     * Retorna uma lista de todos os assistentes cadastrados no sistema.
+     * Retorna uma fatia dos assistentes cadastrados, paginada por cursor (keyset pagination).
      *
-     * @return Uma {@link List} de {@link AssistantResponseDTO}s. Pode ser uma lista vazia,
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de assistentes na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @return Um {@link Slice} de {@link AssistantResponseDTO}s ordenados por 'ID'. Pode estar vazio,
      * mas nunca {@code null}.
      */
-    public List<AssistantResponseDTO> findAll(){
-        List<Assistant> assistants = repository.findAll();
-        return mapper.toDtoResponse(assistants);
+    public Slice<AssistantResponseDTO> findAll(long after, int limit){
+        Slice<Assistant> assistants = repository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(limit));
+        return assistants.map(mapper::toAssistantResponseDTO);
     }
 
     /**
@@ -101,4 +120,14 @@ public class AssistantService {
     public Assistant findById(long id){
         return repository.findById(id).orElseThrow(() -> new NoSuchElementException("NOT FOUND"));
     }
+
+    /**
+     * Versão atual do assistente, lida sem carregar a entidade (ETag do endpoint de detalhe).
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão, ou vazio se não existir.
+     */
+    public Optional<Long> findVersion(long id){
+        return repository.findVersionById(id);
+    }
 }
@@ -0,0 +1,647 @@
+package com.ms.patient.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ms.patient.dto.PatientsFingerprintDTO;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.exceptions.ClinicalIndexUnavailableException;
+import com.ms.patient.models.Patient;
+import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.utils.ClinicalQuery;
+import com.ms.patient.utils.ClinicalQuery.Field;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Índice invertido em memória dos sintomas, alergias e situação dos pacientes, usado pela
+ * busca clínica ({@link ClinicalQuery}).
+ *
+ * <p>Cada sintoma e alergia distinto (normalizado) recebe um número no dicionário do seu campo,
+ * e cada número aponta para um {@link RoaringBitmap} com os 'ID's dos pacientes que têm o termo;
+ * há ainda um bitmap por {@link PatientSituation} e um com todos os pacientes (universo do
+ * {@code NOT}). As consultas combinam bitmaps comprimidos em vez de percorrer as tabelas.</p>
+ *
+ * <p>Na inicialização o índice é lido do snapshot em disco, se o resumo da tabela gravado nele
+ * ({@link PatientsFingerprintDTO}) ainda for o do banco; senão é reconstruído a partir das tabelas
+ * {@code patient_symptoms}, {@code patient_allergies} e {@code patients}. O snapshot é gravado
+ * no desligamento, só se o resumo do banco ainda for o que o índice reflete: o lido na carga mais
+ * as gravações desta instância. Depois disso o {@link PatientService} mantém o índice a cada cadastro,
+ * atualização e remoção, aplicados quando a transação é confirmada; os feitos durante a carga
+ * ficam pendentes e são aplicados ao fim dela. Cada alteração leva a versão confirmada do paciente, e
+ * o índice guarda a última aplicada de cada 'ID': os {@code afterCommit} de transações concorrentes
+ * podem chegar fora de ordem, e uma versão anterior à aplicada é ignorada. Enquanto a carga não termina (ou se ela falhar),
+ * a busca lança {@link ClinicalIndexUnavailableException}.</p>
+ *
+ * <p><b>Atenção:</b> como o {@link UniquenessFilter}, cada instância só conhece o que leu na
+ * carga e o que ela mesma gravou; alterações feitas por outra instância só aparecem depois de
+ * uma nova carga. Os 'ID's são guardados como inteiros de 32 bits sem sinal.</p>
+ */
+@Component
+public class ClinicalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicalIndex.class);
+
+    // "CIX" + versão do formato do snapshot
+    private static final int SNAPSHOT_FORMAT = 0x43495802;
+
+    private static final long MAX_ID = 0xFFFFFFFFL;
+
+    private final PatientRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos pelo lock: o índice publicado e as alterações recebidas antes dele (null se a carga falhou)
+    private Postings postings = new Postings();
+    private List<Document> pending = new ArrayList<>();
+    // Soma das versões que o índice reflete: a da carga mais as alterações desta instância (null se desconhecida)
+    private Long versionSum;
+
+    private volatile boolean ready;
+
+    public ClinicalIndex(PatientRepository repository, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${medcare.clinical-index.enabled:true}") boolean enabled,
+                         @Value("${medcare.clinical-index.snapshot-file:}") String snapshotFile) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+
+        Gauge.builder("clinical.index.ready", this, index -> index.ready ? 1 : 0)
+            .description("1 quando a carga inicial do índice clínico terminou")
+            .register(meterRegistry);
+        Gauge.builder("clinical.index.patients", this, read(p -> p.all.getLongCardinality()))
+            .description("Pacientes no índice clínico")
+            .register(meterRegistry);
+        Gauge.builder("clinical.index.size", this, read(Postings::sizeInBytes))
+            .description("Memória ocupada pelos bitmaps do índice clínico")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        for (Field field : List.of(Field.SYMPTOM, Field.ALLERGY)) {
+            Gauge.builder("clinical.index.terms", this, read(p -> p.terms.get(field).size()))
+                .description("Termos distintos no dicionário do índice clínico")
+                .tag("field", field.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Carrega o índice assim que a aplicação fica pronta, do snapshot ou do banco.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            PatientsFingerprintDTO fingerprint = readOnlyTransaction.execute(status -> repository.findFingerprint());
+            Postings loaded = readSnapshot(fingerprint);
+            String source = "snapshot";
+            if (loaded == null) {
+                loaded = readOnlyTransaction.execute(status -> rebuild());
+                source = "database";
+            }
+            publish(loaded, fingerprint);
+            log.info("Clinical index of {} patients loaded from {} in {} ms", loaded.all.getLongCardinality(), source,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.warn("Clinical index warm-up failed; clinical search is unavailable", e);
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Indexa o paciente recém-cadastrado quando a transação atual for confirmada; sem transação
+     * ativa, imediatamente. Os valores são copiados agora, no estado já gravado.
+     *
+     * @param patient O paciente salvo, com 'ID'.
+     */
+    public void indexAfterCommit(Patient patient) {
+        if (enabled) {
+            Document document = Document.of(patient);
+            afterCommit(() -> document.committed(patient.getVersion(), patient.getVersion()));
+        }
+    }
+
+    /**
+     * Reindexa o paciente atualizado quando a transação atual for confirmada; sem transação
+     * ativa, imediatamente. Os valores são copiados agora; a versão é lida depois do commit,
+     * quando o Hibernate já a incrementou.
+     *
+     * @param patient O paciente salvo.
+     * @param previousVersion A versão do paciente quando foi lido, antes da alteração.
+     */
+    public void indexAfterCommit(Patient patient, long previousVersion) {
+        if (enabled) {
+            Document document = Document.of(patient);
+            afterCommit(() -> document.committed(patient.getVersion(), patient.getVersion() - previousVersion));
+        }
+    }
+
+    /**
+     * Remove o paciente do índice quando a transação atual for confirmada; sem transação
+     * ativa, imediatamente.
+     *
+     * @param patientId O 'ID' do paciente removido.
+     * @param version A versão do paciente removido.
+     */
+    public void removeAfterCommit(long patientId, long version) {
+        if (enabled) {
+            Document document = Document.removed(patientId, version);
+            afterCommit(() -> document);
+        }
+    }
+
+    /**
+     * Busca os pacientes que atendem à consulta, em ordem de 'ID' e após o cursor.
+     *
+     * @param query A consulta já interpretada.
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de 'ID's retornados.
+     * @return Os 'ID's encontrados (no máximo {@code limit}).
+     * @throws ClinicalIndexUnavailableException Se o índice não estiver carregado.
+     */
+    public List<Long> search(ClinicalQuery query, long after, int limit) {
+        if (!ready) {
+            throw new ClinicalIndexUnavailableException(enabled
+                ? "Clinical index is not loaded yet; try again later"
+                : "Clinical search is disabled");
+        }
+        RoaringBitmap matches;
+        lock.readLock().lock();
+        try {
+            matches = query.evaluate(postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+        if (after >= MAX_ID) {
+            return ids;
+        }
+        PeekableIntIterator iterator = matches.getIntIterator();
+        if (after >= 0) {
+            iterator.advanceIfNeeded((int) (after + 1));
+        }
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add(Integer.toUnsignedLong(iterator.next()));
+        }
+        return ids;
+    }
+
+    /**
+     * Grava o snapshot no desligamento, se o resumo do banco for o que o índice reflete (mesma
+     * quantidade de pacientes, mesmo maior 'ID' e a soma das versões da carga mais as gravações
+     * desta instância). Caso contrário outra instância alterou a tabela, e o snapshot é apagado
+     * para forçar a reconstrução.
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (!ready || snapshotFile == null) {
+            return;
+        }
+        try {
+            PatientsFingerprintDTO fingerprint = readOnlyTransaction.execute(status -> repository.findFingerprint());
+            lock.readLock().lock();
+            try {
+                long maxId = postings.all.isEmpty() ? 0 : Integer.toUnsignedLong(postings.all.last());
+                PatientsFingerprintDTO indexed = versionSum == null ? null
+                    : new PatientsFingerprintDTO(postings.all.getLongCardinality(), maxId, versionSum);
+                if (!fingerprint.equals(indexed)) {
+                    log.info("Clinical index ({}) differs from the database ({}); snapshot discarded", indexed, fingerprint);
+                    Files.deleteIfExists(snapshotFile);
+                    return;
+                }
+                Path parent = snapshotFile.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                Path temporary = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(SNAPSHOT_FORMAT);
+                    out.writeLong(fingerprint.getCount());
+                    out.writeLong(fingerprint.getMaxId());
+                    out.writeLong(fingerprint.getVersionSum());
+                    postings.write(out);
+                }
+                Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write clinical index snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    private void afterCommit(Supplier<Document> document) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(document.get());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(document.get());
+            }
+        });
+    }
+
+    private void apply(Document document) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                postings.apply(document);
+                if (versionSum != null) {
+                    versionSum += document.versionDelta();
+                }
+            } else if (pending != null) {
+                pending.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publish(Postings loaded, PatientsFingerprintDTO fingerprint) {
+        lock.writeLock().lock();
+        try {
+            // Reaplicar é seguro: cada documento substitui o estado anterior do paciente, e os que a carga
+            // já refletia têm versão igual ou anterior à lida. Já a soma das versões fica desconhecida,
+            // porque não dá para saber se o resumo lido já os incluía
+            pending.forEach(loaded::apply);
+            versionSum = pending.isEmpty() ? fingerprint.getVersionSum() : null;
+            pending = null;
+            postings = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Postings rebuild() {
+        Postings loaded = new Postings();
+        Map<Integer, Long> versions = new HashMap<>();
+        try (Stream<Object[]> rows = repository.streamSituations()) {
+            rows.forEach(row -> {
+                int id = key((Long) row[0]);
+                loaded.all.add(id);
+                if (row[1] != null) {
+                    loaded.situations.get((PatientSituation) row[1]).add(id);
+                }
+                versions.put(id, (Long) row[2]);
+            });
+        }
+        try (Stream<Object[]> rows = repository.streamSymptoms()) {
+            rows.forEach(row -> loaded.terms.get(Field.SYMPTOM).add(ClinicalQuery.normalize((String) row[1]), key((Long) row[0])));
+        }
+        try (Stream<Object[]> rows = repository.streamAllergies()) {
+            rows.forEach(row -> loaded.terms.get(Field.ALLERGY).add(ClinicalQuery.normalize((String) row[1]), key((Long) row[0])));
+        }
+        loaded.optimize();
+        loaded.describePatients(versions);
+        return loaded;
+    }
+
+    // null se não houver snapshot, se ele for de outra versão do formato ou de outro estado do banco
+    private Postings readSnapshot(PatientsFingerprintDTO fingerprint) {
+        if (snapshotFile == null) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                log.info("Clinical index snapshot {} has another format; rebuilding", snapshotFile);
+                return null;
+            }
+            PatientsFingerprintDTO written = new PatientsFingerprintDTO(in.readLong(), in.readLong(), in.readLong());
+            if (!written.equals(fingerprint)) {
+                log.info("Clinical index snapshot {} is stale ({} != {}); rebuilding", snapshotFile, written, fingerprint);
+                return null;
+            }
+            return Postings.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read clinical index snapshot {}; rebuilding", snapshotFile, e);
+            return null;
+        }
+    }
+
+    private ToDoubleFunction<ClinicalIndex> read(ToDoubleFunction<Postings> metric) {
+        return index -> {
+            index.lock.readLock().lock();
+            try {
+                return metric.applyAsDouble(index.postings);
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        };
+    }
+
+    private static int key(long id) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Patient id " + id + " is out of the clinical index range");
+        }
+        return (int) id;
+    }
+
+    /**
+     * Estado de um paciente a aplicar no índice ({@code removed} para remoções), com a versão
+     * confirmada e a variação que a gravação causou na soma das versões dos pacientes.
+     */
+    private record Document(int id, long version, boolean removed, Set<String> symptoms, Set<String> allergies,
+                            PatientSituation situation, long versionDelta) {
+
+        static Document of(Patient patient) {
+            return new Document(key(patient.getId()), 0, false, normalized(patient.getSymptoms()),
+                normalized(patient.getAllergies()), patient.getPatientSituation(), 0);
+        }
+
+        // A remoção não incrementa a versão: vale mais que o cadastro ou a atualização da mesma versão
+        static Document removed(long patientId, long version) {
+            return new Document(key(patientId), version, true, Set.of(), Set.of(), null, -version);
+        }
+
+        Document committed(long version, long versionDelta) {
+            return new Document(id, version, removed, symptoms, allergies, situation, versionDelta);
+        }
+
+        boolean supersedes(Entry entry) {
+            return version > entry.version() || version == entry.version() && removed && !entry.removed();
+        }
+
+        private static Set<String> normalized(Set<String> values) {
+            Set<String> result = new LinkedHashSet<>();
+            if (values != null) {
+                values.stream().filter(value -> value != null && !value.isBlank())
+                    .map(ClinicalQuery::normalize).forEach(result::add);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * O que o índice tem de um paciente: a última versão aplicada e os bitmaps em que ele está
+     * (números dos termos no dicionário de cada campo). Pacientes removidos continuam aqui, sem
+     * bitmaps, para que um documento atrasado não os traga de volta.
+     */
+    private record Entry(long version, boolean removed, PatientSituation situation, int[] symptoms, int[] allergies) {
+
+        private static final int[] NONE = new int[0];
+
+        static Entry removed(long version) {
+            return new Entry(version, true, null, NONE, NONE);
+        }
+    }
+
+    /** Os bitmaps do índice; só é alterado com o lock de escrita (ou antes de publicado). */
+    private static final class Postings implements ClinicalQuery.Postings {
+
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<PatientSituation, RoaringBitmap> situations = new EnumMap<>(PatientSituation.class);
+        private final Map<Field, Dictionary> terms = new EnumMap<>(Field.class);
+        private final Map<Integer, Entry> patients = new HashMap<>();
+
+        Postings() {
+            for (PatientSituation situation : PatientSituation.values()) {
+                situations.put(situation, new RoaringBitmap());
+            }
+            terms.put(Field.SYMPTOM, new Dictionary());
+            terms.put(Field.ALLERGY, new Dictionary());
+        }
+
+        @Override
+        public RoaringBitmap of(Field field, String term) {
+            return field == Field.SITUATION
+                ? situations.get(PatientSituation.valueOf(term))
+                : terms.get(field).get(term);
+        }
+
+        @Override
+        public RoaringBitmap all() {
+            return all;
+        }
+
+        // Tira o paciente só dos bitmaps em que ele estava e adiciona o estado novo; ignora o documento
+        // se o índice já tem uma versão posterior do paciente
+        void apply(Document document) {
+            int id = document.id();
+            Entry current = patients.get(id);
+            if (current != null) {
+                if (!document.supersedes(current)) {
+                    return;
+                }
+                all.remove(id);
+                if (current.situation() != null) {
+                    situations.get(current.situation()).remove(id);
+                }
+                terms.get(Field.SYMPTOM).remove(current.symptoms(), id);
+                terms.get(Field.ALLERGY).remove(current.allergies(), id);
+            }
+            if (document.removed()) {
+                patients.put(id, Entry.removed(document.version()));
+                return;
+            }
+            all.add(id);
+            if (document.situation() != null) {
+                situations.get(document.situation()).add(id);
+            }
+            patients.put(id, new Entry(document.version(), false, document.situation(),
+                terms.get(Field.SYMPTOM).add(document.symptoms(), id),
+                terms.get(Field.ALLERGY).add(document.allergies(), id)));
+        }
+
+        // Monta a entrada de cada paciente a partir dos bitmaps carregados
+        void describePatients(Map<Integer, Long> versions) {
+            Map<Integer, int[]> symptoms = terms.get(Field.SYMPTOM).termsByPatient();
+            Map<Integer, int[]> allergies = terms.get(Field.ALLERGY).termsByPatient();
+            Map<Integer, PatientSituation> situationOf = new HashMap<>();
+            situations.forEach((situation, bitmap) -> bitmap.forEach((int id) -> situationOf.put(id, situation)));
+            all.forEach((int id) -> patients.put(id, new Entry(versions.get(id), false, situationOf.get(id),
+                symptoms.getOrDefault(id, Entry.NONE), allergies.getOrDefault(id, Entry.NONE))));
+        }
+
+        void optimize() {
+            all.runOptimize();
+            situations.values().forEach(RoaringBitmap::runOptimize);
+            terms.values().forEach(Dictionary::optimize);
+        }
+
+        double sizeInBytes() {
+            long size = all.getLongSizeInBytes();
+            for (RoaringBitmap bitmap : situations.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            for (Dictionary dictionary : terms.values()) {
+                size += dictionary.sizeInBytes();
+            }
+            return size;
+        }
+
+        void write(DataOutput out) throws IOException {
+            all.serialize(out);
+            out.writeInt(situations.size());
+            for (Map.Entry<PatientSituation, RoaringBitmap> entry : situations.entrySet()) {
+                out.writeUTF(entry.getKey().name());
+                entry.getValue().serialize(out);
+            }
+            terms.get(Field.SYMPTOM).write(out);
+            terms.get(Field.ALLERGY).write(out);
+            // Versões na ordem dos 'ID's de all
+            PeekableIntIterator ids = all.getIntIterator();
+            while (ids.hasNext()) {
+                out.writeLong(patients.get(ids.next()).version());
+            }
+        }
+
+        static Postings read(DataInput in) throws IOException {
+            Postings postings = new Postings();
+            postings.all.deserialize(in);
+            int situations = in.readInt();
+            for (int i = 0; i < situations; i++) {
+                // Pelo nome: uma situação nova no enum não invalida o snapshot
+                postings.situations.get(PatientSituation.valueOf(in.readUTF())).deserialize(in);
+            }
+            postings.terms.get(Field.SYMPTOM).read(in);
+            postings.terms.get(Field.ALLERGY).read(in);
+            Map<Integer, Long> versions = new HashMap<>();
+            PeekableIntIterator ids = postings.all.getIntIterator();
+            while (ids.hasNext()) {
+                versions.put(ids.next(), in.readLong());
+            }
+            postings.describePatients(versions);
+            return postings;
+        }
+    }
+
+    /** Dicionário termo → número de um campo, com o bitmap de cada número. */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+        private final List<RoaringBitmap> bitmaps = new ArrayList<>();
+
+        int size() {
+            return terms.size();
+        }
+
+        RoaringBitmap get(String term) {
+            Integer id = ids.get(term);
+            return id == null ? null : bitmaps.get(id);
+        }
+
+        int add(String term, int patientId) {
+            Integer id = ids.get(term);
+            if (id == null) {
+                id = terms.size();
+                ids.put(term, id);
+                terms.add(term);
+                bitmaps.add(new RoaringBitmap());
+            }
+            bitmaps.get(id).add(patientId);
+            return id;
+        }
+
+        // Os números dos termos, para tirar o paciente depois só desses bitmaps
+        int[] add(Set<String> terms, int patientId) {
+            return terms.stream().mapToInt(term -> add(term, patientId)).toArray();
+        }
+
+        void remove(int[] termIds, int patientId) {
+            for (int id : termIds) {
+                bitmaps.get(id).remove(patientId);
+            }
+        }
+
+        Map<Integer, int[]> termsByPatient() {
+            Map<Integer, int[]> result = new HashMap<>();
+            for (int id = 0; id < bitmaps.size(); id++) {
+                int[] term = {id};
+                bitmaps.get(id).forEach((int patientId) -> result.merge(patientId, term, Dictionary::concat));
+            }
+            return result;
+        }
+
+        private static int[] concat(int[] first, int[] second) {
+            int[] result = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, result, first.length, second.length);
+            return result;
+        }
+
+        void optimize() {
+            bitmaps.forEach(RoaringBitmap::runOptimize);
+        }
+
+        long sizeInBytes() {
+            long size = 0;
+            for (RoaringBitmap bitmap : bitmaps) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            return size;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(terms.size());
+            for (int id = 0; id < terms.size(); id++) {
+                out.writeUTF(terms.get(id));
+                bitmaps.get(id).serialize(out);
+            }
+        }
+
+        void read(DataInput in) throws IOException {
+            int size = in.readInt();
+            for (int id = 0; id < size; id++) {
+                String term = in.readUTF();
+                RoaringBitmap bitmap = new RoaringBitmap();
+                bitmap.deserialize(in);
+                ids.put(term, id);
+                terms.add(term);
+                bitmaps.add(bitmap);
+            }
+        }
+    }
+}
@@ -2,22 +2,30 @@ package com.ms.patient.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.ms.patient.dto.MedicCreationDTO;
-import com.ms.patient.dto.MedicResponseDTO;
 import com.ms.patient.exceptions.BusinessException;
 import com.ms.patient.exceptions.CpfAlreadyExistsException;
 import com.ms.patient.exceptions.CrmInvalidException;
+import com.ms.patient.exceptions.PreconditionFailedException;
 import com.ms.patient.mappers.MedicMapper;
 import com.ms.patient.models.Medic;
 import com.ms.patient.producers.UserCreationProducer;
 import com.ms.patient.repositories.MedicRepository;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import jakarta.validation.Valid;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import io.micrometer.core.annotation.Timed;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Serviço responsável por orquestrar a lógica de negócio (CRUD e validações)
@@ -31,12 +39,15 @@ import java.util.NoSuchElementException;
  * @since 2025-11-17
  */
 @Service
+@Timed(value = "medcare.service", description = "Duração dos métodos públicos dos serviços")
 public class MedicService {
     
     private final PersonService personService;
     private final MedicRepository repository;
     private final MedicMapper mapper;
     private final UserCreationProducer medicProducer;
+    private final NdjsonExporter exporter;
+    private final PersonCacheEvictor cacheEvictor;
 
     /**
      * Construtor para injeção de dependências dos componentes de persistência,
@@ -45,12 +56,17 @@ public class MedicService {
      * @param repository O repositório para acesso a dados de {@link Medic}.
      * @param mapper converter entre DTOs e entidades.
      * @param medicProducer O produtor de eventos para criação de 'users'.
+     * @param exporter O exportador NDJSON usado na exportação em lote.
+     * @param cacheEvictor Remove do cache de segundo nível os médicos atualizados.
      */
-    public MedicService(MedicRepository repository, MedicMapper mapper, UserCreationProducer medicProducer, PersonService personService) {
+    public MedicService(MedicRepository repository, MedicMapper mapper, UserCreationProducer medicProducer, PersonService personService,
+                        NdjsonExporter exporter, PersonCacheEvictor cacheEvictor) {
         this.repository = repository;
         this.mapper = mapper;
         this.medicProducer = medicProducer;
         this.personService = personService;
+        this.exporter = exporter;
+        this.cacheEvictor = cacheEvictor;
     }
 
     /**
@@ -58,22 +74,19 @@ public class MedicService {
      *
      * <p>O processo envolve: 1. Validação de unicidade do CRM e CPF (se ativada);
      * 2. Conversão do DTO para a entidade {@link Medic}; 3. Persistência;
-     * 4. Publicação de um evento de criação de usuário assíncrono.</p>
+     * 4. Gravação do evento de criação de usuário na outbox, na mesma transação.</p>
      *
      * @param dto O DTO de criação contendo os dados do novo médico.
      * @return O {@link Medic} do médico recém-criado.
-     * @throws RuntimeException se o CRM já estiver cadastrado.
+     * @throws CrmInvalidException se o CRM já estiver cadastrado.
      * @throws CpfAlreadyExistsException se o Cpf já estiver cadastrado.
      */
+    @Transactional(rollbackFor = Exception.class)
     public Medic createMedic(@Valid MedicCreationDTO dto) throws JsonProcessingException{
 
         // 1. VALIDAÇÃO DE REGRA DE NEGÓCIO
-        // Garantir que o CPF e o CRM são únicos antes de salvar.
-        if (repository.existsByCrm(dto.getCrm())) {
-            throw new CrmInvalidException("CRM already registered");
-        }
-
-        //Validação dos campos de Person via personService
+        // Garantir que e-mail, CPF, telefone e CRM são únicos antes de salvar
+        // (uma única consulta via personService).
         boolean result = personService.validatePersonInfo(dto);
         if(!result){
             throw new BusinessException("Invalid medic data");
@@ -84,10 +97,17 @@ public class MedicService {
         Medic medic = mapper.toMedic(dto);
 
         // 3. PERSISTÊNCIA no banco
-        Medic savedMedic = repository.save(medic);
+        Medic savedMedic;
+        try {
+            savedMedic = repository.saveAndFlush(medic);
+        } catch (DataIntegrityViolationException e) {
+            // Cadastro concorrente com o mesmo valor, recusado pela restrição UNIQUE
+            throw personService.uniqueKeyConflict(e, medic);
+        }
+        personService.registerUniqueKeys(savedMedic);
 
         // ---------------------------------------------
-        // ENVIO DO EVENTO ASSÍNCRONO - para criação de um usuário no sistema
+        // EVENTO NA OUTBOX - para criação de um usuário no sistema (enviado pelo OutboxRelay)
         // ---------------------------------------------
 
         // 4. Criando o objeto de evento
@@ -97,14 +117,32 @@ public class MedicService {
     }
 
     /**
-     * Retorna uma lista de todos os médicos cadastrados no sistema.
+     * Retorna uma fatia dos médicos cadastrados, paginada por cursor (keyset pagination).
      *
-     * @return Uma {@link List} de {@link MedicResponseDTO}s. Pode ser uma lista vazia,
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de médicos na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @return Um {@link Slice} de entidades {@link Medic} ordenadas por 'ID'. Pode estar vazio,
      * mas nunca {@code null}.
      */
-    public List<Medic> findAll(){
-        List<Medic> medics = repository.findAll();
-        return medics;
+    public Slice<Medic> findAll(long after, int limit){
+        return repository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(limit));
+    }
+
+    /**
+     * Exporta todos os médicos como NDJSON (um {@link Medic} por linha) na saída informada.
+     *
+     * <p>Os registros são lidos por cursor e escritos um a um pelo {@link NdjsonExporter},
+     * portanto a memória utilizada não depende da quantidade de registros.</p>
+     *
+     * @param out A saída da resposta HTTP.
+     * @return A quantidade de registros exportados.
+     * @throws IOException Se ocorrer erro de escrita na saída.
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(OutputStream out) throws IOException {
+        try (Stream<Medic> medics = repository.streamAll()) {
+            return exporter.export(medics, mapper::toMedicResponseDTO, out);
+        }
     }
 
     /**
@@ -118,11 +156,38 @@ public class MedicService {
         return repository.findById(id).orElseThrow(() -> new NoSuchElementException("NOT FOUND"));
     }
 
-    public Medic updateMedic(@Valid MedicCreationDTO newDto, long medicId){
+    /**
+     * Versão atual do médico, lida sem carregar a entidade (ETag do endpoint de detalhe).
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão, ou vazio se não existir.
+     */
+    public Optional<Long> findVersion(long id){
+        return repository.findVersionById(id);
+    }
+
+    /**
+     * Atualiza os dados de um médico.
+     *
+     * <p>A versão do registro é incrementada mesmo quando só o endereço muda, invalidando a
+     * ETag anterior. Com {@code expectedVersion}, a atualização só ocorre se o registro ainda
+     * estiver nessa versão (pré-condição {@code If-Match}).</p>
+     *
+     * @param newDto Os novos dados do médico.
+     * @param medicId O 'ID' do médico.
+     * @param expectedVersion A versão esperada, ou {@code null} para atualizar sem pré-condição.
+     * @return O médico atualizado.
+     * @throws NoSuchElementException Se o médico não existir.
+     * @throws PreconditionFailedException Se a versão atual for diferente de {@code expectedVersion}.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Medic updateMedic(@Valid MedicCreationDTO newDto, long medicId, Long expectedVersion){
 
         // 1. VALIDAÇÃO DE REGRA DE NEGÓCIO
 
-        var existingMedic = repository.findById(medicId).orElseThrow();
+        var existingMedic = repository.findForUpdateById(medicId).orElseThrow();
+        if(expectedVersion != null && existingMedic.getVersion() != expectedVersion)
+            throw new PreconditionFailedException("Medic " + medicId + " was modified (current version " + existingMedic.getVersion() + ")");
         //Validação dos campos de Person via personService
         boolean result = personService.validatePersonInfo(newDto);
         if(!result)
@@ -130,7 +195,16 @@ public class MedicService {
         
         mapper.updateMedicFromDto(newDto, existingMedic);
 
-        return repository.save(existingMedic);
+        Medic savedMedic;
+        try {
+            savedMedic = repository.saveAndFlush(existingMedic);
+        } catch (DataIntegrityViolationException e) {
+            throw personService.uniqueKeyConflict(e, existingMedic);
+        }
+        // A versão forçada é gravada no commit, depois da entrada do cache
+        cacheEvictor.evictAfterCompletion(medicId);
+        personService.registerUniqueKeys(savedMedic);
+        return savedMedic;
 
     }
 
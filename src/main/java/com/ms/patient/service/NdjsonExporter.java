@@ -0,0 +1,96 @@
+package com.ms.patient.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Componente responsável por escrever um {@link Stream} de entidades como NDJSON
+ * (um objeto JSON por linha) diretamente na saída da resposta HTTP.
+ *
+ * <p>As entidades são lidas em blocos do tamanho do {@code hibernate.default_batch_fetch_size}:
+ * o bloco inteiro fica no contexto de persistência enquanto é convertido para DTO, então as
+ * coleções LAZY (ex: sintomas e alergias do paciente) são carregadas com um único {@code IN} por
+ * coleção para o bloco, e não um SELECT por entidade. Depois de escrito por um único
+ * {@link JsonGenerator}, o bloco é desanexado (detach) do contexto de persistência. Assim, a
+ * memória utilizada durante a exportação não cresce com a quantidade de registros.</p>
+ *
+ * <p>Deve ser chamado dentro de uma transação (somente leitura), pois o {@link Stream}
+ * mantém o cursor JDBC aberto enquanto é consumido.</p>
+ */
+@Component
+public class NdjsonExporter {
+
+    /** Quantidade de linhas escritas entre cada {@code flush} da saída. */
+    private static final int FLUSH_EVERY = 500;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public NdjsonExporter(EntityManager entityManager, ObjectMapper objectMapper,
+                          @Value("${spring.jpa.properties.hibernate.default_batch_fetch_size:100}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Escreve todas as entidades do {@link Stream} na saída, uma por linha.
+     *
+     * <p>O {@link OutputStream} não é fechado ao final; isso fica a cargo do container.</p>
+     *
+     * @param rows O {@link Stream} de entidades vindo do repositório.
+     * @param toDto A função de conversão entidade → DTO (normalmente um método do mapper).
+     * @param out A saída da resposta HTTP.
+     * @return A quantidade de linhas escritas.
+     * @throws IOException Se ocorrer erro de escrita (ex: cliente desconectou).
+     */
+    public <E, D> long export(Stream<E> rows, Function<E, D> toDto, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sem separador entre os valores raiz: a quebra de linha é escrita manualmente
+            generator.setRootValueSeparator(null);
+
+            // O bloco é escrito assim que completa, sem ler a próxima linha do cursor antes
+            Iterator<E> iterator = rows.iterator();
+            List<E> chunk = new ArrayList<>(chunkSize);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize) {
+                    count = write(chunk, toDto, generator, count);
+                }
+            }
+            count = write(chunk, toDto, generator, count);
+            generator.flush();
+        }
+        return count;
+    }
+
+    private <E, D> long write(List<E> chunk, Function<E, D> toDto, JsonGenerator generator, long count) throws IOException {
+        for (E entity : chunk) {
+            generator.writeObject(toDto.apply(entity));
+            generator.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        // Remove as entidades (e os Address, via cascade) do contexto de persistência
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+        return count;
+    }
+}
@@ -1,22 +1,38 @@
 package com.ms.patient.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import io.micrometer.core.annotation.Timed;
+
+import com.ms.patient.dto.BatchCreationResultDTO;
 import com.ms.patient.dto.PatientCreationDTO;
 import com.ms.patient.dto.PatientResponseDTO;
 import com.ms.patient.enums.PatientSituation;
 import com.ms.patient.exceptions.BusinessException;
+import com.ms.patient.exceptions.ClinicalIndexUnavailableException;
 import com.ms.patient.exceptions.CpfAlreadyExistsException;
 import com.ms.patient.exceptions.InvalidCpfException;
+import com.ms.patient.exceptions.PreconditionFailedException;
 import com.ms.patient.mappers.PatientMapper;
 import com.ms.patient.models.Patient;
 import com.ms.patient.producers.UserCreationProducer;
 import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.utils.ClinicalQuery;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import jakarta.validation.Valid;
 
@@ -25,38 +41,50 @@ import jakarta.validation.Valid;
  * para a entidade {@link Patient}.
  *
  * <p>Esta classe interage com o {@link PatientRepository} para persistência
- * e utiliza o {@link UserCreationProducer} para comunicação assíncrona.</p>
+ * e utiliza o {@link UserCreationProducer} para comunicação assíncrona. Cada
+ * cadastro, atualização e remoção também é repassado ao {@link ClinicalIndex}.</p>
  *
  * @author Lucas Edson machado
  * @since 2025-11-17
  */
 @Service
+@Timed(value = "medcare.service", description = "Duração dos métodos públicos dos serviços")
 public class PatientService {
 
+    /** Quantidade máxima de pacientes aceita em uma criação em lote. */
+    public static final int MAX_CREATION_BATCH_SIZE = 1000;
 
     private final PatientRepository repository;
     private final PatientMapper mapper;
     private final UserCreationProducer userProducer;
     private final PersonService personService;
+    private final NdjsonExporter exporter;
+    private final PersonCacheEvictor cacheEvictor;
+    private final ClinicalIndex clinicalIndex;
 
     
-    public PatientService(PatientRepository repository, PatientMapper mapper, UserCreationProducer userProducer, PersonService personService) {
+    public PatientService(PatientRepository repository, PatientMapper mapper, UserCreationProducer userProducer, PersonService personService,
+                          NdjsonExporter exporter, PersonCacheEvictor cacheEvictor, ClinicalIndex clinicalIndex) {
         this.repository = repository;
         this.mapper = mapper;
         this.userProducer = userProducer;
         this.personService = personService;
+        this.exporter = exporter;
+        this.cacheEvictor = cacheEvictor;
+        this.clinicalIndex = clinicalIndex;
     }
      /**
      * Cria e persiste um novo paciente no sistema, aplicando as regras de negócio.
      *
      * <p>O processo envolve: 1. Conversão do DTO para a entidade {@link Patient};
      * 2. Definição da situação inicial do paciente; 3. Persistência no banco de dados;
-     * 4. Publicação de um evento de criação de usuário para o serviço de autenticação
-     * (uso do {@link UserCreationProducer}).
+     * 4. Gravação, na mesma transação, do evento de criação de usuário para o serviço de
+     * autenticação (uso do {@link UserCreationProducer}; o envio ao SQS é feito em segundo plano).
      *
      * @param dto O DTO de criação contendo os dados brutos do paciente.
      * @return O {@link PatientResponseDTO} do paciente recém-criado.
-     * @throws CpfAlreadyExistsException se o CPF do DTO já estiver cadastrado (descomentar validação).
+     * @throws CpfAlreadyExistsException se o CPF do DTO já estiver cadastrado, mesmo que por uma
+     * requisição concorrente (violação de {@code uk_person_cpf}).
      * @throws InvalidCpfException se o CPF for inválido (descomentar validação).
      */
     @Transactional(rollbackFor = Exception.class)
@@ -75,15 +103,83 @@ public class PatientService {
         var patient = mapper.toPatient(dto);
         //Coloca NOT_DEFINED automáticamente como situação
         patient.setPatientSituation(PatientSituation.NOT_DEFINED);
-        // 3. PERSISTÊNCIA
-        var savedPatient = repository.save(patient);
+        // 3. PERSISTÊNCIA (o flush aplica as restrições UNIQUE já aqui)
+        Patient savedPatient;
+        try {
+            savedPatient = repository.saveAndFlush(patient);
+        } catch (DataIntegrityViolationException e) {
+            throw personService.uniqueKeyConflict(e, patient);
+        }
+        personService.registerUniqueKeys(savedPatient);
+        clinicalIndex.indexAfterCommit(savedPatient);
         // ---------------------------------------------
-        // ENVIO DO EVENTO ASSÍNCRONO
+        // EVENTO NA OUTBOX (enviado ao SQS em segundo plano pelo OutboxRelay)
         // ---------------------------------------------
         // 4. Criando o objeto de evento
         userProducer.publishUserCreationToPatientEvent(savedPatient);
         return savedPatient;
     }
+    /**
+     * Cria vários pacientes de uma vez (ex: cadastro inicial de uma clínica).
+     *
+     * <p>Todo o lote é validado com consultas por conjunto
+     * ({@link PersonService#validatePersonsInfo}); os itens válidos são persistidos em uma
+     * única transação, com os inserts agrupados em lotes JDBC, junto com os eventos de
+     * criação de usuário (outbox). Itens inválidos são devolvidos com o motivo e não
+     * impedem a criação dos demais.</p>
+     *
+     * @param dtos Os pacientes a criar (no máximo {@value #MAX_CREATION_BATCH_SIZE}).
+     * @return Um {@link BatchCreationResultDTO} por item, na mesma ordem da requisição.
+     * @throws IllegalArgumentException Se a lista for vazia ou maior que o limite.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<BatchCreationResultDTO> createPatients(List<PatientCreationDTO> dtos) throws JsonProcessingException {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("patients must not be empty");
+        }
+        if (dtos.size() > MAX_CREATION_BATCH_SIZE) {
+            throw new IllegalArgumentException("at most " + MAX_CREATION_BATCH_SIZE + " patients are allowed per request");
+        }
+
+        // 1. VALIDAÇÃO DO LOTE (consultas IN, não uma por item)
+        String[] errors = personService.validatePersonsInfo(dtos);
+
+        // 2. CONVERSÃO DOS ITENS VÁLIDOS
+        List<Patient> patients = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            if (errors[i] == null) {
+                Patient patient = mapper.toPatient(dtos.get(i));
+                patient.setPatientSituation(PatientSituation.NOT_DEFINED);
+                patients.add(patient);
+            }
+        }
+
+        // 3. PERSISTÊNCIA: o flush executa os inserts em lotes JDBC antes da publicação
+        List<Patient> savedPatients = repository.saveAll(patients);
+        try {
+            repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // Valor cadastrado por outra requisição depois da validação: o lote inteiro é desfeito
+            throw personService.uniqueKeyConflict(e, null);
+        }
+        savedPatients.forEach(personService::registerUniqueKeys);
+        savedPatients.forEach(clinicalIndex::indexAfterCommit);
+
+        // 4. EVENTOS NA OUTBOX, na mesma transação
+        if (!savedPatients.isEmpty()) {
+            userProducer.publishUserCreationToPatientEvents(savedPatients);
+        }
+
+        List<BatchCreationResultDTO> results = new ArrayList<>(dtos.size());
+        int saved = 0;
+        for (int i = 0; i < dtos.size(); i++) {
+            results.add(errors[i] == null
+                ? BatchCreationResultDTO.created(i, savedPatients.get(saved++).getId())
+                : BatchCreationResultDTO.rejected(i, errors[i]));
+        }
+        return results;
+    }
+
     /**
      * Busca um paciente pelo seu identificador único.
      *
@@ -94,21 +190,119 @@ public class PatientService {
     public Patient findById(long id){
         return repository.findById(id).orElseThrow(() -> new BusinessException("PATIENT NOT FOUND"));
     }
+
+    /**
+     * Versão atual do paciente, lida sem carregar a entidade (ETag do endpoint de detalhe).
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão, ou vazio se não existir.
+     */
+    public Optional<Long> findVersion(long id){
+        return repository.findVersionById(id);
+    }
     /**
-     * Retorna uma lista contendo todos os pacientes cadastrados no sistema.
+     * Retorna uma fatia dos pacientes cadastrados, paginada por cursor (keyset pagination).
      *
-     * @return Uma {@link List} de entidades {@link Patient}. Pode ser uma lista vazia,
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de pacientes na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @return Um {@link Slice} de entidades {@link Patient} ordenadas por 'ID'. Pode estar vazio,
      * mas nunca {@code null}.
      */
-    public List<Patient> findAll(){
-        return repository.findAll();
+    public Slice<Patient> findAll(long after, int limit){
+        return repository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(limit));
     }
 
-    public Patient updatePatient(@Valid PatientCreationDTO newDto, long patientId){
+    /**
+     * Versão de {@link #findAll(long, int)} que filtra por sintoma e/ou alergia no banco.
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de pacientes na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @param symptom O sintoma exigido, ou {@code null}.
+     * @param allergy A alergia exigida, ou {@code null}.
+     * @return Um {@link Slice} de entidades {@link Patient} ordenadas por 'ID'. Pode estar vazio,
+     * mas nunca {@code null}.
+     */
+    public Slice<Patient> findAll(long after, int limit, String symptom, String allergy){
+        Pageable page = KeysetPageRequest.of(limit);
+        if (symptom != null && allergy != null) {
+            return repository.findBySymptomAndAllergy(symptom, allergy, after, page);
+        }
+        if (symptom != null) {
+            return repository.findBySymptom(symptom, after, page);
+        }
+        if (allergy != null) {
+            return repository.findByAllergy(allergy, after, page);
+        }
+        return findAll(after, limit);
+    }
+
+    /**
+     * Busca clínica: pacientes que atendem a uma consulta booleana sobre sintomas, alergias e
+     * situação (ver {@link ClinicalQuery}), resolvida no {@link ClinicalIndex} em memória.
+     *
+     * <p>Só os pacientes da fatia são lidos do banco, em uma consulta por 'ID'.</p>
+     *
+     * @param query A consulta, ex: {@code allergy:penicilina AND situation:HOSPITALIZED}.
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de pacientes na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @return Um {@link Slice} de entidades {@link Patient} ordenadas por 'ID'. Pode estar vazio,
+     * mas nunca {@code null}.
+     * @throws IllegalArgumentException Se a consulta for inválida ou {@code limit} não for positivo.
+     * @throws ClinicalIndexUnavailableException Se o índice ainda não estiver carregado.
+     */
+    public Slice<Patient> searchClinical(String query, long after, int limit){
+        Pageable page = KeysetPageRequest.of(limit);
+        ClinicalQuery parsed = ClinicalQuery.parse(query);
+        // Um a mais que a página para saber se existe a próxima
+        List<Long> ids = clinicalIndex.search(parsed, after, page.getPageSize() + 1);
+        boolean hasNext = ids.size() > page.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, page.getPageSize());
+        }
+        List<Patient> patients = ids.isEmpty() ? List.of() : repository.findByIdInOrderByIdAsc(ids);
+        return new SliceImpl<>(patients, page, hasNext);
+    }
+
+    /**
+     * Exporta todos os pacientes como NDJSON (um {@link Patient} por linha) na saída informada.
+     *
+     * <p>Os registros são lidos por cursor e escritos um a um pelo {@link NdjsonExporter},
+     * portanto a memória utilizada não depende da quantidade de registros.</p>
+     *
+     * @param out A saída da resposta HTTP.
+     * @return A quantidade de registros exportados.
+     * @throws IOException Se ocorrer erro de escrita na saída.
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(OutputStream out) throws IOException {
+        try (Stream<Patient> patients = repository.streamAll()) {
+            return exporter.export(patients, mapper::toPatientResponseDTO, out);
+        }
+    }
+
+    /**
+     * Atualiza os dados de um paciente.
+     *
+     * <p>A versão do registro é incrementada mesmo quando só o endereço muda, invalidando a
+     * ETag anterior. Com {@code expectedVersion}, a atualização só ocorre se o registro ainda
+     * estiver nessa versão (pré-condição {@code If-Match}).</p>
+     *
+     * @param newDto Os novos dados do paciente.
+     * @param patientId O 'ID' do paciente.
+     * @param expectedVersion A versão esperada, ou {@code null} para atualizar sem pré-condição.
+     * @return O paciente atualizado.
+     * @throws NoSuchElementException Se o paciente não existir.
+     * @throws PreconditionFailedException Se a versão atual for diferente de {@code expectedVersion}.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Patient updatePatient(@Valid PatientCreationDTO newDto, long patientId, Long expectedVersion){
 
         // 1. VALIDAÇÃO DE REGRA DE NEGÓCIO
 
-        var existingPatient = repository.findById(patientId).orElseThrow();
+        var existingPatient = repository.findForUpdateById(patientId).orElseThrow();
+        long previousVersion = existingPatient.getVersion();
+        if(expectedVersion != null && existingPatient.getVersion() != expectedVersion)
+            throw new PreconditionFailedException("Patient " + patientId + " was modified (current version " + existingPatient.getVersion() + ")");
         //Validação dos campos de Person via personService
         boolean result = personService.validatePersonInfo(newDto);
         if(!result)
@@ -116,14 +310,27 @@ public class PatientService {
         
         mapper.updatePatientFromDto(newDto, existingPatient);
 
-        return repository.save(existingPatient);
+        Patient savedPatient;
+        try {
+            savedPatient = repository.saveAndFlush(existingPatient);
+        } catch (DataIntegrityViolationException e) {
+            throw personService.uniqueKeyConflict(e, existingPatient);
+        }
+        // A versão forçada é gravada no commit, depois da entrada do cache
+        cacheEvictor.evictAfterCompletion(patientId);
+        personService.registerUniqueKeys(savedPatient);
+        clinicalIndex.indexAfterCommit(savedPatient, previousVersion);
+        return savedPatient;
 
     }
 
     @Transactional(rollbackFor = Exception.class)
     public void deletePatient(long patientId){
-        if(repository.findById(patientId).isPresent())
+        var patient = repository.findById(patientId);
+        if(patient.isPresent()) {
             repository.deleteById(patientId);
+            clinicalIndex.removeAfterCommit(patientId, patient.get().getVersion());
+        }
         else
             throw new NoSuchElementException("PATIENT NOT FOUND, nothing was deleted");
     }
@@ -0,0 +1,51 @@
+package com.ms.patient.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ms.patient.models.Person;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Remove uma pessoa do cache de segundo nível quando a transação atual terminar.
+ *
+ * <p>As atualizações e remoções comuns já mantêm o cache correto (estratégia {@code READ_WRITE}).
+ * A exceção é o incremento forçado da versão ({@code findForUpdateById}): o Hibernate o grava
+ * no fim da transação, depois de a entrada do cache já ter sido preparada, e a versão em cache
+ * ficaria para trás da do banco (ETag desatualizada e {@code If-Match} recusado).
+ * Remover a entrada ao fim da transação faz a próxima leitura buscar a versão gravada.</p>
+ */
+@Component
+public class PersonCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public PersonCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Agenda a remoção da pessoa (de qualquer subclasse) para o fim da transação atual,
+     * confirmada ou não. Sem transação ativa, remove imediatamente.
+     *
+     * @param personId O 'ID' da pessoa.
+     */
+    public void evictAfterCompletion(long personId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(personId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(personId);
+            }
+        });
+    }
+
+    private void evict(long personId) {
+        entityManagerFactory.getCache().evict(Person.class, personId);
+    }
+}
@@ -1,19 +1,50 @@
 package com.ms.patient.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ms.patient.dto.BatchLookupResultDTO;
+import com.ms.patient.dto.MedicCreationDTO;
 import com.ms.patient.dto.PersonCreationDTO;
 import com.ms.patient.dto.PersonEmailSenderDto;
+import com.ms.patient.dto.PersonResponseDTO;
+import com.ms.patient.dto.UniquenessConflictsDTO;
 import com.ms.patient.exceptions.CpfAlreadyExistsException;
+import com.ms.patient.exceptions.CrmInvalidException;
 import com.ms.patient.exceptions.EmailAlreadyExistsException;
 import com.ms.patient.exceptions.InvalidCpfException;
+import com.ms.patient.exceptions.PhoneAlreadyExistsException;
+import com.ms.patient.exceptions.RegistrationNumberAlreadyExistsException;
+import com.ms.patient.mappers.PersonMapper;
+import com.ms.patient.models.Assistant;
 import com.ms.patient.models.Person;
 import com.ms.patient.repositories.PersonRepository;
 import com.ms.patient.utils.CpfValidatorUtils;
+import com.ms.patient.utils.KeysetPageRequest;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
 
 /**
  * Serviço responsável por orquestrar a lógica de negócio (CRUD e validações)
@@ -22,54 +53,286 @@ import com.ms.patient.utils.CpfValidatorUtils;
  * <p>Esta classe gerencia a criação, validação (CPF e unicidade), busca e
  * manipulação da entidade Pessoa, servindo como camada de regras de negócio.</p>
  *
+ * <p>A unicidade é garantida pelas restrições {@code UNIQUE} do banco; a verificação prévia
+ * ({@link #validatePersonInfo}) apenas evita o INSERT quando o conflito já é conhecido. Dois
+ * cadastros simultâneos com o mesmo valor passam ambos pela verificação, e o segundo é
+ * recusado pelo banco e convertido na mesma exceção ({@link #uniqueKeyConflict}).</p>
+ *
+ * <p>Cada método público é medido no timer {@code medcare.service} (tags {@code class},
+ * {@code method} e {@code exception}), e cada conflito de unicidade encontrado é contado em
+ * {@code person.uniqueness.conflicts} (tags {@code key} e {@code source}).</p>
+ *
  * @author Lucas Edson Machado
  * @since 2025-11-17
  */
 @Service
+@Timed(value = "medcare.service", description = "Duração dos métodos públicos dos serviços")
 public class PersonService {
 
+    /** Quantidade máxima de 'IDs' aceita em uma busca em lote. */
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    /** Quantidade de 'IDs' por consulta {@code IN} nas buscas em lote. */
+    static final int BATCH_CHUNK_SIZE = 500;
+
     @Autowired
     private PersonRepository repository;
 
+    @Autowired
+    private PersonMapper mapper;
+
+    @Autowired
+    private NdjsonExporter exporter;
+
+    @Autowired
+    private UniquenessFilter uniquenessFilter;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
 
     /**
      * Cria e persiste uma nova pessoa no sistema, aplicando uma série de validações.
      *
      * <p>As validações incluem:
      * <ul>
-     * <li>Unicidade do e-mail.</li>
      * <li>Validação matemática do CPF (via {@link CpfValidatorUtils}).</li>
-     * <li>Unicidade do CPF no banco de dados.</li>
-     * </ul></p>
+     * <li>Unicidade do e-mail, CPF, telefone e, para Médicos, do CRM, verificadas em uma
+     * única consulta ao banco de dados.</li>
+     * </ul>
+     * A consulta é dispensada quando o {@link UniquenessFilter} garante que nenhum dos valores
+     * está cadastrado.</p>
      *
      * @param dto O DTO contendo os dados de criação da Pessoa.
-     * @return A entidade {@link Person} recém-salva com o 'ID' gerado.
+     * @return {@code true} se todas as validações passarem.
      * @throws EmailAlreadyExistsException Se o e-mail já estiver cadastrado.
      * @throws InvalidCpfException Se o CPF for matematicamente inválido.
      * @throws CpfAlreadyExistsException Se o CPF já estiver cadastrado no banco de dados.
+     * @throws PhoneAlreadyExistsException Se o telefone já estiver cadastrado.
+     * @throws CrmInvalidException Se o DTO for de Médico e o CRM já estiver cadastrado.
      */
     public boolean validatePersonInfo(PersonCreationDTO dto){
         //Validação de CPF
         String cpfToValidate = dto.getCpf();
-        //Validando se o e-mail é único
-        if (repository.existsByEmail(dto.getEmail())) {
-            throw new EmailAlreadyExistsException(""); 
+
+        // Validação matemática de CPF
+        if (!CpfValidatorUtils.isValidCpf(cpfToValidate)) {
+            throw new InvalidCpfException("O CPF é inválido. Verifique o formato ou os dígitos.");
         }
-        
-        // Validação matemática de CPF - comentado para facilitar testes iniciais
-//        if (!CpfValidatorUtils.isValidCpf(cpfToValidate)) {
-//            throw new InvalidCpfException("O CPF é inválido. Verifique o formato ou os dígitos.");
-//        }
 
-        // Validação de Unicidade (usando o CPF limpo)
-        String cleanCpf = cpfToValidate.replaceAll("[^0-9]", "");
-        if (repository.existsByCpf(cleanCpf)) {
-            throw new CpfAlreadyExistsException(cleanCpf); 
+        // Chave específica do papel, verificada na mesma consulta
+        String crm = dto instanceof MedicCreationDTO medic ? medic.getCrm() : null;
+
+        // Validação de Unicidade (usando CPF e telefone limpos) em um único round trip
+        String cleanCpf = CpfValidatorUtils.digitsOnly(cpfToValidate);
+        String cleanPhone = CpfValidatorUtils.digitsOnly(dto.getPhone());
+
+        // Se o filtro em memória garante que nenhum valor existe, a consulta é dispensada
+        if (!uniquenessFilter.mightConflict(dto.getEmail(), cleanCpf, cleanPhone, crm)) {
+            return true;
+        }
+        UniquenessConflictsDTO conflicts = repository.findConflicts(dto.getEmail(), cleanCpf, cleanPhone, crm);
+
+        if (conflicts.isEmail()) {
+            countConflict("email", "registered");
+            throw new EmailAlreadyExistsException(dto.getEmail());
+        }
+        if (conflicts.isCpf()) {
+            countConflict("cpf", "registered");
+            throw new CpfAlreadyExistsException(cleanCpf);
+        }
+        if (conflicts.isPhone()) {
+            countConflict("phone", "registered");
+            throw new PhoneAlreadyExistsException();
+        }
+        if (conflicts.isCrm()) {
+            countConflict("crm", "registered");
+            throw new CrmInvalidException("CRM already registered");
         }
 
         return true;
     }
 
+    /**
+     * Versão em lote de {@link #validatePersonInfo}: valida todos os itens com consultas por
+     * conjunto ({@code IN}) em vez de uma consulta por item, sem lançar exceção.
+     *
+     * <p>Para cada item são verificados, nesta ordem: as anotações de validação do DTO, o CPF,
+     * valores repetidos dentro do próprio lote (e-mail, CPF e telefone) e valores já
+     * cadastrados. Apenas os valores que o {@link UniquenessFilter} não descarta são
+     * consultados, em blocos de {@value #BATCH_CHUNK_SIZE}.</p>
+     *
+     * @param dtos Os itens a validar.
+     * @return Um array com o motivo da rejeição de cada item, na mesma ordem; {@code null}
+     * nas posições dos itens válidos.
+     */
+    public String[] validatePersonsInfo(List<? extends PersonCreationDTO> dtos){
+        int size = dtos.size();
+        String[] errors = new String[size];
+        String[] emails = new String[size];
+        String[] cpfs = new String[size];
+        String[] phones = new String[size];
+        Set<String> batchEmails = new HashSet<>();
+        Set<String> batchCpfs = new HashSet<>();
+        Set<String> batchPhones = new HashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            PersonCreationDTO dto = dtos.get(i);
+            if (dto == null) {
+                errors[i] = "item must not be null";
+                continue;
+            }
+            String violation = validator.validate(dto).stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .findFirst()
+                .orElse(null);
+            if (violation != null) {
+                errors[i] = violation;
+                continue;
+            }
+            if (!CpfValidatorUtils.isValidCpf(dto.getCpf())) {
+                errors[i] = "invalid cpf";
+                continue;
+            }
+
+            emails[i] = dto.getEmail().strip().toLowerCase(Locale.ROOT);
+            cpfs[i] = CpfValidatorUtils.digitsOnly(dto.getCpf());
+            phones[i] = CpfValidatorUtils.digitsOnly(dto.getPhone());
+            if (batchEmails.contains(emails[i])) {
+                errors[i] = "duplicate email in batch";
+                countConflict("email", "batch");
+            } else if (batchCpfs.contains(cpfs[i])) {
+                errors[i] = "duplicate cpf in batch";
+                countConflict("cpf", "batch");
+            } else if (batchPhones.contains(phones[i])) {
+                errors[i] = "duplicate phone in batch";
+                countConflict("phone", "batch");
+            } else {
+                batchEmails.add(emails[i]);
+                batchCpfs.add(cpfs[i]);
+                batchPhones.add(phones[i]);
+            }
+        }
+
+        Set<String> takenEmails = findExisting(UniquenessFilter.Key.EMAIL, emails, errors, repository::findExistingEmails);
+        Set<String> takenCpfs = findExisting(UniquenessFilter.Key.CPF, cpfs, errors, repository::findExistingCpfs);
+        Set<String> takenPhones = findExisting(UniquenessFilter.Key.PHONE, phones, errors, repository::findExistingPhones);
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            if (takenEmails.contains(emails[i])) {
+                errors[i] = "email already registered";
+                countConflict("email", "registered");
+            } else if (takenCpfs.contains(cpfs[i])) {
+                errors[i] = "cpf already registered";
+                countConflict("cpf", "registered");
+            } else if (takenPhones.contains(phones[i])) {
+                errors[i] = "phone already registered";
+                countConflict("phone", "registered");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Converte a violação de uma restrição {@code UNIQUE} de pessoa na exceção de conflito
+     * correspondente, a mesma lançada por {@link #validatePersonInfo}.
+     *
+     * <p>A restrição é identificada pelo nome ({@code uk_person_email}, {@code uk_person_cpf},
+     * {@code uk_person_phone}, {@code uk_medics_crm} ou {@code uk_employees_registration_number},
+     * ver migração V2), obtido do Hibernate ou,
+     * sem ele, da mensagem do banco.</p>
+     *
+     * @param e A exceção lançada no flush.
+     * @param person A pessoa que estava sendo gravada, ou {@code null} se não se sabe qual (lote).
+     * @return A exceção a lançar; a própria {@code e} se a restrição não for de unicidade de pessoa.
+     */
+    public RuntimeException uniqueKeyConflict(DataIntegrityViolationException e, Person person){
+        String constraint = violatedConstraint(e);
+        if (constraint.contains("uk_person_email")) {
+            countConflict("email", "constraint");
+            return new EmailAlreadyExistsException(person != null ? person.getEmail() : "email already registered");
+        }
+        if (constraint.contains("uk_person_cpf")) {
+            countConflict("cpf", "constraint");
+            return new CpfAlreadyExistsException(person != null ? person.getCpf() : "cpf already registered");
+        }
+        if (constraint.contains("uk_person_phone")) {
+            countConflict("phone", "constraint");
+            return new PhoneAlreadyExistsException();
+        }
+        if (constraint.contains("uk_medics_crm")) {
+            countConflict("crm", "constraint");
+            return new CrmInvalidException("CRM already registered");
+        }
+        if (constraint.contains("uk_employees_registration_number")) {
+            countConflict("registration_number", "constraint");
+            return new RegistrationNumberAlreadyExistsException(person instanceof Assistant assistant
+                ? assistant.getRegistrationNumber() : "registration number already registered");
+        }
+        return e;
+    }
+
+    // Nome da restrição violada (ou a mensagem do banco), em minúsculas
+    private static String violatedConstraint(DataIntegrityViolationException e){
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT);
+            }
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message == null ? "" : message.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Conta um conflito de unicidade.
+     *
+     * @param key A chave em conflito ({@code email}, {@code cpf}, {@code phone} ou {@code crm}).
+     * @param source {@code registered} se o valor já existe no banco, {@code batch} se repete outro item do
+     * mesmo lote, {@code constraint} se a gravação foi recusada pela restrição {@code UNIQUE}.
+     */
+    private void countConflict(String key, String source){
+        meterRegistry.counter("person.uniqueness.conflicts", "key", key, "source", source).increment();
+    }
+
+    /**
+     * Consulta, em blocos, quais dos valores dos itens ainda válidos já existem no banco,
+     * pulando os que o filtro em memória garante não existir. O retorno vem em minúsculas
+     * para comparar com a collation case-insensitive do MySQL.
+     */
+    private Set<String> findExisting(UniquenessFilter.Key key, String[] values, String[] errors,
+                                     Function<List<String>, List<String>> query){
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (errors[i] == null && uniquenessFilter.mightContain(key, values[i])) {
+                candidates.add(values[i]);
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = candidates.subList(from, Math.min(from + BATCH_CHUNK_SIZE, candidates.size()));
+            for (String value : query.apply(chunk)) {
+                existing.add(value.toLowerCase(Locale.ROOT));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Registra no filtro de unicidade em memória as chaves de uma pessoa recém-salva,
+     * para que cadastros seguintes com os mesmos valores sejam verificados no banco.
+     *
+     * @param person A entidade salva (Paciente, Médico ou Assistente).
+     */
+    public void registerUniqueKeys(Person person){
+        uniquenessFilter.register(person);
+    }
+
     /**
      * Busca uma pessoa pelo seu identificador único.
      *
@@ -81,31 +344,123 @@ public class PersonService {
         return repository.findById(id).orElseThrow(() -> new NoSuchElementException("NOT FOUND"));
     }
 
+    /**
+     * Versão atual da pessoa, lida sem carregar a entidade (ETag do endpoint de detalhe).
+     *
+     * @param id O 'ID' procurado.
+     * @return A versão, ou vazio se não existir.
+     */
+    public Optional<Long> findVersion(long id){
+        return repository.findVersionById(id);
+    }
+
     /**
      * Busca uma pessoa pelo seu 'ID' e mapeia os campos essenciais ('ID', e-mail, nome)
      * para um DTO específico de envio de e-mail.
      *
+     * <p>Usa uma consulta de projeção que lê apenas essas três colunas, sem carregar a entidade.</p>
+     *
      * @param id O 'ID' da pessoa para buscar.
      * @return O {@link PersonEmailSenderDto} contendo os dados necessários para o envio de e-mail.
      * @throws NoSuchElementException Se nenhuma pessoa for encontrada com o 'ID' fornecido.
      */
     public PersonEmailSenderDto findPersonByIdToSendEmail(long id){
-        PersonEmailSenderDto personEmailSenderDto = new PersonEmailSenderDto();
-        Person person = repository.findById(id).orElseThrow(() -> new NoSuchElementException("NOT FOUND"));
-        personEmailSenderDto.setId(person.getId());
-        personEmailSenderDto.setEmail(person.getEmail());
-        personEmailSenderDto.setNome(person.getName());
-        return personEmailSenderDto;
+        return repository.findEmailSenderById(id).orElseThrow(() -> new NoSuchElementException("NOT FOUND"));
     }
 
     /**
-     * Retorna uma lista contendo todas as pessoas cadastradas no sistema.
+     * Busca várias pessoas pelos 'IDs' em poucas consultas, para chamadas entre serviços.
+     *
+     * <p>Os 'IDs' repetidos são consultados uma única vez e a busca é dividida em consultas
+     * {@code IN} de até {@value #BATCH_CHUNK_SIZE} 'IDs'. O resultado segue a ordem da
+     * requisição, com os 'IDs' inexistentes marcados como não encontrados.</p>
      *
-     * @return Uma {@link List} de entidades {@link Person}. Pode ser uma lista vazia,
+     * @param ids Os 'IDs' procurados (no máximo {@value #MAX_BATCH_SIZE}).
+     * @return Um {@link BatchLookupResultDTO} por 'ID' pedido, na mesma ordem.
+     * @throws IllegalArgumentException Se a lista for vazia, maior que o limite ou contiver {@code null}.
+     */
+    public List<BatchLookupResultDTO<PersonResponseDTO>> findPersonsByIds(List<Long> ids){
+        Map<Long, Person> persons = loadInChunks(ids, repository::findByIdIn, Person::getId);
+        return toBatchResult(ids, persons, mapper::toDtoResponse);
+    }
+
+    /**
+     * Versão em lote de {@link #findPersonByIdToSendEmail(long)}, usando a consulta de projeção
+     * (apenas 'ID', e-mail e nome).
+     *
+     * @param ids Os 'IDs' procurados (no máximo {@value #MAX_BATCH_SIZE}).
+     * @return Um {@link BatchLookupResultDTO} por 'ID' pedido, na mesma ordem.
+     * @throws IllegalArgumentException Se a lista for vazia, maior que o limite ou contiver {@code null}.
+     */
+    public List<BatchLookupResultDTO<PersonEmailSenderDto>> findPersonsToSendEmailByIds(List<Long> ids){
+        Map<Long, PersonEmailSenderDto> persons = loadInChunks(ids, repository::findEmailSendersByIdIn, PersonEmailSenderDto::getId);
+        return toBatchResult(ids, persons, Function.identity());
+    }
+
+    /**
+     * Valida a lista de 'IDs', remove repetidos e executa a consulta em blocos de {@value #BATCH_CHUNK_SIZE}.
+     */
+    private <T> Map<Long, T> loadInChunks(List<Long> ids, Function<List<Long>, List<T>> query, Function<T, Long> idOf){
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("at most " + MAX_BATCH_SIZE + " ids are allowed per request");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null values");
+        }
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, T> found = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, distinctIds.size()));
+            for (T row : query.apply(chunk)) {
+                found.put(idOf.apply(row), row);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Monta a resposta na ordem da requisição, marcando os 'IDs' não encontrados.
+     */
+    private <T, D> List<BatchLookupResultDTO<D>> toBatchResult(List<Long> ids, Map<Long, T> found, Function<T, D> toDto){
+        List<BatchLookupResultDTO<D>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = found.get(id);
+            results.add(row == null ? BatchLookupResultDTO.missing(id) : BatchLookupResultDTO.found(id, toDto.apply(row)));
+        }
+        return results;
+    }
+
+    /**
+     * Retorna uma fatia das pessoas cadastradas, paginada por cursor (keyset pagination).
+     *
+     * @param after O último 'ID' já lido pelo cliente (0 para a primeira página).
+     * @param limit A quantidade máxima de pessoas na fatia (limitada a {@link KeysetPageRequest#MAX_LIMIT}).
+     * @return Um {@link Slice} de entidades {@link Person} ordenadas por 'ID'. Pode estar vazio,
      * mas nunca {@code null}.
      */
-    public List<Person> findAll(){
-        return repository.findAll();
+    public Slice<Person> findAll(long after, int limit){
+        return repository.findByIdGreaterThanOrderByIdAsc(after, KeysetPageRequest.of(limit));
+    }
+
+    /**
+     * Exporta todas as pessoas como NDJSON (um {@link Person} por linha) na saída informada.
+     *
+     * <p>Os registros são lidos por cursor e escritos um a um pelo {@link NdjsonExporter},
+     * portanto a memória utilizada não depende da quantidade de registros.</p>
+     *
+     * @param out A saída da resposta HTTP.
+     * @return A quantidade de registros exportados.
+     * @throws IOException Se ocorrer erro de escrita na saída.
+     */
+    @Transactional(readOnly = true)
+    public long exportAll(OutputStream out) throws IOException {
+        try (Stream<Person> persons = repository.streamAll()) {
+            return exporter.export(persons, mapper::toDtoResponse, out);
+        }
     }
 
     /**
@@ -0,0 +1,185 @@
+package com.ms.patient.service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ms.patient.models.Medic;
+import com.ms.patient.models.Person;
+import com.ms.patient.repositories.MedicRepository;
+import com.ms.patient.repositories.PersonRepository;
+import com.ms.patient.utils.BloomFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Filtro em memória (um {@link BloomFilter} por chave única) que evita a consulta de
+ * unicidade ao banco quando todos os valores informados <b>certamente não</b> existem.
+ *
+ * <p>Os filtros são preenchidos na inicialização lendo as tabelas {@code person} e
+ * {@code medics}, e atualizados a cada pessoa salva via {@link #register(Person)}.
+ * Enquanto a carga inicial não termina (ou se ela falhar), {@link #mightConflict}
+ * responde sempre {@code true} e a verificação segue para o banco.</p>
+ *
+ * <p><b>Atenção:</b> cada instância do serviço conhece apenas o que leu na inicialização
+ * e o que ela mesma salvou. Com várias instâncias, um cadastro feito em outro nó pode
+ * ser considerado "ausente" aqui; nesse caso a garantia de unicidade fica a cargo das
+ * restrições {@code UNIQUE} do banco, cuja violação é convertida na mesma exceção de
+ * conflito ({@link PersonService#uniqueKeyConflict}).</p>
+ */
+@Component
+public class UniquenessFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UniquenessFilter.class);
+
+    /** Chaves únicas acompanhadas pelo filtro. */
+    public enum Key { EMAIL, CPF, PHONE, CRM }
+
+    private final PersonRepository personRepository;
+    private final MedicRepository medicRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Map<Key, BloomFilter> filters = new EnumMap<>(Key.class);
+    private final Counter skipped;
+    private final Counter probed;
+
+    private volatile boolean ready;
+
+    public UniquenessFilter(PersonRepository personRepository, MedicRepository medicRepository,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${medcare.uniqueness.filter.enabled:true}") boolean enabled,
+                            @Value("${medcare.uniqueness.filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${medcare.uniqueness.filter.fpp:0.01}") double fpp) {
+        this.personRepository = personRepository;
+        this.medicRepository = medicRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+
+        for (Key key : Key.values()) {
+            BloomFilter filter = new BloomFilter(expectedInsertions, fpp);
+            filters.put(key, filter);
+            String tag = key.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("uniqueness.filter.size", filter, BloomFilter::sizeInBytes)
+                .description("Memória ocupada pelo filtro de unicidade")
+                .baseUnit("bytes")
+                .tag("key", tag)
+                .register(meterRegistry);
+            Gauge.builder("uniqueness.filter.expected.fpp", filter, BloomFilter::expectedFpp)
+                .description("Taxa de falso positivo estimada com a ocupação atual")
+                .tag("key", tag)
+                .register(meterRegistry);
+        }
+        Gauge.builder("uniqueness.filter.configured.fpp", () -> fpp)
+            .description("Taxa de falso positivo configurada")
+            .register(meterRegistry);
+        Gauge.builder("uniqueness.filter.ready", this, filter -> filter.ready ? 1 : 0)
+            .description("1 quando a carga inicial do filtro terminou")
+            .register(meterRegistry);
+        this.skipped = Counter.builder("uniqueness.filter.checks")
+            .description("Verificações de unicidade resolvidas pelo filtro (skipped) ou enviadas ao banco (probed)")
+            .tag("result", "skipped")
+            .register(meterRegistry);
+        this.probed = Counter.builder("uniqueness.filter.checks")
+            .description("Verificações de unicidade resolvidas pelo filtro (skipped) ou enviadas ao banco (probed)")
+            .tag("result", "probed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Carrega os valores já cadastrados assim que a aplicação fica pronta. Pessoas salvas
+     * durante a carga também são registradas, então nenhuma é perdida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = personRepository.streamUniqueKeys()) {
+                    rows.forEach(row -> {
+                        put(Key.EMAIL, (String) row[0]);
+                        put(Key.CPF, (String) row[1]);
+                        put(Key.PHONE, (String) row[2]);
+                    });
+                }
+                try (Stream<String> crms = medicRepository.streamCrms()) {
+                    crms.forEach(crm -> put(Key.CRM, crm));
+                }
+            });
+            ready = true;
+        } catch (RuntimeException e) {
+            log.warn("Uniqueness filter warm-up failed; every check will query the database", e);
+        }
+    }
+
+    /**
+     * Indica se algum dos valores pode já estar cadastrado. Valores {@code null} são ignorados.
+     *
+     * @return {@code false} somente quando todos os valores certamente não existem e a
+     * consulta ao banco pode ser evitada; {@code true} caso contrário.
+     */
+    public boolean mightConflict(String email, String cpf, String phone, String crm) {
+        boolean result = !ready
+            || filterMightContain(Key.EMAIL, email)
+            || filterMightContain(Key.CPF, cpf)
+            || filterMightContain(Key.PHONE, phone)
+            || filterMightContain(Key.CRM, crm);
+        (result ? probed : skipped).increment();
+        return result;
+    }
+
+    /**
+     * Versão por chave de {@link #mightConflict}, usada pela validação em lote para consultar
+     * no banco apenas os valores que talvez existam.
+     *
+     * @return {@code false} somente quando o valor certamente não existe.
+     */
+    public boolean mightContain(Key key, String value) {
+        return !ready || filterMightContain(key, value);
+    }
+
+    /**
+     * Registra as chaves únicas de uma pessoa recém-salva (ou atualizada).
+     *
+     * @param person A entidade salva; CRM é registrado quando for um {@link Medic}.
+     */
+    public void register(Person person) {
+        if (!enabled || person == null) {
+            return;
+        }
+        put(Key.EMAIL, person.getEmail());
+        put(Key.CPF, person.getCpf());
+        put(Key.PHONE, person.getPhone());
+        if (person instanceof Medic medic) {
+            put(Key.CRM, medic.getCrm());
+        }
+    }
+
+    private void put(Key key, String value) {
+        filters.get(key).put(normalize(value));
+    }
+
+    private boolean filterMightContain(Key key, String value) {
+        return value != null && filters.get(key).mightContain(normalize(value));
+    }
+
+    // O MySQL compara com collation case-insensitive e ignora espaços à direita;
+    // normalizar evita que "A@x.com" seja considerado ausente quando "a@x.com" existe.
+    private static String normalize(String value) {
+        return value == null ? null : value.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,189 @@
+package com.ms.patient.utils;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reserva blocos de valores sequenciais (alocação hi/lo) nas tabelas de contadores
+ * ({@code name}, {@code next_value}), {@code id_generators} e {@code number_blocks}, sem nunca abrir
+ * uma transação aninhada na thread da requisição.
+ *
+ * <p>Cada reserva trava a linha do contador ({@code select ... for update}), avança o valor e confirma
+ * em uma conexão de um pool próprio e pequeno ({@code medcare.block-allocator.pool-size}), separado do
+ * pool da aplicação: uma requisição que já segura uma conexão do pool principal nunca espera por outra
+ * conexão do mesmo pool, o que esgotaria o pool com cadastros simultâneos. Além disso, cada
+ * {@link Sequence} reserva o bloco seguinte em segundo plano quando o atual chega à metade, então a
+ * requisição normalmente não espera reserva nenhuma.</p>
+ *
+ * <p>{@code next_value} guarda o próximo valor livre; um bloco é o intervalo {@code [início, fim)}.
+ * Valores de um bloco não usados antes de um reinício são descartados.</p>
+ */
+@Component
+public class BlockAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockAllocator.class);
+
+    private final HikariDataSource ownPool;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "block-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BlockAllocator(DataSource dataSource, @Value("${medcare.block-allocator.pool-size:2}") int poolSize) {
+        this.ownPool = ownPool(dataSource, poolSize);
+        DataSource counters = ownPool != null ? ownPool : dataSource;
+        this.jdbcTemplate = new JdbcTemplate(counters);
+        this.transaction = new TransactionTemplate(new DataSourceTransactionManager(counters));
+    }
+
+    // Mesma configuração do pool principal, com poucas conexões; iniciado só na primeira reserva.
+    // Fora do Hikari (testes com DataSource simples), cada reserva já abre uma conexão nova.
+    private static HikariDataSource ownPool(DataSource dataSource, int poolSize) {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return null;
+            }
+            HikariDataSource pool = new HikariDataSource();
+            dataSource.unwrap(HikariDataSource.class).copyStateTo(pool);
+            pool.setPoolName("block-allocator");
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMinimumIdle(0);
+            return pool;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the block allocator pool", e);
+        }
+    }
+
+    /**
+     * Cria uma sequência sobre um contador.
+     *
+     * @param table Tabela de contadores ({@code name}, {@code next_value}).
+     * @param name Nome do contador; a linha é criada com {@code firstValue} se não existir.
+     * @param firstValue Primeiro valor de um contador novo.
+     * @param limit Limite exclusivo dos valores.
+     * @param blockSize Quantidade de valores reservados por vez.
+     * @return A sequência, que deve ser compartilhada por todos que usam o contador nesta instância.
+     */
+    public Sequence sequence(String table, String name, long firstValue, long limit, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("block-size must be positive");
+        }
+        return new Sequence(table, name, firstValue, limit, blockSize);
+    }
+
+    @PreDestroy
+    public void close() {
+        prefetcher.shutdownNow();
+        if (ownPool != null) {
+            ownPool.close();
+        }
+    }
+
+    // Se dois nós criarem o contador ao mesmo tempo, um deles falha na chave primária e tenta de novo.
+    private Block reserve(Sequence sequence) {
+        try {
+            return transaction.execute(status -> reserveLocked(sequence));
+        } catch (DuplicateKeyException e) {
+            return transaction.execute(status -> reserveLocked(sequence));
+        }
+    }
+
+    private Block reserveLocked(Sequence sequence) {
+        List<Long> current = jdbcTemplate.queryForList(
+            "select next_value from " + sequence.table + " where name = ? for update", Long.class, sequence.name);
+        long start;
+        if (current.isEmpty()) {
+            jdbcTemplate.update("insert into " + sequence.table + " (name, next_value) values (?, ?)",
+                sequence.name, sequence.firstValue);
+            start = sequence.firstValue;
+        } else {
+            start = current.get(0);
+        }
+        if (start >= sequence.limit) {
+            throw new IllegalStateException("Counter " + sequence.name + " is exhausted");
+        }
+        long end = Math.min(start + sequence.blockSize, sequence.limit);
+        jdbcTemplate.update("update " + sequence.table + " set next_value = ? where name = ?", end, sequence.name);
+        return new Block(start, end);
+    }
+
+    /**
+     * Valores de um contador, distribuídos localmente a partir do bloco reservado.
+     */
+    public final class Sequence {
+
+        private final String table;
+        private final String name;
+        private final long firstValue;
+        private final long limit;
+        private final int blockSize;
+
+        private long next;
+        private long end;
+        private CompletableFuture<Block> prefetched;
+
+        private Sequence(String table, String name, long firstValue, long limit, int blockSize) {
+            this.table = table;
+            this.name = name;
+            this.firstValue = firstValue;
+            this.limit = limit;
+            this.blockSize = blockSize;
+        }
+
+        /**
+         * @return O próximo valor, único entre todos os nós.
+         * @throws IllegalStateException Se o contador chegou ao limite.
+         */
+        public synchronized long next() {
+            if (next == end) {
+                Block block = take();
+                next = block.start();
+                end = block.end();
+            }
+            long value = next++;
+            if (prefetched == null && end - next <= blockSize / 2) {
+                prefetched = CompletableFuture.supplyAsync(() -> reserve(this), prefetcher);
+            }
+            return value;
+        }
+
+        // Usa o bloco reservado em segundo plano; se a reserva falhou, tenta de novo nesta thread
+        private Block take() {
+            CompletableFuture<Block> pending = prefetched;
+            prefetched = null;
+            if (pending != null) {
+                try {
+                    return pending.join();
+                } catch (CompletionException e) {
+                    log.warn("Prefetch of counter {} failed, reserving again: {}", name, e.getCause().toString());
+                }
+            }
+            return reserve(this);
+        }
+    }
+
+    private record Block(long start, long end) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.ms.patient.utils;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Gera o 'ID' da entidade em blocos do contador {@link #name()} da tabela {@code id_generators},
+ * reservados pelo {@link BlockAllocator} fora da transação da requisição (ver {@link BlockIdGenerator}).
+ */
+@IdGeneratorType(BlockIdGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface BlockId {
+
+    /** Nome do contador em {@code id_generators}. */
+    String name();
+
+    /** Quantidade de 'IDs' reservados por vez. */
+    int blockSize() default 50;
+}
@@ -0,0 +1,58 @@
+package com.ms.patient.utils;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+/**
+ * Gerador dos 'IDs' anotados com {@link BlockId}.
+ *
+ * <p>Substitui o {@code @TableGenerator}, cuja reserva roda em uma segunda conexão do pool principal
+ * enquanto a transação da requisição segura a sua: com cadastros simultâneos, as threads esgotam o
+ * pool esperando umas pelas outras. Aqui a reserva é do {@link BlockAllocator}, com pool próprio e
+ * feita antes do bloco atual acabar. Os 'IDs' continuam conhecidos antes do insert, o que mantém os
+ * inserts em lote JDBC.</p>
+ *
+ * <p>O {@link BlockAllocator} chega pela configuração do Hibernate, em {@value #ALLOCATOR_SETTING}
+ * (ver {@code BlockIdConfig}).</p>
+ */
+public class BlockIdGenerator implements BeforeExecutionGenerator {
+
+    /** Configuração do Hibernate com o {@link BlockAllocator} da aplicação. */
+    public static final String ALLOCATOR_SETTING = "medcare.block-allocator";
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final transient BlockAllocator.Sequence sequence;
+
+    public BlockIdGenerator(BlockId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.name = config.name();
+        Object allocator = context.getServiceRegistry().requireService(ConfigurationService.class)
+            .getSettings().get(ALLOCATOR_SETTING);
+        // Sem o alocador (ex: só validação do esquema), a falha fica para o primeiro insert
+        this.sequence = allocator instanceof BlockAllocator blockAllocator
+            ? blockAllocator.sequence("id_generators", name, 1, Long.MAX_VALUE, config.blockSize())
+            : null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        if (sequence == null) {
+            throw new IllegalStateException("No BlockAllocator configured for id generator " + name);
+        }
+        return sequence.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
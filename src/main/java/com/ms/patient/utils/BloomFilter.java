@@ -0,0 +1,111 @@
+package com.ms.patient.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom simples e seguro para uso concorrente, usado para responder rapidamente
+ * se um valor <b>certamente não</b> foi inserido.
+ *
+ * <p>{@link #mightContain(String)} nunca retorna {@code false} para um valor inserido;
+ * {@code true} significa apenas "talvez presente" e deve ser confirmado na fonte real.
+ * O tamanho é calculado a partir da quantidade esperada de inserções e da taxa de falso
+ * positivo desejada; ultrapassar a quantidade esperada aumenta a taxa real, que pode ser
+ * acompanhada por {@link #expectedFpp()}.</p>
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong bitCount = new AtomicLong();
+
+    /**
+     * @param expectedInsertions Quantidade de valores esperada (deve ser positiva).
+     * @param fpp Taxa de falso positivo desejada, entre 0 e 1 (exclusivo).
+     * @throws IllegalArgumentException Se algum parâmetro estiver fora do intervalo.
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("fpp must be between 0 and 1");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Insere um valor no filtro. Valores {@code null} são ignorados.
+     */
+    public void put(String value) {
+        if (value == null) {
+            return;
+        }
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            long mask = 1L << index;
+            long previous = words.getAndAccumulate((int) (index >>> 6), mask, (current, m) -> current | m);
+            if ((previous & mask) == 0) {
+                bitCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} se o valor certamente nunca foi inserido; {@code true} se talvez tenha sido.
+     */
+    public boolean mightContain(String value) {
+        if (value == null) {
+            return false;
+        }
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return A taxa de falso positivo estimada com a ocupação atual do filtro.
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    /**
+     * @return A memória ocupada pelo vetor de bits, em bytes.
+     */
+    public long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres, seguido de uma mistura (finalizador do MurmurHash3)
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
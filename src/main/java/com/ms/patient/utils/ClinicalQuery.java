@@ -0,0 +1,331 @@
+package com.ms.patient.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import com.ms.patient.enums.PatientSituation;
+
+/**
+ * Consulta booleana sobre sintomas, alergias e situação dos pacientes, avaliada sobre os
+ * bitmaps do índice clínico ({@link com.ms.patient.service.ClinicalIndex}).
+ *
+ * <p>Sintaxe: termos {@code campo:valor} ({@code symptom}, {@code allergy} ou {@code situation};
+ * valores com espaço entre aspas) combinados com {@code AND}, {@code OR}, {@code NOT} e
+ * parênteses. {@code NOT} tem a maior precedência e {@code OR} a menor; termos lado a lado
+ * equivalem a {@code AND}. Exemplo:
+ * {@code allergy:penicilina AND (situation:HOSPITALIZED OR situation:CRITICAL) AND NOT symptom:"dor de cabeça"}.</p>
+ *
+ * <p>Sintomas e alergias são comparados sem diferenciar maiúsculas nem espaços nas pontas
+ * ({@link #normalize(String)}); a situação precisa ser um valor de {@link PatientSituation}.</p>
+ */
+public final class ClinicalQuery {
+
+    /** Tamanho máximo aceito para a consulta (limita também o aninhamento de parênteses). */
+    public static final int MAX_LENGTH = 1000;
+
+    /** Campos pesquisáveis. */
+    public enum Field { SYMPTOM, ALLERGY, SITUATION }
+
+    /**
+     * Origem dos bitmaps de 'ID's de pacientes. Os bitmaps retornados não são alterados
+     * pela avaliação.
+     */
+    public interface Postings {
+
+        /**
+         * @param field O campo do termo.
+         * @param term O valor já normalizado (nome da constante, para {@link Field#SITUATION}).
+         * @return Os pacientes com o termo, ou {@code null} se nenhum o tiver.
+         */
+        RoaringBitmap of(Field field, String term);
+
+        /** Todos os pacientes indexados (universo do {@code NOT}). */
+        RoaringBitmap all();
+    }
+
+    private final Node root;
+
+    private ClinicalQuery(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Interpreta a consulta.
+     *
+     * @param query O texto da consulta.
+     * @return A consulta pronta para avaliação.
+     * @throws IllegalArgumentException Se a consulta estiver vazia, for longa demais ou tiver
+     * erro de sintaxe, campo ou situação desconhecidos.
+     */
+    public static ClinicalQuery parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("query must not be empty");
+        }
+        if (query.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("query must have at most " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(tokenize(query));
+        Node root = parser.or();
+        if (parser.hasNext()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.peek().text() + "' in query");
+        }
+        return new ClinicalQuery(root);
+    }
+
+    /**
+     * Avalia a consulta.
+     *
+     * @param postings Os bitmaps do índice; precisam ficar estáveis durante a avaliação.
+     * @return Um bitmap novo (não compartilhado com o índice) com os 'ID's que atendem à consulta.
+     */
+    public RoaringBitmap evaluate(Postings postings) {
+        RoaringBitmap result = root.evaluate(postings);
+        // Só um termo isolado devolve o bitmap do próprio índice
+        return root instanceof Term ? result.clone() : result;
+    }
+
+    /**
+     * Forma usada para comparar valores de sintomas e alergias.
+     *
+     * @param term O valor informado ou cadastrado.
+     * @return O valor sem espaços nas pontas e em minúsculas.
+     */
+    public static String normalize(String term) {
+        return term.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /** A consulta com precedência explícita (ex: {@code (symptom:febre AND NOT allergy:dipirona)}). */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    private interface Node {
+        RoaringBitmap evaluate(Postings postings);
+    }
+
+    private record Term(Field field, String value) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Postings postings) {
+            RoaringBitmap bitmap = postings.of(field, value);
+            return bitmap == null ? new RoaringBitmap() : bitmap;
+        }
+
+        @Override
+        public String toString() {
+            String text = value.chars().anyMatch(c -> Character.isWhitespace(c) || c == '(' || c == ')')
+                ? '"' + value + '"' : value;
+            return field.name().toLowerCase(Locale.ROOT) + ":" + text;
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Postings postings) {
+            return RoaringBitmap.andNot(postings.all(), operand.evaluate(postings));
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    private record And(List<Node> operands) implements Node {
+        // Interseção dos termos positivos (do menor para o maior), depois a diferença dos negados:
+        // "a AND NOT b" não precisa materializar o complemento de b
+        @Override
+        public RoaringBitmap evaluate(Postings postings) {
+            List<RoaringBitmap> included = new ArrayList<>();
+            List<Node> excluded = new ArrayList<>();
+            for (Node operand : operands) {
+                if (operand instanceof Not not) {
+                    excluded.add(not.operand());
+                } else {
+                    included.add(operand.evaluate(postings));
+                }
+            }
+            RoaringBitmap result;
+            if (included.isEmpty()) {
+                result = postings.all().clone();
+            } else {
+                included.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+                result = included.size() == 1 ? included.get(0).clone()
+                    : FastAggregation.and(included.toArray(RoaringBitmap[]::new));
+            }
+            for (Node operand : excluded) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result.andNot(operand.evaluate(postings));
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream().map(Node::toString).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    private record Or(List<Node> operands) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Postings postings) {
+            return FastAggregation.or(operands.stream().map(operand -> operand.evaluate(postings)).toArray(RoaringBitmap[]::new));
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream().map(Node::toString).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+
+    private enum TokenType { OPEN, CLOSE, AND, OR, NOT, TERM }
+
+    private record Token(TokenType type, String text) {}
+
+    // Separa parênteses, operadores e termos; um valor entre aspas pode conter espaços e parênteses
+    private static List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.OPEN, "("));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenType.CLOSE, ")"));
+                i++;
+            } else {
+                int start = i;
+                while (i < query.length() && !Character.isWhitespace(query.charAt(i))
+                        && query.charAt(i) != '(' && query.charAt(i) != ')' && query.charAt(i) != '"') {
+                    i++;
+                }
+                String word = query.substring(start, i);
+                if (i < query.length() && query.charAt(i) == '"') {
+                    if (!word.endsWith(":")) {
+                        throw new IllegalArgumentException("Quoted values must follow a field, as in symptom:\"dor de cabeça\"");
+                    }
+                    int end = query.indexOf('"', i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated quote in query");
+                    }
+                    tokens.add(new Token(TokenType.TERM, word + query.substring(i + 1, end)));
+                    i = end + 1;
+                } else {
+                    tokens.add(keyword(word));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static Token keyword(String word) {
+        for (TokenType type : List.of(TokenType.AND, TokenType.OR, TokenType.NOT)) {
+            if (type.name().equalsIgnoreCase(word)) {
+                return new Token(type, word);
+            }
+        }
+        return new Token(TokenType.TERM, word);
+    }
+
+    private static Term term(String text) {
+        int separator = text.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Expected field:value but found '" + text + "'");
+        }
+        String name = text.substring(0, separator);
+        String value = text.substring(separator + 1).strip();
+        Field field;
+        try {
+            field = Field.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field '" + name + "' (expected symptom, allergy or situation)");
+        }
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing value for field '" + name + "'");
+        }
+        if (field == Field.SITUATION) {
+            try {
+                return new Term(field, PatientSituation.valueOf(value.toUpperCase(Locale.ROOT)).name());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown patient situation '" + value + "'");
+            }
+        }
+        return new Term(field, normalize(value));
+    }
+
+    // or := and (OR and)* ; and := unary ([AND] unary)* ; unary := NOT unary | primary ; primary := ( or ) | term
+    private static final class Parser {
+
+        private final List<Token> tokens;
+        private int position;
+
+        private Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return position < tokens.size();
+        }
+
+        Token peek() {
+            return tokens.get(position);
+        }
+
+        private boolean accept(TokenType type) {
+            if (hasNext() && peek().type() == type) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        Node or() {
+            List<Node> operands = new ArrayList<>(List.of(and()));
+            while (accept(TokenType.OR)) {
+                operands.add(and());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        private Node and() {
+            List<Node> operands = new ArrayList<>(List.of(unary()));
+            while (hasNext() && peek().type() != TokenType.OR && peek().type() != TokenType.CLOSE) {
+                accept(TokenType.AND);
+                operands.add(unary());
+            }
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+
+        private Node unary() {
+            if (accept(TokenType.NOT)) {
+                return new Not(unary());
+            }
+            if (!hasNext()) {
+                throw new IllegalArgumentException("Unexpected end of query");
+            }
+            Token token = tokens.get(position++);
+            if (token.type() == TokenType.OPEN) {
+                Node inner = or();
+                if (!accept(TokenType.CLOSE)) {
+                    throw new IllegalArgumentException("Missing ')' in query");
+                }
+                return inner;
+            }
+            if (token.type() != TokenType.TERM) {
+                throw new IllegalArgumentException("Unexpected '" + token.text() + "' in query");
+            }
+            return term(token.text());
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.ms.patient.utils;
 
-import java.util.InputMismatchException;
-
 /**
  * Classe de utilidade (Utility Class) contendo métodos estáticos para
  * realizar a validação matemática e de formato do Cadastro de Pessoas Físicas (CPF) brasileiro.
  *
  * <p>Esta validação segue a regra dos dígitos verificadores (DV1 e DV2).</p>
+ *
+ * <p>Os métodos percorrem a entrada uma única vez, caractere a caractere, sem expressões
+ * regulares nem {@code substring}/{@code parseInt}; {@link #isValidCpf} não aloca memória e
+ * {@link #digitsOnly} só cria uma nova {@link String} quando a entrada tem máscara.</p>
  */
 public class CpfValidatorUtils {
 
@@ -16,11 +18,11 @@ public class CpfValidatorUtils {
     }
 
     /**
-     * Remove a máscara e verifica a validade matemática de um CPF.
+     * Ignora a máscara e verifica a validade matemática de um CPF.
      *
-     * <p>Executa as seguintes etapas:
+     * <p>Executa as seguintes etapas, em uma única passada:
      * <ul>
-     * <li>Limpa a string, removendo caracteres não numéricos.</li>
+     * <li>Ignora caracteres não numéricos (pontos, traços, espaços).</li>
      * <li>Verifica o tamanho (deve ter 11 dígitos).</li>
      * <li>Bloqueia CPFs com todos os dígitos iguais (ex: 111.111.111-11).</li>
      * <li>Calcula o primeiro e o segundo dígito verificador e compara com os dígitos fornecidos.</li>
@@ -29,82 +31,101 @@ public class CpfValidatorUtils {
      * @param cpf O CPF a ser validado, podendo conter máscara (pontos e traços).
      * @return {@code true} se o CPF for válido conforme as regras matemáticas e de formato, {@code false} caso contrário.
      */
-    public static boolean isValidCpf(String cpf) {
+    public static boolean isValidCpf(CharSequence cpf) {
         if (cpf == null) {
             return false;
         }
 
-        // 1. Limpeza: Remove a máscara (deixa apenas dígitos)
-        String cleanCpf = cpf.replaceAll("[^0-9]", "");
-
-        // 2. Validação de Tamanho
-        if (cleanCpf.length() != 11) {
-            return false;
-        }
-
-        // 3. Validação de Sequência (CPFs com todos os dígitos iguais são inválidos)
-        if (cleanCpf.matches("(\\d)\\1{10}")) {
-            return false;
-        }
-
-        try {
-            // Extrai os 9 primeiros dígitos (Base)
-            long cpfBase = Long.parseLong(cleanCpf.substring(0, 9));
-            // Extrai os 2 dígitos verificadores fornecidos
-            int providedDv1 = Integer.parseInt(cleanCpf.substring(9, 10));
-            int providedDv2 = Integer.parseInt(cleanCpf.substring(10, 11));
-
-            // Calcula o primeiro DV
-            int calculatedDv1 = calculateDv(String.valueOf(cpfBase), 10);
-
-            // Se o primeiro não bate, já é inválido
-            if (calculatedDv1 != providedDv1) {
+        int count = 0;
+        int first = -1;
+        boolean allEqual = true;
+        // soma1: pesos 10..2 sobre os 9 primeiros dígitos; soma2: pesos 11..2 sobre os 10 primeiros
+        int sum1 = 0;
+        int sum2 = 0;
+        int dv1 = 0;
+        int dv2 = 0;
+
+        for (int i = 0; i < cpf.length(); i++) {
+            int digit = cpf.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                continue;
+            }
+            if (count == 11) {
                 return false;
             }
+            if (first < 0) {
+                first = digit;
+            } else if (digit != first) {
+                allEqual = false;
+            }
+            if (count < 9) {
+                sum1 += digit * (10 - count);
+            }
+            if (count < 10) {
+                sum2 += digit * (11 - count);
+            }
+            if (count == 9) {
+                dv1 = digit;
+            } else if (count == 10) {
+                dv2 = digit;
+            }
+            count++;
+        }
 
-            // Calcula o segundo DV (usa os 9 dígitos base + o primeiro DV calculado)
-            int calculatedDv2 = calculateDv(String.valueOf(cpfBase) + calculatedDv1, 11);
-
-            // Verifica se o segundo DV bate
-            return calculatedDv2 == providedDv2;
-
-        } catch (NumberFormatException | InputMismatchException e) {
-            // Caso ocorra algum erro de parsing, o CPF é inválido
+        if (count != 11 || allEqual) {
             return false;
         }
+        // O segundo DV é calculado sobre a base + o primeiro DV. A soma2 usou o primeiro DV
+        // fornecido, que só é aceito se for igual ao calculado.
+        return checkDigit(sum1) == dv1 && checkDigit(sum2) == dv2;
     }
 
     /**
-     * Método auxiliar privado para calcular um dígito verificador (DV) usando o algoritmo de módulo 11.
+     * Remove qualquer caractere não numérico (máscara de CPF, telefone etc.).
      *
-     * <p>O cálculo envolve a soma dos produtos dos dígitos da base por pesos decrescentes
-     * (começando pelo peso fornecido). O DV é (11 - (soma % 11)).</p>
+     * <p>Equivale a {@code value.replaceAll("[^0-9]", "")}, mas sem expressão regular e
+     * devolvendo a própria instância quando ela já contém somente dígitos.</p>
      *
-     * @param base String contendo os dígitos anteriores ao DV (9 dígitos para o primeiro DV, 10 para o segundo).
-     * @param peso O peso inicial para a multiplicação (10 para o primeiro DV, 11 para o segundo).
-     * @return O dígito verificador calculado (valor entre 0 e 9).
+     * @param value O valor a normalizar (pode ser {@code null}).
+     * @return Somente os dígitos de {@code value}, ou {@code null} se ele for {@code null}.
      */
-    private static int calculateDv(String base, int peso) {
-        int soma = 0;
-        int num;
-
-        // Itera sobre os dígitos da base (da esquerda para a direita)
-        for (int i = 0; i < base.length(); i++) {
-            // Multiplica o dígito pelo peso decrescente
-            num = Integer.parseInt(base.substring(i, i + 1));
-            soma += num * peso;
-            peso--;
+    public static String digitsOnly(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        int i = 0;
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return value;
+        }
+        char[] digits = new char[length];
+        value.getChars(0, i, digits, 0);
+        int size = i;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (isDigit(c)) {
+                digits[size++] = c;
+            }
         }
+        return new String(digits, 0, size);
+    }
 
-        // 1. Encontra o resto da divisão por 11
-        int resto = soma % 11;
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
-        // 2. Se o resto for menor que 2, o DV é 0
-        if (resto < 2) {
-            return 0;
-        } else {
-            // 3. Caso contrário, o DV é (11 - resto)
-            return 11 - resto;
-        }
+    /**
+     * Calcula um dígito verificador (DV) a partir da soma ponderada, pelo algoritmo de módulo 11.
+     *
+     * @param sum A soma dos dígitos multiplicados pelos pesos decrescentes.
+     * @return O dígito verificador calculado (valor entre 0 e 9).
+     */
+    private static int checkDigit(int sum) {
+        int resto = sum % 11;
+        // Se o resto for menor que 2, o DV é 0; caso contrário, é (11 - resto)
+        return resto < 2 ? 0 : 11 - resto;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package com.ms.patient.utils;
+
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.ms.patient.exceptions.PreconditionFailedException;
+import com.ms.patient.models.Person;
+
+/**
+ * Classe de utilidade para as ETags dos endpoints de detalhe e as pré-condições
+ * {@code If-None-Match} (GET) e {@code If-Match} (PUT).
+ *
+ * <p>A ETag é forte e derivada do 'ID' e da versão do registro ({@code "id-versão"}), portanto
+ * pode ser comparada com uma consulta que lê apenas a coluna {@code version}, sem carregar
+ * nem mapear a entidade.</p>
+ */
+public class EntityTags {
+
+    // Prevenindo instanciação da classe utilitária
+    private EntityTags() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * A ETag (já entre aspas) da versão atual da pessoa.
+     */
+    public static String of(Person person) {
+        return of(person.getId(), person.getVersion());
+    }
+
+    /**
+     * A ETag (já entre aspas) de um registro.
+     */
+    public static String of(long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Responde 304 (Not Modified) quando o {@code If-None-Match} do cliente contém a ETag atual.
+     *
+     * <p>A versão só é consultada quando o cabeçalho foi enviado. Se o registro não existir,
+     * retorna {@code null} e o endpoint segue o fluxo normal (que responde o erro de não encontrado).</p>
+     *
+     * @param ifNoneMatch O cabeçalho {@code If-None-Match}, ou {@code null}.
+     * @param id O 'ID' pedido.
+     * @param versionLookup A consulta da versão pelo 'ID' (ex: {@code service::findVersion}).
+     * @return A resposta 304, ou {@code null} se o corpo precisa ser enviado.
+     */
+    public static <T> ResponseEntity<T> notModified(String ifNoneMatch, long id, LongFunction<Optional<Long>> versionLookup) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return null;
+        }
+        Optional<Long> version = versionLookup.apply(id);
+        if (version.isEmpty()) {
+            return null;
+        }
+        String etag = of(id, version.get());
+        if (!matchesAny(ifNoneMatch, etag)) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * Extrai do {@code If-Match} a versão esperada do registro {@code id}.
+     *
+     * <p>A comparação é forte: ETags fracas ({@code W/"..."}) nunca conferem.</p>
+     *
+     * @param ifMatch O cabeçalho {@code If-Match}, ou {@code null}.
+     * @param id O 'ID' do registro a atualizar.
+     * @return A versão esperada, ou {@code null} se não houver pré-condição ({@code null} ou {@code *}).
+     * @throws PreconditionFailedException Se nenhuma ETag do cabeçalho for deste registro.
+     */
+    public static Long expectedVersion(String ifMatch, long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String prefix = id + "-";
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.strip();
+            if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+                continue;
+            }
+            String opaque = value.substring(1, value.length() - 1);
+            if (opaque.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(opaque.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    // Não é uma ETag gerada aqui; segue para a próxima
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match resource " + id);
+    }
+
+    // Comparação fraca (If-None-Match): o prefixo W/ é ignorado
+    private static boolean matchesAny(String header, String etag) {
+        for (String tag : header.split(",")) {
+            String value = tag.strip();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
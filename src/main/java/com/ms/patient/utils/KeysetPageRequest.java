@@ -0,0 +1,43 @@
+package com.ms.patient.utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Classe de utilidade para montar o {@link Pageable} usado nas consultas paginadas
+ * por cursor (keyset pagination).
+ *
+ * <p>O deslocamento é sempre zero: a posição na tabela é dada pelo cursor {@code after}
+ * (último 'ID' já lido), e não por {@code OFFSET}. Assim o custo de cada página não
+ * cresce com o tamanho da tabela.</p>
+ */
+public class KeysetPageRequest {
+
+    /**
+     * Quantidade de registros por página quando o cliente não informa {@code limit}; em texto
+     * para ser usada no {@code defaultValue} do {@code @RequestParam}.
+     */
+    public static final String DEFAULT_LIMIT = "50";
+
+    /** Limite máximo de registros por página, independente do que o cliente pedir. */
+    public static final int MAX_LIMIT = 500;
+
+    // Prevenindo instanciação da classe utilitária
+    private KeysetPageRequest() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Cria o {@link Pageable} da primeira "página" após o cursor, limitado a {@link #MAX_LIMIT}.
+     *
+     * @param limit A quantidade de registros pedida pelo cliente.
+     * @return O {@link Pageable} com deslocamento zero e tamanho {@code min(limit, MAX_LIMIT)}.
+     * @throws IllegalArgumentException Se {@code limit} não for positivo.
+     */
+    public static Pageable of(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than zero");
+        }
+        return PageRequest.of(0, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -1,20 +1,130 @@
 package com.ms.patient.utils;
 
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ms.patient.repositories.AssistantRepository;
+
+/**
+ * Gera os números de registro (9 dígitos) dos assistentes sem consultar o banco a cada cadastro.
+ *
+ * <p>Usa alocação em blocos (hi/lo) pelo {@link BlockAllocator}: cada instância reserva um intervalo
+ * de valores na tabela {@code number_blocks}, em conexão própria e antes do bloco atual acabar, e
+ * distribui os valores do bloco localmente. Como os intervalos nunca se sobrepõem, os números são
+ * únicos entre todos os nós.</p>
+ *
+ * <p>Com {@code medcare.registration-number.scramble-key} definida, o valor sequencial passa por
+ * uma permutação (rede de Feistel com cycle-walking) do espaço de 9 dígitos, tornando os números
+ * difíceis de adivinhar sem perder a unicidade. A chave não pode mudar depois de usada.</p>
+ *
+ * <p>Números gerados aleatoriamente pela versão anterior são lidos uma única vez e pulados.</p>
+ */
+@Component
 public class RegistrationNumber {
-    private static final Random random = new Random();
 
+    /** Tabela e nome do contador. */
+    static final String TABLE = "number_blocks";
+    static final String COUNTER = "assistant_registration_number";
+
+    /** Quantidade de números de 9 dígitos. */
+    static final long SPACE = 1_000_000_000L;
+
+    // Lado do domínio quadrado da rede de Feistel: 31623² é o menor quadrado >= 10^9
+    private static final int HALF = 31_623;
+    private static final int ROUNDS = 6;
+
+    private final BlockAllocator.Sequence sequence;
+    private final AssistantRepository assistantRepository;
+    private final boolean scramble;
+    private final long scrambleKey;
+
+    private volatile Set<String> legacyNumbers;
+
+    public RegistrationNumber(BlockAllocator blockAllocator, AssistantRepository assistantRepository,
+                              @Value("${medcare.registration-number.block-size:50}") int blockSize,
+                              @Value("${medcare.registration-number.scramble-key:}") String scrambleKey) {
+        this.sequence = blockAllocator.sequence(TABLE, COUNTER, 0, SPACE, blockSize);
+        this.assistantRepository = assistantRepository;
+        this.scramble = !scrambleKey.isBlank();
+        this.scrambleKey = scramble ? deriveKey(scrambleKey) : 0;
+    }
+
+    /**
+     * Gera o próximo número de registro, único entre todos os nós.
+     *
+     * @return O número com exatamente 9 dígitos.
+     * @throws IllegalStateException Se todos os números de 9 dígitos já foram reservados.
+     */
     public String generateNumber(){
+        Set<String> legacy = legacyNumbers();
+        while (true) {
+            long value = sequence.next();
+            String number = String.format("%09d", scramble ? permute(value) : value);
+            if (!legacy.contains(number)) {
+                return number;
+            }
+        }
+    }
 
-        StringBuilder generatedNumber = new StringBuilder();
-        for (int i = 0; i < 9; i++) {
-            // Gera um número
-            int numero = random.nextInt(10);
-            generatedNumber.append(String.valueOf(numero));
+    private Set<String> legacyNumbers() {
+        Set<String> legacy = legacyNumbers;
+        if (legacy == null) {
+            synchronized (this) {
+                if (legacyNumbers == null) {
+                    legacyNumbers = Set.copyOf(assistantRepository.findAllRegistrationNumbers());
+                }
+                legacy = legacyNumbers;
+            }
         }
+        return legacy;
+    }
 
-        return generatedNumber.toString();
+    /**
+     * Permutação do intervalo {@code [0, 10^9)}: a rede de Feistel é uma bijeção em
+     * {@code [0, HALF²)}, e reaplicá-la enquanto o resultado cair fora do intervalo
+     * (cycle-walking) mantém a bijeção restrita aos 9 dígitos.
+     */
+    long permute(long value) {
+        long result = value;
+        do {
+            result = feistel(result);
+        } while (result >= SPACE);
+        return result;
+    }
+
+    private long feistel(long value) {
+        long left = value / HALF;
+        long right = value % HALF;
+        for (int round = 0; round < ROUNDS; round++) {
+            long next = Math.floorMod(left + roundFunction(round, right), HALF);
+            left = right;
+            right = next;
+        }
+        return left * HALF + right;
     }
 
+    private long roundFunction(int round, long right) {
+        long z = scrambleKey ^ (right * 0x9E3779B97F4A7C15L) ^ round;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static long deriveKey(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            long key = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                key = (key << 8) | (digest[i] & 0xFF);
+            }
+            return key;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,14 @@
+-- Esquema criado pelo ddl-auto=update do Hibernate antes das migracoes ('IDs' por identity,
+-- sem versao, sem outbox e sem chaves unicas alem do endereco).
+-- Bancos ja existentes sao marcados nesta versao (spring.flyway.baseline-on-migrate) e seguem a partir da V2.
+
+create table address (number integer not null, id bigint generated by default as identity, city varchar(255) not null, complement varchar(255) not null, neighborhood varchar(255) not null, state varchar(255) not null, street varchar(255) not null, zip_code varchar(255) not null, habitation enum ('APARTMENT','HOUSE','KITNET') not null, primary key (id));
+create table employees (active boolean not null, person_id bigint not null, registration_number varchar(255), primary key (person_id));
+create table medics (person_id bigint not null, crm varchar(255) not null, medical_speciality varchar(255) not null, primary key (person_id));
+create table patients (person_id bigint not null, allergies varbinary(255), health_plan varchar(255), symptoms varbinary(255), description clob, patient_situation enum ('CRITICAL','DISCHARGE','HOSPITALIZED','IN_OBS','NOT_DEFINED','RECOVERING','STABLE','SURGERY'), primary key (person_id));
+create table person (address_id bigint not null unique, birth_date timestamp(6) not null, id bigint generated by default as identity, cpf varchar(255) not null, email varchar(255) not null, gender varchar(255) not null, name varchar(255) not null, phone varchar(255) not null, primary key (id));
+
+alter table employees add constraint FK4pqjkt6rvey9farximocirnef foreign key (person_id) references person;
+alter table medics add constraint FKrkn8bpv3qf4s3ite1lpmc2714 foreign key (person_id) references person;
+alter table patients add constraint FKp22po0pt1vllh9sy50ucf4o0u foreign key (person_id) references person;
+alter table person add constraint FKk7rgn6djxsv2j2bv1mvuxd4m9 foreign key (address_id) references address;
@@ -0,0 +1,29 @@
+-- Objetos que o esquema inicial (V1) nao tem.
+
+-- Chaves unicas com nomes fixos: a violacao de cada uma e convertida na excecao
+-- de conflito correspondente (PersonService.uniqueKeyConflict). E-mail, CPF, CRM e numero de registro
+-- ja eram conferidos pelo servico antes de gravar; o telefone nao, entao pode haver repetidos.
+-- O callback DuplicateUniqueKeysCheck interrompe a migracao antes desta se houver, apontando o relatorio
+-- db/preflight/duplicate_unique_keys.sql: os dados de contato sao corrigidos a mao, nunca aqui.
+alter table person add constraint uk_person_phone unique (phone);
+alter table person add constraint uk_person_email unique (email);
+alter table person add constraint uk_person_cpf unique (cpf);
+alter table employees add constraint uk_employees_registration_number unique (registration_number);
+alter table medics add constraint uk_medics_crm unique (crm);
+
+-- Versao de cada pessoa (@Version), usada nas ETags
+alter table person add column version bigint default 0 not null;
+
+-- Geradores de 'ID' em blocos (@BlockId) no lugar do identity, que continua na coluna mas deixa de
+-- ser usado. O valor gravado e o proximo 'ID' livre, entao os contadores comecam logo acima do maior 'ID' existente.
+create table id_generators (next_value bigint, name varchar(255) not null, primary key (name));
+insert into id_generators(name, next_value) select 'address', coalesce(max(id), 0) + 1 from address;
+insert into id_generators(name, next_value) select 'person', coalesce(max(id), 0) + 1 from person;
+insert into id_generators(name, next_value) values ('outbox_event', 1);
+
+-- Eventos de criacao de usuario a publicar no SQS (OutboxRelay)
+create table outbox_events (attempts integer not null, created_at timestamp(6) with time zone not null, id bigint not null, next_attempt_at timestamp(6) with time zone not null, person_id bigint not null, sent_at timestamp(6) with time zone, content_type varchar(64), last_error varchar(500), payload varchar(1000) not null, status enum ('FAILED','PENDING','SENT') not null, primary key (id));
+create index idx_outbox_events_due on outbox_events (status, next_attempt_at);
+
+-- Contadores reservados em blocos (numero de registro dos assistentes)
+create table number_blocks (next_value bigint not null, name varchar(64) not null, primary key (name));
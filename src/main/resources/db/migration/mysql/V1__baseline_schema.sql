@@ -0,0 +1,16 @@
+-- Esquema criado pelo ddl-auto=update do Hibernate antes das migracoes ('IDs' por auto_increment,
+-- sem versao, sem outbox e sem chaves unicas alem do endereco).
+-- Bancos ja existentes sao marcados nesta versao (spring.flyway.baseline-on-migrate) e seguem a partir da V2.
+
+create table address (number integer not null, id bigint not null auto_increment, city varchar(255) not null, complement varchar(255) not null, neighborhood varchar(255) not null, state varchar(255) not null, street varchar(255) not null, zip_code varchar(255) not null, habitation enum ('APARTMENT','HOUSE','KITNET') not null, primary key (id)) engine=InnoDB;
+create table employees (active bit not null, person_id bigint not null, registration_number varchar(255), primary key (person_id)) engine=InnoDB;
+create table medics (person_id bigint not null, crm varchar(255) not null, medical_speciality varchar(255) not null, primary key (person_id)) engine=InnoDB;
+create table patients (person_id bigint not null, health_plan varchar(255), allergies varbinary(255), symptoms varbinary(255), description longtext, patient_situation enum ('CRITICAL','DISCHARGE','HOSPITALIZED','IN_OBS','NOT_DEFINED','RECOVERING','STABLE','SURGERY'), primary key (person_id)) engine=InnoDB;
+create table person (address_id bigint not null, birth_date datetime(6) not null, id bigint not null auto_increment, cpf varchar(255) not null, email varchar(255) not null, gender varchar(255) not null, name varchar(255) not null, phone varchar(255) not null, primary key (id)) engine=InnoDB;
+
+alter table person add constraint UKo8tnkglv9n1eeqmo7de7em37n unique (address_id);
+
+alter table employees add constraint FK4pqjkt6rvey9farximocirnef foreign key (person_id) references person (id);
+alter table medics add constraint FKrkn8bpv3qf4s3ite1lpmc2714 foreign key (person_id) references person (id);
+alter table patients add constraint FKp22po0pt1vllh9sy50ucf4o0u foreign key (person_id) references person (id);
+alter table person add constraint FKk7rgn6djxsv2j2bv1mvuxd4m9 foreign key (address_id) references address (id);
@@ -0,0 +1,14 @@
+-- Sintomas e alergias em tabelas proprias, uma linha por valor, no lugar das listas serializadas
+-- em patients.symptoms/allergies. Os dados sao copiados pela V4
+-- (com.ms.patient.migrations.PatientListsMigration) e as colunas antigas removidas na V5.
+-- Os valores sao comparados byte a byte e sem ignorar espacos no fim (utf8mb4_0900_bin), como o Set<String>
+-- da entidade e a copia da V4: com a collation padrao "Febre" e "febre" violariam a chave primaria.
+create table patient_symptoms (patient_id bigint not null, symptom varchar(255) character set utf8mb4 collate utf8mb4_0900_bin not null, primary key (patient_id, symptom)) engine=InnoDB;
+create table patient_allergies (patient_id bigint not null, allergy varchar(255) character set utf8mb4 collate utf8mb4_0900_bin not null, primary key (patient_id, allergy)) engine=InnoDB;
+
+-- Filtro por valor (ex: pacientes com alergia a Penicilina), ja em ordem de 'ID'
+create index idx_patient_symptoms_symptom on patient_symptoms (symptom, patient_id);
+create index idx_patient_allergies_allergy on patient_allergies (allergy, patient_id);
+
+alter table patient_symptoms add constraint fk_patient_symptoms_patient foreign key (patient_id) references patients (person_id);
+alter table patient_allergies add constraint fk_patient_allergies_patient foreign key (patient_id) references patients (person_id);
@@ -0,0 +1,3 @@
+-- As listas serializadas ja foram copiadas para patient_symptoms e patient_allergies (V4)
+alter table patients drop column symptoms;
+alter table patients drop column allergies;
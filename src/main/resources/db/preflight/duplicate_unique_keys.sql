@@ -0,0 +1,19 @@
+-- Relatorio de valores repetidos nas colunas que ganham chave unica na V2 (MySQL e H2).
+-- Rodar antes de atualizar um banco criado pelo ddl-auto=update: cada linha e um valor que precisa ser
+-- corrigido a mao. O callback DuplicateUniqueKeysCheck roda esta mesma consulta antes da V2 e falha enquanto
+-- houver linhas; depois de corrigir os dados, basta subir a aplicacao de novo.
+-- Os 'IDs' de um valor: select id from person where phone = '<valor>' (ou a coluna/tabela da chave).
+select 'uk_person_phone' as unique_key, phone as duplicated_value, count(*) as occurrences
+    from person where phone is not null group by phone having count(*) > 1
+union all
+select 'uk_person_email', email, count(*)
+    from person where email is not null group by email having count(*) > 1
+union all
+select 'uk_person_cpf', cpf, count(*)
+    from person where cpf is not null group by cpf having count(*) > 1
+union all
+select 'uk_employees_registration_number', registration_number, count(*)
+    from employees where registration_number is not null group by registration_number having count(*) > 1
+union all
+select 'uk_medics_crm', crm, count(*)
+    from medics where crm is not null group by crm having count(*) > 1
@@ -0,0 +1,69 @@
+package com.ms.patient.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ms.patient.utils.CpfValidatorUtils;
+
+/**
+ * Compara a validação e a normalização de CPF atuais com a implementação anterior
+ * ({@link LegacyCpfValidator}) em entradas com máscara, sem máscara e inválidas.
+ *
+ * <p>Executar com: {@code mvn -Pjmh clean test-compile exec:exec -Djmh.args="CpfValidatorBenchmark -prof gc"}
+ * ({@code -prof gc} mostra os bytes alocados por operação).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpfValidatorBenchmark {
+
+    @Param({"masked", "unmasked", "invalid", "repeated"})
+    public String input;
+
+    private String cpf;
+
+    @Setup
+    public void setup() {
+        cpf = switch (input) {
+            case "masked" -> "529.982.247-25";
+            case "unmasked" -> "52998224725";
+            case "invalid" -> "529.982.247-26";
+            case "repeated" -> "111.111.111-11";
+            default -> throw new IllegalArgumentException(input);
+        };
+    }
+
+    @Benchmark
+    public boolean validateLegacy() {
+        return LegacyCpfValidator.isValidCpf(cpf);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return CpfValidatorUtils.isValidCpf(cpf);
+    }
+
+    @Benchmark
+    public String normalizeLegacy() {
+        return cpf.replaceAll("[^0-9]", "");
+    }
+
+    @Benchmark
+    public String normalize() {
+        return CpfValidatorUtils.digitsOnly(cpf);
+    }
+}
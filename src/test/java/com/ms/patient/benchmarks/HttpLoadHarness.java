@@ -0,0 +1,378 @@
+package com.ms.patient.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.patient.PatientApplication;
+import com.ms.patient.dto.AddressDTO;
+import com.ms.patient.dto.PatientCreationDTO;
+import com.ms.patient.testUtils.CpfGenerator;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.jsonwebtoken.io.Decoders;
+
+/**
+ * Gerador de carga HTTP: sobe a aplicação com o perfil {@code perf} em uma porta aleatória e
+ * executa cenários nomeados contra ela, gravando o resultado de cada um em JSON.
+ *
+ * <p>Modelo aberto: as requisições partem na taxa pedida ({@code --rate} por segundo, em
+ * intervalos constantes ou de Poisson), sem esperar as respostas anteriores. A latência é medida
+ * a partir do instante em que a requisição <i>deveria</i> ter partido, então um servidor lento
+ * aparece nos percentis em vez de apenas reduzir a taxa (omissão coordenada). Com mais de
+ * {@code --max-in-flight} requisições pendentes, as seguintes são descartadas e contadas como
+ * {@code dropped}.</p>
+ *
+ * <p>Os tokens são JWTs HS256 assinados com {@code api.security.token.secret} e a claim
+ * {@code role} lida pelo {@code ResourceServerConfig}.</p>
+ *
+ * <p>Cenários:</p>
+ * <ul>
+ * <li>{@code create-storm}: {@code POST /patient/create} com dados únicos (papel PATIENT).</li>
+ * <li>{@code read-person}: {@code GET /person/{id}} com 'IDs' aleatórios da massa (papel ASSISTANT).</li>
+ * <li>{@code list-scan}: {@code GET /person/all} a partir de posições aleatórias (papel ADMIN).</li>
+ * <li>{@code duplicate-cpf}: {@code POST /patient/create} repetindo poucos CPFs novos, para medir a
+ * disputa na verificação de unicidade; mais respostas 201 que {@code --duplicate-keys} indicam duplicatas.</li>
+ * </ul>
+ *
+ * <p>Executar (de preferência depois do {@link PerfDataGenerator}) com:
+ * {@code mvn -Pbench test-compile exec:exec -Dbench.main=com.ms.patient.benchmarks.HttpLoadHarness -Dbench.args="--scenarios=read-person,list-scan --rate=500 --seconds=60"}.
+ * Outros argumentos: {@code --warmup=10} (segundos), {@code --arrival=constant|poisson},
+ * {@code --max-in-flight=2000}, {@code --duplicate-keys=4}, {@code --out=perf-data/results}.
+ * Argumentos {@code --spring.*} vão para a aplicação.</p>
+ */
+public class HttpLoadHarness {
+
+    static final List<String> SCENARIOS = List.of("create-storm", "read-person", "list-scan", "duplicate-cpf");
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    // Bases de CPF dos cadastros; a massa do PerfDataGenerator fica abaixo de 10^8
+    private static final long FIRST_BASE = 100_000_000L;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> tokens = new HashMap<>();
+    private final AtomicLong sequence;
+    private final long minId;
+    private final long maxId;
+
+    HttpLoadHarness(HttpClient client, String baseUrl, byte[] secret, JdbcTemplate jdbcTemplate) throws JOSEException {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        for (String role : List.of("PATIENT", "ASSISTANT", "ADMIN")) {
+            tokens.put(role, token(secret, role));
+        }
+        String lastCpf = jdbcTemplate.queryForObject(
+            "select max(cpf) from person where cpf >= ?", String.class, CpfGenerator.cpf(FIRST_BASE));
+        this.sequence = new AtomicLong(lastCpf == null ? FIRST_BASE : CpfGenerator.base(lastCpf));
+        this.minId = jdbcTemplate.queryForObject("select coalesce(min(id), 1) from person", Long.class);
+        this.maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 1) from person", Long.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--medcare.")) {
+                springArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        List<String> scenarios = List.of(options.getOrDefault("scenarios", String.join(",", SCENARIOS)).split(","));
+        for (String scenario : scenarios) {
+            if (!SCENARIOS.contains(scenario)) {
+                throw new IllegalArgumentException("Unknown scenario: " + scenario + " (expected one of " + SCENARIOS + ")");
+            }
+        }
+        Settings settings = new Settings(
+            Double.parseDouble(options.getOrDefault("rate", "200")),
+            Integer.parseInt(options.getOrDefault("seconds", "30")),
+            Integer.parseInt(options.getOrDefault("warmup", "10")),
+            "poisson".equals(options.getOrDefault("arrival", "constant")),
+            Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+            Integer.parseInt(options.getOrDefault("duplicate-keys", "4")));
+        Path out = Path.of(options.getOrDefault("out", "perf-data/results"));
+        Files.createDirectories(out);
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PatientApplication.class)
+                .profiles(options.getOrDefault("profile", "perf"))
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run(springArgs.toArray(String[]::new))) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            byte[] secret = Decoders.BASE64.decode(context.getEnvironment().getProperty("api.security.token.secret"));
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+            HttpLoadHarness harness = new HttpLoadHarness(client, "http://localhost:" + port, secret,
+                context.getBean(JdbcTemplate.class));
+
+            System.out.printf(Locale.ROOT, "%-14s %9s %9s %9s %9s %9s %9s %9s  %s%n",
+                "scenario", "rate", "ok/s", "p50 (ms)", "p90 (ms)", "p99 (ms)", "p99.9", "max (ms)", "statuses / errors");
+            for (String scenario : scenarios) {
+                if (settings.warmupSeconds() > 0) {
+                    harness.run(scenario, settings, settings.warmupSeconds());
+                }
+                Result result = harness.run(scenario, settings, settings.seconds());
+                Path file = out.resolve(scenario + "-"
+                    + DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC).format(result.startedAt())
+                    + ".json");
+                harness.objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), result.toJson(settings));
+                System.out.printf(Locale.ROOT, "%-14s %9.0f %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s %s%n",
+                    scenario, settings.rate(), result.ok() / (double) settings.seconds(),
+                    millis(result.latencies(), 50), millis(result.latencies(), 90), millis(result.latencies(), 99),
+                    millis(result.latencies(), 99.9), result.latencies().getMaxValue() / 1000.0,
+                    result.statuses(), result.errors());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executa um cenário na taxa pedida por {@code seconds} segundos e espera (até 30 segundos)
+     * as respostas pendentes.
+     */
+    Result run(String scenario, Settings settings, int seconds) throws InterruptedException {
+        LongFunction<HttpRequest> requests = requests(scenario, settings);
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        SplittableRandom random = new SplittableRandom();
+
+        Instant startedAt = Instant.now();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long sent = 0;
+        for (long intended = start; intended < end; sent++) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= settings.maxInFlight()) {
+                count(errors, "dropped");
+            } else {
+                inFlight.incrementAndGet();
+                long scheduledAt = intended;
+                client.sendAsync(requests.apply(sent), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            count(errors, cause.getClass().getSimpleName());
+                            return;
+                        }
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+                        recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        count(statuses, Integer.toString(response.statusCode()));
+                    });
+            }
+            intended += settings.poisson()
+                ? (long) (-Math.log(1 - random.nextDouble()) * intervalNanos)
+                : intervalNanos;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            errors.computeIfAbsent("unfinished", key -> new LongAdder()).add(inFlight.get());
+        }
+        return new Result(scenario, startedAt, seconds, sent, recorder.getIntervalHistogram(),
+            snapshot(statuses), snapshot(errors));
+    }
+
+    private LongFunction<HttpRequest> requests(String scenario, Settings settings) {
+        SplittableRandom random = new SplittableRandom();
+        return switch (scenario) {
+            case "create-storm" -> i -> {
+                long n = sequence.incrementAndGet();
+                return post("/patient/create", "PATIENT", patient(n, n));
+            };
+            case "read-person" -> i -> get("/person/" + randomId(random), "ASSISTANT");
+            case "list-scan" -> i -> get("/person/all?limit=50&after=" + (randomId(random) - 1), "ADMIN");
+            case "duplicate-cpf" -> {
+                long[] keys = new long[settings.duplicateKeys()];
+                for (int k = 0; k < keys.length; k++) {
+                    keys[k] = sequence.incrementAndGet();
+                }
+                yield i -> post("/patient/create", "PATIENT", patient(keys[(int) (i % keys.length)], sequence.incrementAndGet()));
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+    }
+
+    // Chamado apenas pela thread que dispara as requisições
+    private long randomId(SplittableRandom random) {
+        return minId + random.nextLong(maxId - minId + 1);
+    }
+
+    private HttpRequest get(String path, String role) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Authorization", "Bearer " + tokens.get(role))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(String path, String role, byte[] body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Authorization", "Bearer " + tokens.get(role))
+            .header("Content-Type", "application/json")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+    }
+
+    /**
+     * Paciente com o CPF da base {@code cpfBase} e e-mail e telefone da base {@code uniqueBase}.
+     */
+    private byte[] patient(long cpfBase, long uniqueBase) {
+        PatientCreationDTO dto = new PatientCreationDTO();
+        dto.setName("Paciente Carga " + uniqueBase);
+        dto.setBirthDate(new Date(0));
+        dto.setCpf(CpfGenerator.cpf(cpfBase));
+        dto.setGender("F");
+        dto.setEmail("load" + uniqueBase + "@exemplo.com.br");
+        dto.setPhone(String.format(Locale.ROOT, "11%09d", uniqueBase % CpfGenerator.BASES));
+        dto.setAddress(new AddressDTO("Centro", "Rua da Carga", (int) (uniqueBase % 1000), "Casa", "São Paulo",
+            "01001-000", "SP", "APARTMENT"));
+        dto.setHealthPlan("SUS");
+        dto.setDescription("Paciente gerado pelo teste de carga");
+        dto.setSymptoms(List.of("Febre"));
+        dto.setAllergies(List.of("Dipirona"));
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * JWT HS256 válido por um dia, com a claim {@code role} usada pelo {@code ResourceServerConfig}.
+     */
+    static String token(byte[] secret, String role) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject("load-" + role.toLowerCase(Locale.ROOT) + "@exemplo.com.br")
+            .issuer("auth")
+            .claim("role", role)
+            .issueTime(new Date())
+            .expirationTime(Date.from(Instant.now().plus(Duration.ofDays(1))))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(new SecretKeySpec(secret, "HmacSHA256")));
+        return jwt.serialize();
+    }
+
+    private static void count(Map<String, LongAdder> counters, String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, value) -> snapshot.put(key, value.sum()));
+        return snapshot;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    record Settings(double rate, int seconds, int warmupSeconds, boolean poisson, int maxInFlight, int duplicateKeys) {
+    }
+
+    record Result(String scenario, Instant startedAt, int seconds, long sent, Histogram latencies,
+                  Map<String, Long> statuses, Map<String, Long> errors) {
+
+        long ok() {
+            return statuses.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("2"))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        }
+
+        /**
+         * Resultado em JSON. O histograma completo vai compactado em Base64
+         * ({@code Histogram.decodeFromCompressedByteBuffer}) para comparar ou somar execuções.
+         */
+        Map<String, Object> toJson(Settings settings) {
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("count", latencies.getTotalCount());
+            latency.put("mean", latencies.getMean() / 1000.0);
+            for (double percentile : new double[] {50, 90, 99, 99.9, 99.99}) {
+                latency.put("p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile)),
+                    millis(latencies, percentile));
+            }
+            latency.put("max", latencies.getMaxValue() / 1000.0);
+            ByteBuffer buffer = ByteBuffer.allocate(latencies.getNeededByteBufferCapacity());
+            int length = latencies.encodeIntoCompressedByteBuffer(buffer);
+
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("scenario", scenario);
+            json.put("startedAt", startedAt.toString());
+            json.put("durationSeconds", seconds);
+            json.put("arrival", settings.poisson() ? "poisson" : "constant");
+            json.put("targetRate", settings.rate());
+            json.put("sent", sent);
+            json.put("achievedRate", latencies.getTotalCount() / (double) seconds);
+            json.put("okRate", ok() / (double) seconds);
+            json.put("statuses", statuses);
+            json.put("errors", errors);
+            json.put("latencyMs", latency);
+            json.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ms.patient.benchmarks;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+
+import com.ms.patient.config.CachingJwtDecoder;
+import com.ms.patient.config.ResourceServerConfig;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+/**
+ * Custo da autenticação de cada requisição pelo Resource Server: o
+ * {@link BearerTokenAuthenticationFilter} com o {@link JwtAuthenticationProvider}, o decodificador
+ * HS256 e o conversor de roles do {@link ResourceServerConfig}, com e sem o {@link CachingJwtDecoder}.
+ *
+ * <p>As requisições alternam entre {@code tokens} tokens diferentes (o frontend reaproveita o
+ * mesmo token por muitas chamadas; com muitos usuários, o cache tem vários tokens ativos).</p>
+ *
+ * <p>Executar com: {@code mvn -Pjmh clean test-compile exec:exec -Djmh.args="JwtAuthenticationBenchmark -prof gc"}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"1", "1000"})
+    public int tokens;
+
+    private BearerTokenAuthenticationFilter filter;
+    private String[] headers;
+    private int next;
+
+    @Setup
+    public void setup() throws JOSEException {
+        byte[] secret = new byte[32];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (i * 7 + 1);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        JwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).build();
+        if (cached) {
+            decoder = new CachingJwtDecoder(decoder, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(15),
+                Clock.systemUTC());
+        }
+        JwtAuthenticationProvider provider = new JwtAuthenticationProvider(decoder);
+        provider.setJwtAuthenticationConverter(new ResourceServerConfig().jwtAuthenticationConverter());
+        filter = new BearerTokenAuthenticationFilter(new ProviderManager(provider));
+
+        String[] roles = {"ADMIN", "ASSISTANT", "PATIENT", "MEDIC"};
+        headers = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("user" + i + "@email.com")
+                .issuer("auth")
+                .claim("role", roles[i % roles.length])
+                .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(2))))
+                .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+            jwt.sign(new MACSigner(key));
+            headers[i] = "Bearer " + jwt.serialize();
+        }
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/person/1");
+        request.addHeader("Authorization", headers[next]);
+        next = next + 1 == headers.length ? 0 : next + 1;
+        Authentication[] authentication = new Authentication[1];
+        filter.doFilter(request, new MockHttpServletResponse(),
+            (req, res) -> authentication[0] = SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+        return authentication[0];
+    }
+}
@@ -0,0 +1,335 @@
+package com.ms.patient.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ms.patient.PatientApplication;
+import com.ms.patient.enums.Habitation;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.testUtils.CpfGenerator;
+import com.ms.patient.utils.CpfValidatorUtils;
+import com.ms.patient.utils.RegistrationNumber;
+
+/**
+ * Gera uma massa sintética de pacientes, médicos e assistentes e a carrega com inserts em lote
+ * JDBC, sem passar pelo JPA, no banco do perfil {@code perf} (H2 em arquivo) ou no MySQL.
+ *
+ * <p>Os dados imitam os reais: nomes brasileiros, CPFs válidos, e-mails, telefones (com o DDD da
+ * cidade) e CRMs únicos, endereços em capitais com UF e CEP coerentes, e listas de sintomas e
+ * alergias. Cada pessoa usa uma base de CPF ({@link CpfGenerator}) abaixo de 10^8, da qual saem
+ * também o e-mail e o telefone; uma nova execução continua da última base, somando à massa.</p>
+ *
+ * <p>A aplicação é iniciada sem servidor web apenas para criar o esquema (migrações do Flyway) e
+ * fornecer o {@link DataSource}. Os 'IDs' da carga são reservados de uma vez nos contadores de
+ * {@code id_generators}, como faz o gerador da aplicação; os números de registro
+ * dos assistentes vêm do próprio {@link RegistrationNumber}, para não colidir com os da aplicação.</p>
+ *
+ * <p>Executar com:
+ * {@code mvn -Pbench test-compile exec:exec -Dbench.main=com.ms.patient.benchmarks.PerfDataGenerator -Dbench.args="--persons=2000000"}.
+ * Outros argumentos: {@code --medic-ratio=0.1}, {@code --assistant-ratio=0.05}, {@code --batch-size=1000},
+ * {@code --seed=42}. Argumentos {@code --spring.*} vão para a aplicação; para o MySQL, por exemplo:
+ * {@code --profile=default --spring.datasource.url=jdbc:mysql://localhost:3306/ms_profile?rewriteBatchedStatements=true}.</p>
+ */
+public class PerfDataGenerator {
+
+    // Bases de CPF da massa: [10^6, 10^8). Os benchmarks cadastram acima de 10^8.
+    private static final long FIRST_BASE = 1_000_000L;
+    private static final long LAST_BASE = 100_000_000L;
+
+    // Pessoas por transação
+    private static final int COMMIT_EVERY = 10_000;
+
+    private static final String INSERT_ADDRESS = "insert into address "
+        + "(id, neighborhood, street, number, complement, city, zip_code, state, habitation) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PERSON = "insert into person "
+        + "(id, name, birth_date, cpf, gender, email, phone, address_id) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PATIENT = "insert into patients "
+        + "(person_id, health_plan, description, patient_situation) values (?, ?, ?, ?)";
+    private static final String INSERT_SYMPTOM = "insert into patient_symptoms (patient_id, symptom) values (?, ?)";
+    private static final String INSERT_ALLERGY = "insert into patient_allergies (patient_id, allergy) values (?, ?)";
+    private static final String INSERT_MEDIC = "insert into medics (person_id, crm, medical_speciality) values (?, ?, ?)";
+    private static final String INSERT_ASSISTANT = "insert into employees (person_id, registration_number, active) values (?, ?, ?)";
+
+    /** Capital, UF, DDD e faixa de CEP (5 primeiros dígitos). */
+    record City(String name, String state, String ddd, int zipFrom, int zipTo) {
+    }
+
+    static final List<City> CITIES = List.of(
+        new City("São Paulo", "SP", "11", 1000, 5999),
+        new City("Rio de Janeiro", "RJ", "21", 20000, 23799),
+        new City("Belo Horizonte", "MG", "31", 30000, 31999),
+        new City("Porto Alegre", "RS", "51", 90000, 91999),
+        new City("Curitiba", "PR", "41", 80000, 82999),
+        new City("Salvador", "BA", "71", 40000, 42599),
+        new City("Recife", "PE", "81", 50000, 52999),
+        new City("Fortaleza", "CE", "85", 60000, 61599),
+        new City("Brasília", "DF", "61", 70000, 72799),
+        new City("Goiânia", "GO", "62", 74000, 74899),
+        new City("Manaus", "AM", "92", 69000, 69099),
+        new City("Belém", "PA", "91", 66000, 66999),
+        new City("Florianópolis", "SC", "48", 88000, 88099),
+        new City("Vitória", "ES", "27", 29000, 29099),
+        new City("Natal", "RN", "84", 59000, 59139),
+        new City("João Pessoa", "PB", "83", 58000, 58099),
+        new City("Maceió", "AL", "82", 57000, 57099),
+        new City("Aracaju", "SE", "79", 49000, 49099),
+        new City("Teresina", "PI", "86", 64000, 64099),
+        new City("São Luís", "MA", "98", 65000, 65099),
+        new City("Cuiabá", "MT", "65", 78000, 78099),
+        new City("Campo Grande", "MS", "67", 79000, 79124),
+        new City("Campinas", "SP", "19", 13000, 13139),
+        new City("Santos", "SP", "13", 11000, 11099));
+
+    static final String[] FIRST_NAMES = {
+        "Maria", "José", "Ana", "João", "Francisca", "Antônio", "Adriana", "Carlos", "Juliana", "Paulo",
+        "Márcia", "Pedro", "Fernanda", "Lucas", "Patrícia", "Luiz", "Aline", "Marcos", "Sandra", "Gabriel",
+        "Camila", "Rafael", "Bruna", "Daniel", "Letícia", "Marcelo", "Beatriz", "Bruno", "Larissa", "Eduardo"};
+    static final String[] LAST_NAMES = {
+        "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+        "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+        "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas"};
+    static final String[] NEIGHBORHOODS = {
+        "Centro", "Jardim América", "Vila Nova", "Boa Vista", "Santa Cecília", "Liberdade", "São José",
+        "Industrial", "Jardim Paulista", "Bela Vista", "Santo Antônio", "Cidade Nova"};
+    static final String[] STREETS = {
+        "Rua das Flores", "Avenida Brasil", "Rua São João", "Rua Sete de Setembro", "Avenida Getúlio Vargas",
+        "Rua Tiradentes", "Rua Dom Pedro II", "Avenida Paulista", "Rua XV de Novembro", "Rua Rui Barbosa"};
+    static final String[] SYMPTOMS = {
+        "Febre", "Tosse seca", "Dor de cabeça", "Falta de ar", "Náusea", "Tontura", "Dor abdominal",
+        "Fadiga", "Dor no peito", "Dor lombar", "Coriza", "Insônia"};
+    static final String[] ALLERGIES = {
+        "Dipirona", "Penicilina", "Amoxicilina", "Ibuprofeno", "Lactose", "Glúten", "Amendoim",
+        "Camarão", "Látex", "Poeira"};
+    static final String[] HEALTH_PLANS = {
+        "SUS", "Plano Básico", "Plano Executivo", "Plano Premium", "Unimed", "Bradesco Saúde", "Amil", "SulAmérica"};
+    static final String[] SPECIALITIES = {
+        "Clínica Geral", "Cardiologia", "Pediatria", "Ortopedia", "Dermatologia", "Ginecologia",
+        "Neurologia", "Psiquiatria", "Oftalmologia", "Endocrinologia"};
+    static final String[] COMPLEMENTS = {"Casa", "Apto 12", "Apto 304", "Bloco B", "Fundos", "Sala 5"};
+    static final String[] DESCRIPTIONS = {
+        "Paciente em acompanhamento ambulatorial, sem intercorrências.",
+        "Retorno para avaliação de exames laboratoriais e ajuste de medicação.",
+        "Histórico familiar de hipertensão; orientado sobre dieta e atividade física.",
+        "Queixa de dores recorrentes; encaminhado para avaliação especializada."};
+
+    private final SplittableRandom random;
+    private final RegistrationNumber registrationNumber;
+    private final double medicRatio;
+    private final double assistantRatio;
+    private final int batchSize;
+
+    PerfDataGenerator(RegistrationNumber registrationNumber, long seed, double medicRatio, double assistantRatio,
+                      int batchSize) {
+        this.random = new SplittableRandom(seed);
+        this.registrationNumber = registrationNumber;
+        this.medicRatio = medicRatio;
+        this.assistantRatio = assistantRatio;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--spring.") || arg.startsWith("--medcare.")) {
+                springArgs.add(arg);
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        long persons = Long.parseLong(options.getOrDefault("persons", "1000000"));
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PatientApplication.class)
+                .profiles(options.getOrDefault("profile", "perf"))
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN",
+                    // Só a carga roda: sem relay da outbox nem leitura da base pelo filtro de unicidade
+                    "medcare.outbox.relay.enabled=false",
+                    "medcare.uniqueness.filter.enabled=false",
+                    "medcare.registration-number.block-size=10000")
+                .run(springArgs.toArray(String[]::new))) {
+            PerfDataGenerator generator = new PerfDataGenerator(context.getBean(RegistrationNumber.class),
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Double.parseDouble(options.getOrDefault("medic-ratio", "0.1")),
+                Double.parseDouble(options.getOrDefault("assistant-ratio", "0.05")),
+                Integer.parseInt(options.getOrDefault("batch-size", "1000")));
+            generator.load(context.getBean(DataSource.class), new JdbcTemplate(context.getBean(DataSource.class)), persons);
+        }
+    }
+
+    void load(DataSource dataSource, JdbcTemplate jdbcTemplate, long persons) throws SQLException {
+        String lastCpf = jdbcTemplate.queryForObject("select max(cpf) from person where cpf >= ? and cpf < ?",
+            String.class, CpfGenerator.cpf(FIRST_BASE), CpfGenerator.cpf(LAST_BASE));
+        long firstBase = lastCpf == null ? FIRST_BASE : CpfGenerator.base(lastCpf) + 1;
+        if (firstBase + persons > LAST_BASE) {
+            throw new IllegalArgumentException("at most " + (LAST_BASE - firstBase) + " more persons can be generated");
+        }
+        long personId = reserveIds(jdbcTemplate, "person", persons);
+        long addressId = reserveIds(jdbcTemplate, "address", persons);
+
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement address = connection.prepareStatement(INSERT_ADDRESS);
+                 PreparedStatement person = connection.prepareStatement(INSERT_PERSON);
+                 PreparedStatement patient = connection.prepareStatement(INSERT_PATIENT);
+                 PreparedStatement symptom = connection.prepareStatement(INSERT_SYMPTOM);
+                 PreparedStatement allergy = connection.prepareStatement(INSERT_ALLERGY);
+                 PreparedStatement medic = connection.prepareStatement(INSERT_MEDIC);
+                 PreparedStatement assistant = connection.prepareStatement(INSERT_ASSISTANT)) {
+                PreparedStatement[] statements = {address, person, patient, symptom, allergy, medic, assistant};
+                long base = firstBase;
+                for (long i = 1; i <= persons; i++, base++) {
+                    // Bases com os 9 dígitos iguais geram CPFs inválidos
+                    while (!CpfValidatorUtils.isValidCpf(CpfGenerator.cpf(base))) {
+                        base++;
+                    }
+                    addPerson(base, personId++, addressId++, address, person, patient, symptom, allergy, medic, assistant);
+                    if (i % batchSize == 0) {
+                        executeBatches(statements);
+                    }
+                    if (i % COMMIT_EVERY == 0) {
+                        executeBatches(statements);
+                        connection.commit();
+                        if (i % (COMMIT_EVERY * 10L) == 0 && i < persons) {
+                            report(i, persons, start);
+                        }
+                    }
+                }
+                executeBatches(statements);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        report(persons, persons, start);
+    }
+
+    private void addPerson(long base, long personId, long addressId, PreparedStatement address,
+                           PreparedStatement person, PreparedStatement patient, PreparedStatement symptom,
+                           PreparedStatement allergy, PreparedStatement medic, PreparedStatement assistant) throws SQLException {
+        City city = pick(CITIES);
+        address.setLong(1, addressId);
+        address.setString(2, pick(NEIGHBORHOODS));
+        address.setString(3, pick(STREETS));
+        address.setInt(4, 1 + random.nextInt(3000));
+        address.setString(5, pick(COMPLEMENTS));
+        address.setString(6, city.name());
+        int zip = city.zipFrom() + random.nextInt(city.zipTo() - city.zipFrom() + 1);
+        address.setString(7, String.format(Locale.ROOT, "%05d-%03d", zip, random.nextInt(1000)));
+        address.setString(8, city.state());
+        address.setString(9, pick(Habitation.values()).name());
+        address.addBatch();
+
+        String firstName = pick(FIRST_NAMES);
+        String lastName = pick(LAST_NAMES);
+        person.setLong(1, personId);
+        person.setString(2, firstName + " " + pick(LAST_NAMES) + " " + lastName);
+        // Nascidos entre 1940 e 2020
+        person.setTimestamp(3, new Timestamp(-946771200000L + (long) (random.nextDouble() * 2524608000000L)));
+        person.setString(4, CpfGenerator.cpf(base));
+        person.setString(5, random.nextBoolean() ? "F" : "M");
+        person.setString(6, ascii(firstName + "." + lastName) + "." + base + "@exemplo.com.br");
+        person.setString(7, city.ddd() + "9" + String.format(Locale.ROOT, "%08d", base));
+        person.setLong(8, addressId);
+        person.addBatch();
+
+        double role = random.nextDouble();
+        if (role < medicRatio) {
+            medic.setLong(1, personId);
+            medic.setString(2, "CRM/" + city.state() + " " + base);
+            medic.setString(3, pick(SPECIALITIES));
+            medic.addBatch();
+        } else if (role < medicRatio + assistantRatio) {
+            assistant.setLong(1, personId);
+            assistant.setString(2, registrationNumber.generateNumber());
+            assistant.setBoolean(3, random.nextInt(10) > 0);
+            assistant.addBatch();
+        } else {
+            patient.setLong(1, personId);
+            patient.setString(2, pick(HEALTH_PLANS));
+            patient.setString(3, pick(DESCRIPTIONS));
+            patient.setString(4, pick(PatientSituation.values()).name());
+            patient.addBatch();
+            addValues(symptom, personId, sample(SYMPTOMS, 3));
+            addValues(allergy, personId, sample(ALLERGIES, 2));
+        }
+    }
+
+    // Uma linha por sintoma ou alergia, nas tabelas patient_symptoms e patient_allergies
+    private static void addValues(PreparedStatement insert, long patientId, List<String> values) throws SQLException {
+        for (String value : values) {
+            insert.setLong(1, patientId);
+            insert.setString(2, value);
+            insert.addBatch();
+        }
+    }
+
+    // Ordem das tabelas respeita as chaves estrangeiras: address -> person -> papéis -> listas do paciente
+    private static void executeBatches(PreparedStatement[] statements) throws SQLException {
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Reserva {@code count} 'IDs' seguidos no contador {@code generator} de {@code id_generators}
+     * ({@code next_value} é o próximo 'ID' livre) e devolve o primeiro.
+     */
+    private static long reserveIds(JdbcTemplate jdbcTemplate, String generator, long count) {
+        Long first = jdbcTemplate.queryForObject(
+            "select next_value from id_generators where name = ?", Long.class, generator);
+        jdbcTemplate.update("update id_generators set next_value = ? where name = ?", first + count, generator);
+        return first;
+    }
+
+    private ArrayList<String> sample(String[] values, int max) {
+        int count = random.nextInt(max + 1);
+        ArrayList<String> sample = new ArrayList<>(count);
+        while (sample.size() < count) {
+            String value = pick(values);
+            if (!sample.contains(value)) {
+                sample.add(value);
+            }
+        }
+        return sample;
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String ascii(String value) {
+        return Normalizer.normalize(value, Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT);
+    }
+
+    private static void report(long done, long total, long start) {
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf(Locale.ROOT, "%,d / %,d persons in %.1f s (%,.0f persons/s)%n", done, total, seconds, done / seconds);
+    }
+}
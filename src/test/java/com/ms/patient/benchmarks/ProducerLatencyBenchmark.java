@@ -0,0 +1,261 @@
+package com.ms.patient.benchmarks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ms.patient.PatientApplication;
+import com.ms.patient.config.InProcessSqsAsyncClient;
+import com.ms.patient.dto.AddressDTO;
+import com.ms.patient.dto.AssistantCreationDTO;
+import com.ms.patient.dto.MedicCreationDTO;
+import com.ms.patient.dto.PatientCreationDTO;
+import com.ms.patient.dto.PersonCreationDTO;
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.models.OutboxEvent;
+import com.ms.patient.repositories.OutboxEventRepository;
+import com.ms.patient.service.AssistantService;
+import com.ms.patient.service.MedicService;
+import com.ms.patient.service.PatientService;
+import com.ms.patient.testUtils.CpfGenerator;
+
+/**
+ * Mede, de ponta a ponta, {@code PatientService.createPatient}, {@code MedicService.createMedic}
+ * e {@code AssistantService.createAssistant} com o perfil {@code perf} (H2 + SQS em processo),
+ * variando a latência do SQS entre as rodadas.
+ *
+ * <p>Para cada latência e operação, informa a vazão e os percentis p50/p99/p99.9 do cadastro,
+ * e o atraso de entrega (criação do evento na outbox até o envio ao SQS). Como o envio sai da
+ * requisição (outbox), a latência do cadastro não deve acompanhar a do SQS; só o atraso de entrega.</p>
+ *
+ * <p>Executar com:
+ * {@code mvn -Pbench test-compile exec:exec -Dbench.args="--latencies=0,20,100,400 --threads=16 --seconds=10"}.
+ * Outros argumentos: {@code --jitter=5}, {@code --warmup=3} (segundos), {@code --entry-failure-rate=0}.</p>
+ *
+ * <p>O número de threads não deve passar do tamanho do pool de conexões
+ * ({@code spring.datasource.hikari.maximum-pool-size} do perfil {@code perf}): com mais threads,
+ * a latência medida inclui a espera por uma conexão.</p>
+ */
+public class ProducerLatencyBenchmark {
+
+    enum Operation { PATIENT, MEDIC, ASSISTANT }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    // Bases de CPF a partir de 10^8; a massa do PerfDataGenerator fica abaixo disso
+    private static final long FIRST_BASE = 100_000_000L;
+
+    private final AtomicLong sequence;
+    private final PatientService patientService;
+    private final MedicService medicService;
+    private final AssistantService assistantService;
+
+    ProducerLatencyBenchmark(ConfigurableApplicationContext context) {
+        this.patientService = context.getBean(PatientService.class);
+        this.medicService = context.getBean(MedicService.class);
+        this.assistantService = context.getBean(AssistantService.class);
+        // O banco do perfil é persistente: continua depois dos cadastros de execuções anteriores
+        String lastCpf = context.getBean(JdbcTemplate.class).queryForObject(
+            "select max(cpf) from person where cpf >= ?", String.class, CpfGenerator.cpf(FIRST_BASE));
+        this.sequence = new AtomicLong(lastCpf == null ? FIRST_BASE : CpfGenerator.base(lastCpf));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<Long> latencies = new ArrayList<>();
+        for (String latency : options.getOrDefault("latencies", "0,20,100,400").split(",")) {
+            latencies.add(Long.parseLong(latency.strip()));
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        long jitter = Long.parseLong(options.getOrDefault("jitter", "5"));
+        double entryFailureRate = Double.parseDouble(options.getOrDefault("entry-failure-rate", "0"));
+
+        // O reinício do devtools executaria o main de novo, em outra thread
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PatientApplication.class)
+                .profiles("perf")
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run()) {
+            InProcessSqsAsyncClient sqs = context.getBean(InProcessSqsAsyncClient.class);
+            OutboxEventRepository outbox = context.getBean(OutboxEventRepository.class);
+            ProducerLatencyBenchmark benchmark = new ProducerLatencyBenchmark(context);
+            int poolSize = context.getBean(Environment.class)
+                .getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+            if (threads > poolSize) {
+                System.err.printf(Locale.ROOT, "warning: %d threads with a pool of %d connections will wait for connections%n",
+                    threads, poolSize);
+            }
+
+            System.out.printf(Locale.ROOT, "%-10s %-10s %10s %10s %10s %10s %8s %14s %14s%n",
+                "sqs (ms)", "operation", "ops/s", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "errors",
+                "deliv p50 (ms)", "deliv p99 (ms)");
+            for (long latency : latencies) {
+                sqs.setLatency(latency, Math.min(jitter, latency));
+                sqs.setFailureRates(entryFailureRate, 0);
+                benchmark.run(threads, warmup);
+                drain(outbox);
+                outbox.deleteAllInBatch();
+
+                Map<Operation, Result> results = benchmark.run(threads, seconds);
+                Histogram delivery = drain(outbox);
+                outbox.deleteAllInBatch();
+
+                for (Operation operation : Operation.values()) {
+                    Result result = results.get(operation);
+                    System.out.printf(Locale.ROOT, "%-10d %-10s %10.1f %10.2f %10.2f %10.2f %8d %14.2f %14.2f%n",
+                        latency, operation.name().toLowerCase(Locale.ROOT),
+                        result.latencies.getTotalCount() / (double) seconds,
+                        millis(result.latencies, 50), millis(result.latencies, 99), millis(result.latencies, 99.9),
+                        result.errors, millis(delivery, 50), millis(delivery, 99));
+                }
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Executa os três cadastros em rodízio, com {@code threads} threads em laço fechado, por {@code seconds} segundos.
+     */
+    Map<Operation, Result> run(int threads, int seconds) throws Exception {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+        Map<Operation, String> firstErrors = new ConcurrentHashMap<>();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers.add(executor.submit(() -> {
+                for (long i = offset; System.nanoTime() < deadline; i++) {
+                    Operation operation = Operation.values()[(int) (i % Operation.values().length)];
+                    long start = System.nanoTime();
+                    try {
+                        execute(operation);
+                        recorders.get(operation).recordValue(
+                            Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), HIGHEST_TRACKABLE_MICROS));
+                    } catch (Exception e) {
+                        errors.get(operation).increment();
+                        firstErrors.putIfAbsent(operation, rootCause(e).toString());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        firstErrors.forEach((operation, error) -> System.err.printf("%s failed: %s%n", operation, error));
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Result(recorders.get(operation).getIntervalHistogram(), errors.get(operation).sum()));
+        }
+        return results;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void execute(Operation operation) throws Exception {
+        long n = sequence.incrementAndGet();
+        switch (operation) {
+            case PATIENT -> {
+                PatientCreationDTO dto = fill(new PatientCreationDTO(), n);
+                dto.setHealthPlan("Plano Básico");
+                dto.setDescription("Paciente gerado pelo benchmark");
+                dto.setSymptoms(List.of("Febre", "Tosse"));
+                dto.setAllergies(List.of("Dipirona"));
+                patientService.createPatient(dto);
+            }
+            case MEDIC -> {
+                MedicCreationDTO dto = fill(new MedicCreationDTO(), n);
+                dto.setCrm("CRM-" + n);
+                dto.setMedicalSpeciality("Clínica Geral");
+                medicService.createMedic(dto);
+            }
+            case ASSISTANT -> {
+                AssistantCreationDTO dto = fill(new AssistantCreationDTO(), n);
+                dto.setActive(true);
+                assistantService.createAssistant(dto);
+            }
+        }
+    }
+
+    private static <T extends PersonCreationDTO> T fill(T dto, long n) {
+        dto.setName("Pessoa " + n);
+        dto.setBirthDate(new Date(0));
+        dto.setCpf(CpfGenerator.cpf(n));
+        dto.setGender("F");
+        dto.setEmail("bench" + n + "@email.com");
+        dto.setPhone(String.format("11%09d", n % 1_000_000_000L));
+        dto.setAddress(new AddressDTO("Centro", "Rua " + n, (int) (n % 1000), "Casa", "São Paulo", "01001-000", "SP", "APARTMENT"));
+        return dto;
+    }
+
+    /**
+     * Espera a outbox esvaziar (até 2 minutos) e devolve o atraso de entrega dos eventos enviados, em microssegundos.
+     */
+    private static Histogram drain(OutboxEventRepository outbox) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (outbox.countByStatus(OutboxStatus.PENDING) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        Histogram delivery = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        for (OutboxEvent event : outbox.findAll()) {
+            if (event.getStatus() == OutboxStatus.SENT) {
+                long micros = TimeUnit.NANOSECONDS.toMicros(
+                    Duration.between(event.getCreatedAt(), event.getSentAt()).toNanos());
+                delivery.recordValue(Math.max(0, Math.min(micros, HIGHEST_TRACKABLE_MICROS)));
+            }
+        }
+        return delivery;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    record Result(Histogram latencies, long errors) {
+    }
+}
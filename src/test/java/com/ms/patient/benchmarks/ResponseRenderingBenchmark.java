@@ -0,0 +1,202 @@
+package com.ms.patient.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.patient.dto.MedicResponseDTO;
+import com.ms.patient.dto.PatientResponseDTO;
+import com.ms.patient.dto.PersonResponseDTO;
+import com.ms.patient.enums.Habitation;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.mappers.AddressMapperImpl;
+import com.ms.patient.mappers.MedicMapper;
+import com.ms.patient.mappers.MedicMapperImpl;
+import com.ms.patient.mappers.PatientMapper;
+import com.ms.patient.mappers.PatientMapperImpl;
+import com.ms.patient.mappers.PersonMapper;
+import com.ms.patient.mappers.PersonMapperImpl;
+import com.ms.patient.models.Address;
+import com.ms.patient.models.Medic;
+import com.ms.patient.models.Patient;
+import com.ms.patient.models.Person;
+
+/**
+ * Linha de base das duas etapas de cada resposta: o mapeamento MapStruct da entidade para o DTO
+ * ({@code PatientMapper}, {@code MedicMapper}, {@code PersonMapper} e o {@code AddressMapper}
+ * usado por eles) e a escrita do DTO em JSON pelo Jackson.
+ *
+ * <p>Mede uma entidade e listas de {@code pageSize} entidades, com {@code listSize} sintomas e
+ * alergias por paciente e uma descrição ({@code @Lob}) de {@code descriptionLength} caracteres.
+ * O {@link ObjectMapper} é criado pelo {@link Jackson2ObjectMapperBuilder}, como o do Spring Boot.</p>
+ *
+ * <p>Executar com: {@code mvn -Pjmh clean test-compile exec:exec -Djmh.args="ResponseRenderingBenchmark -prof gc"}
+ * ({@code -prof gc} mostra os bytes alocados por operação, em {@code gc.alloc.rate.norm}).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseRenderingBenchmark {
+
+    @Param({"2", "20"})
+    public int listSize;
+
+    @Param({"200", "4000"})
+    public int descriptionLength;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private PatientMapper patientMapper;
+    private MedicMapper medicMapper;
+    private PersonMapper personMapper;
+    private ObjectMapper objectMapper;
+
+    private Patient patient;
+    private Medic medic;
+    private List<Patient> patients;
+    private List<Person> persons;
+
+    private PatientResponseDTO patientDto;
+    private MedicResponseDTO medicDto;
+    private List<PatientResponseDTO> patientDtos;
+    private List<PersonResponseDTO> personDtos;
+
+    @Setup
+    public void setup() {
+        AddressMapperImpl addressMapper = new AddressMapperImpl();
+        patientMapper = new PatientMapperImpl();
+        medicMapper = new MedicMapperImpl();
+        personMapper = new PersonMapperImpl();
+        ReflectionTestUtils.setField(patientMapper, "addressMapper", addressMapper);
+        ReflectionTestUtils.setField(medicMapper, "addressMapper", addressMapper);
+        ReflectionTestUtils.setField(personMapper, "addressMapper", addressMapper);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        patients = new ArrayList<>(pageSize);
+        persons = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Patient p = patient(i);
+            patients.add(p);
+            persons.add(i % 2 == 0 ? p : medic(i));
+        }
+        patient = patients.get(0);
+        medic = medic(0);
+
+        patientDto = patientMapper.toPatientResponseDTO(patient);
+        medicDto = medicMapper.toMedicResponseDTO(medic);
+        patientDtos = patientMapper.toDtoResponse(patients);
+        personDtos = personMapper.toDtoResponse(persons);
+    }
+
+    private Patient patient(int i) {
+        Patient p = new Patient("Maria Aparecida de Souza " + i, new Date(631152000000L + i), cpf(i), "F",
+            "maria.souza" + i + "@email.com", "1199999" + String.format("%04d", i), address(i),
+            description(i), "Plano Saúde Total Premium", PatientSituation.NOT_DEFINED);
+        Set<String> symptoms = new LinkedHashSet<>(listSize);
+        Set<String> allergies = new LinkedHashSet<>(listSize);
+        for (int j = 0; j < listSize; j++) {
+            symptoms.add("Dor de cabeça persistente " + j);
+            allergies.add("Dipirona sódica " + j);
+        }
+        p.setSymptoms(symptoms);
+        p.setAllergies(allergies);
+        ReflectionTestUtils.setField(p, "id", 1_000L + i);
+        return p;
+    }
+
+    private Medic medic(int i) {
+        Medic m = new Medic("João Carlos Pereira " + i, new Date(315532800000L + i), cpf(i + 1), "M",
+            "joao.pereira" + i + "@email.com", "1198888" + String.format("%04d", i), address(i),
+            "CRM/SP 12345" + i, "Cardiologia");
+        ReflectionTestUtils.setField(m, "id", 2_000L + i);
+        return m;
+    }
+
+    private static Address address(int i) {
+        return new Address("Jardim Paulista", "Avenida Brigadeiro Luís Antônio", 1000 + i, "São Paulo",
+            "01401-000", Habitation.APARTMENT, "SP", "Apartamento " + i);
+    }
+
+    private String description(int i) {
+        StringBuilder text = new StringBuilder(descriptionLength);
+        String sentence = "Paciente relata \"dor\" intermitente há " + i + " dias; sem febre. ";
+        while (text.length() < descriptionLength) {
+            text.append(sentence);
+        }
+        text.setLength(descriptionLength);
+        return text.toString();
+    }
+
+    private static String cpf(int i) {
+        return String.format("%011d", 10_000_000_000L + i);
+    }
+
+    @Benchmark
+    public PatientResponseDTO mapPatient() {
+        return patientMapper.toPatientResponseDTO(patient);
+    }
+
+    @Benchmark
+    public MedicResponseDTO mapMedic() {
+        return medicMapper.toMedicResponseDTO(medic);
+    }
+
+    @Benchmark
+    public List<PatientResponseDTO> mapPatientPage() {
+        return patientMapper.toDtoResponse(patients);
+    }
+
+    @Benchmark
+    public List<PersonResponseDTO> mapPersonPage() {
+        return personMapper.toDtoResponse(persons);
+    }
+
+    @Benchmark
+    public byte[] writePatient() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patientDto);
+    }
+
+    @Benchmark
+    public byte[] writeMedic() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(medicDto);
+    }
+
+    @Benchmark
+    public byte[] writePatientPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patientDtos);
+    }
+
+    @Benchmark
+    public byte[] writePersonPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(personDtos);
+    }
+
+    /** As duas etapas juntas, como em {@code GET /patient/{id}}. */
+    @Benchmark
+    public byte[] renderPatient() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patientMapper.toPatientResponseDTO(patient));
+    }
+}
@@ -0,0 +1,69 @@
+package com.ms.patient.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ms.patient.events.UserCreationEvent;
+import com.ms.patient.events.UserCreationEventEncoder;
+
+/**
+ * Compara a serialização anterior do evento de criação de usuário ({@code writeValueAsString}
+ * no {@link ObjectMapper}, resolvendo o serializador a cada chamada) com o
+ * {@link UserCreationEventEncoder} em JSON e em CBOR (Base64).
+ *
+ * <p>Executar com: {@code mvn -Pjmh clean test-compile exec:exec -Djmh.args="UserCreationEventEncodingBenchmark -prof gc"}
+ * ({@code -prof gc} mostra os bytes alocados por evento).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserCreationEventEncodingBenchmark {
+
+    private static final long PERSON_ID = 123_456L;
+    private static final String USERNAME = "maria.souza@email.com";
+
+    private ObjectMapper objectMapper;
+    private UserCreationEventEncoder json;
+    private UserCreationEventEncoder cbor;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        json = new UserCreationEventEncoder(objectMapper, "json");
+        cbor = new UserCreationEventEncoder(objectMapper, "cbor");
+    }
+
+    @Benchmark
+    public String legacy() throws JsonProcessingException {
+        var event = new UserCreationEvent();
+        event.setPerson_id(PERSON_ID);
+        event.setUsername(USERNAME);
+        event.setRole("USER");
+        return objectMapper.writeValueAsString(event);
+    }
+
+    @Benchmark
+    public UserCreationEventEncoder.Encoded encoderJson() throws JsonProcessingException {
+        return json.encode(PERSON_ID, USERNAME, "USER");
+    }
+
+    @Benchmark
+    public UserCreationEventEncoder.Encoded encoderCbor() throws JsonProcessingException {
+        return cbor.encode(PERSON_ID, USERNAME, "USER");
+    }
+}
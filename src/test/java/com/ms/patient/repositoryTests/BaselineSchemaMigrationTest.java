@@ -0,0 +1,162 @@
+package com.ms.patient.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ms.patient.migrations.DuplicateUniqueKeysCheck;
+import com.ms.patient.models.Address;
+import com.ms.patient.models.Assistant;
+import com.ms.patient.models.Medic;
+import com.ms.patient.models.OutboxEvent;
+import com.ms.patient.models.Patient;
+import com.ms.patient.models.Person;
+
+/**
+ * Parte de um banco criado pelo {@code ddl-auto=update}, sem histórico do Flyway (o esquema da V1),
+ * já com dados, e aplica as migrações como na inicialização da aplicação
+ * ({@code baseline-on-migrate} na versão 1).
+ */
+public class BaselineSchemaMigrationTest {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        execute("runscript from 'classpath:db/migration/h2/V1__baseline_schema.sql'");
+    }
+
+    private Flyway flyway(){
+        return Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration/h2", "classpath:com/ms/patient/migrations")
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .callbacks(new DuplicateUniqueKeysCheck())
+            .load();
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private List<String> values(String query) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rows = connection.createStatement().executeQuery(query)) {
+            while (rows.next()) {
+                values.add(rows.getString(1));
+            }
+        }
+        return values;
+    }
+
+    // 'ID' gerado pelo identity, como fazia o GenerationType.IDENTITY
+    private void insertPerson(String email, String cpf, String phone) throws SQLException {
+        execute("insert into address (number, city, complement, neighborhood, state, street, zip_code, habitation) "
+                + "values (1, 'São Paulo', '-', 'Centro', 'SP', 'Rua', '01234-567', 'HOUSE')",
+            "insert into person (address_id, birth_date, cpf, email, gender, name, phone) values ("
+                + "(select max(id) from address), current_timestamp, '" + cpf + "', '" + email + "', 'F', 'Pessoa', '" + phone + "')");
+    }
+
+    @Test
+    void shouldUpgradeDatabaseCreatedBeforeTheMigrations() throws Exception {
+        for (int i = 1; i <= 120; i++) {
+            insertPerson("p" + i + "@email.com", "cpf" + i, "tel" + i);
+        }
+        execute("insert into patients (person_id, health_plan) values (1, 'Plano')");
+
+        flyway().migrate();
+
+        MigrationInfo[] applied = flyway().info().applied();
+        assertEquals(CoreMigrationType.BASELINE, applied[0].getType());
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertEquals("5", flyway().info().current().getVersion().getVersion());
+
+        assertEquals(List.of("121"), values("select next_value from id_generators where name = 'person'"));
+        assertEquals(List.of("121"), values("select next_value from id_generators where name = 'address'"));
+        assertEquals(List.of("0"), values("select count(*) from person where version <> 0"));
+
+        SQLException duplicated = assertThrows(SQLException.class, () -> insertPerson("p1@email.com", "cpfC", "tel-c"));
+        assertTrue(duplicated.getMessage().toLowerCase().contains("uk_person_email"), duplicated.getMessage());
+    }
+
+    @Test
+    void shouldStopBeforeTheUniqueKeysWhileThereAreDuplicates() throws Exception {
+        insertPerson("a@email.com", "cpfA", "11999999999");
+        // Telefone nunca foi conferido antes da chave única
+        insertPerson("b@email.com", "cpfB", "11999999999");
+
+        FlywayException failure = assertThrows(FlywayException.class, () -> flyway().migrate());
+
+        Throwable cause = failure;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause.getMessage().contains("uk_person_phone: 1"), cause.getMessage());
+        assertTrue(cause.getMessage().contains(DuplicateUniqueKeysCheck.REPORT), cause.getMessage());
+        // Nada além do baseline foi aplicado nem registrado como falha: não é preciso flyway repair
+        for (MigrationInfo migration : flyway().info().applied()) {
+            assertEquals(CoreMigrationType.BASELINE, migration.getType());
+        }
+        assertEquals(List.of("11999999999", "11999999999"), values("select phone from person order by id"));
+
+        // O relatório aponta a chave e o valor; corrigido o cadastro, a migração segue
+        assertEquals(List.of("uk_person_phone"), values(DuplicateUniqueKeysCheck.report()));
+        execute("update person set phone = '11988888888' where email = 'b@email.com'");
+        flyway().migrate();
+
+        assertEquals("5", flyway().info().current().getVersion().getVersion());
+    }
+
+    @Test
+    void upgradedSchemaShouldMatchTheEntities() {
+        flyway().migrate();
+
+        // Mesmo que spring.jpa.hibernate.ddl-auto=validate na inicialização
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource)
+            .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "validate")
+            .build();
+        try {
+            SessionFactory sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClasses(Address.class, Person.class, Patient.class, Medic.class, Assistant.class,
+                    OutboxEvent.class)
+                .buildMetadata()
+                .buildSessionFactory();
+            sessionFactory.close();
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
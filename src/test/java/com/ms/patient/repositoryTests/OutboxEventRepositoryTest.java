@@ -0,0 +1,69 @@
+package com.ms.patient.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.ms.patient.config.BlockIdConfig;
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.models.OutboxEvent;
+import com.ms.patient.repositories.OutboxEventRepository;
+import com.ms.patient.utils.BlockAllocator;
+
+@DataJpaTest
+@TestPropertySource(locations = "classpath:applicationTest.properties")
+@Import({BlockAllocator.class, BlockIdConfig.class})
+public class OutboxEventRepositoryTest {
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    private OutboxEvent event(long personId, Instant nextAttemptAt){
+        OutboxEvent event = new OutboxEvent(personId, "{}", "application/json", nextAttemptAt);
+        return repository.save(event);
+    }
+
+    @Test
+    void shouldLockOnlyDuePendingEventsInCreationOrder(){
+        Instant now = Instant.now();
+        OutboxEvent first = event(1, now.minusSeconds(10));
+        event(2, now.plusSeconds(60));
+        OutboxEvent sent = event(3, now.minusSeconds(10));
+        sent.setStatus(OutboxStatus.SENT);
+        OutboxEvent third = event(4, now.minusSeconds(5));
+        event(5, now.minusSeconds(1));
+        repository.flush();
+
+        List<OutboxEvent> due = repository.lockDue(OutboxStatus.PENDING, now, PageRequest.of(0, 2));
+
+        assertEquals(List.of(first.getId(), third.getId()), due.stream().map(OutboxEvent::getId).toList());
+    }
+
+    @Test
+    void shouldDeleteOnlyEventsDeliveredBeforeTheRetention(){
+        Instant now = Instant.now();
+        OutboxEvent old = event(1, now);
+        old.setStatus(OutboxStatus.SENT);
+        old.setSentAt(now.minus(8, ChronoUnit.DAYS));
+        OutboxEvent recent = event(2, now);
+        recent.setStatus(OutboxStatus.SENT);
+        recent.setSentAt(now.minus(1, ChronoUnit.DAYS));
+        OutboxEvent failed = event(3, now.minus(30, ChronoUnit.DAYS));
+        failed.setStatus(OutboxStatus.FAILED);
+        repository.flush();
+
+        int removed = repository.deleteSentBefore(now.minus(7, ChronoUnit.DAYS));
+
+        assertEquals(1, removed);
+        assertEquals(2, repository.count());
+    }
+}
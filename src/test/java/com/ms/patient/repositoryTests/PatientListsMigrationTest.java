@@ -0,0 +1,123 @@
+package com.ms.patient.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Executa as migrações do H2 em um banco vazio até a V3, grava listas no formato antigo
+ * ({@code ArrayList<String>} serializado) e confere a cópia feita pela V4 e a remoção das colunas na V5.
+ */
+public class PatientListsMigrationTest {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setup(){
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    private Flyway flyway(String target){
+        return Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration/h2", "classpath:com/ms/patient/migrations")
+            .target(target)
+            .load();
+    }
+
+    private static byte[] serialize(String... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(Arrays.asList(values)));
+        }
+        return bytes.toByteArray();
+    }
+
+    private void insertPatient(long id, byte[] symptoms, byte[] allergies) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("insert into address (id, number, city, complement, neighborhood, state, "
+                + "street, zip_code, habitation) values (" + id + ", 1, 'São Paulo', '-', 'Centro', 'SP', 'Rua', '01234-567', 'HOUSE')");
+            connection.createStatement().execute("insert into person (id, address_id, birth_date, cpf, email, gender, name, phone) "
+                + "values (" + id + ", " + id + ", current_timestamp, 'cpf" + id + "', 'p" + id + "@email.com', 'F', 'Paciente', 'tel" + id + "')");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into patients (person_id, symptoms, allergies) values (?, ?, ?)")) {
+                insert.setLong(1, id);
+                insert.setBytes(2, symptoms);
+                insert.setBytes(3, allergies);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private List<String> values(String query) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rows = connection.createStatement().executeQuery(query)) {
+            while (rows.next()) {
+                values.add(rows.getLong(1) + ":" + rows.getString(2));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    void shouldCopySerializedListsAndDropOldColumns() throws Exception {
+        flyway("3").migrate();
+        insertPatient(1, serialize("Tosse", "Febre", "Tosse", "febre", null), serialize("Penicilina"));
+        insertPatient(2, null, serialize());
+        insertPatient(3, serialize("Dor"), null);
+
+        flyway("latest").migrate();
+
+        // Valores que só diferem nas maiúsculas são distintos, como no Set<String> da entidade
+        assertEquals(List.of("1:Febre", "1:Tosse", "1:febre", "3:Dor"),
+            values("select patient_id, symptom from patient_symptoms order by patient_id, symptom"));
+        assertEquals(List.of("1:Penicilina"),
+            values("select patient_id, allergy from patient_allergies order by patient_id, allergy"));
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(null, null, "PATIENTS", "SYMPTOMS")) {
+                assertFalse(columns.next());
+            }
+        }
+    }
+
+    @Test
+    void shouldRefuseAnythingButListsOfStrings() throws Exception {
+        flyway("3").migrate();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(List.of(new Date())));
+        }
+        insertPatient(1, bytes.toByteArray(), null);
+
+        assertThrows(FlywayException.class, () -> flyway("latest").migrate());
+        // A migração falhou dentro da transação: as colunas antigas continuam lá
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rows = connection.createStatement().executeQuery("select symptoms from patients")) {
+            rows.next();
+            assertEquals(bytes.size(), rows.getBytes(1).length);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.ms.patient.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.ms.patient.config.BlockIdConfig;
+import com.ms.patient.dto.MedicResponseDTO;
+import com.ms.patient.dto.PatientResponseDTO;
+import com.ms.patient.dto.PatientsFingerprintDTO;
+import com.ms.patient.dto.PersonEmailSenderDto;
+import com.ms.patient.dto.PersonResponseDTO;
+import com.ms.patient.dto.UniquenessConflictsDTO;
+import com.ms.patient.enums.Habitation;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.mappers.AddressMapperImpl;
+import com.ms.patient.mappers.MedicMapper;
+import com.ms.patient.mappers.MedicMapperImpl;
+import com.ms.patient.mappers.PatientMapper;
+import com.ms.patient.mappers.PatientMapperImpl;
+import com.ms.patient.mappers.PersonMapper;
+import com.ms.patient.mappers.PersonMapperImpl;
+import com.ms.patient.models.Address;
+import com.ms.patient.models.Medic;
+import com.ms.patient.models.Patient;
+import com.ms.patient.repositories.MedicRepository;
+import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.repositories.PersonRepository;
+import com.ms.patient.service.NdjsonExporter;
+import com.ms.patient.testUtils.StatementCounter;
+import com.ms.patient.utils.BlockAllocator;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Garante que as consultas por trás dos endpoints de listagem e detalhe executam
+ * uma quantidade constante de SQLs, independente da quantidade de registros retornados
+ * (sem N+1 no carregamento do {@link Address}, dos sintomas e das alergias).
+ */
+@DataJpaTest
+@TestPropertySource(locations = "classpath:applicationTest.properties")
+@Import({PatientMapperImpl.class, MedicMapperImpl.class, PersonMapperImpl.class, AddressMapperImpl.class,
+    BlockAllocator.class, BlockIdConfig.class})
+public class PatientRepositoryTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private MedicRepository medicRepository;
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PatientMapper patientMapper;
+    @Autowired
+    private MedicMapper medicMapper;
+    @Autowired
+    private PersonMapper personMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private StatementCounter statements;
+
+    @BeforeEach
+    void setup(){
+        statements = new StatementCounter(entityManager);
+    }
+
+    private Address address(int i){
+        return new Address("Centro", "Rua " + i, i, "São Paulo", "01234-567", Habitation.APARTMENT, "SP", "Apto " + i);
+    }
+
+    private void createPatients(int quantity){
+        for (int i = 0; i < quantity; i++) {
+            Patient patient = new Patient("Paciente " + i, new Date(), "cpf-p" + i, "F", "p" + i + "@email.com",
+                    "1199999" + i, address(i), "Descrição", "Plano VIP", PatientSituation.STABLE);
+            patient.getSymptoms().addAll(i % 2 == 0 ? Set.of("Febre", "Tosse") : Set.of("Tosse"));
+            patient.getAllergies().addAll(i % 3 == 0 ? Set.of("Penicilina") : Set.of());
+            patientRepository.save(patient);
+        }
+    }
+
+    private List<Long> ids(Slice<Patient> page){
+        return page.map(Patient::getId).getContent();
+    }
+
+    private void createMedics(int quantity){
+        for (int i = 0; i < quantity; i++) {
+            medicRepository.save(new Medic("Médico " + i, new Date(), "cpf-m" + i, "M", "m" + i + "@email.com",
+                    "1188888" + i, address(i), "CRM" + i, "Cardiologista"));
+        }
+    }
+
+    @Nested
+    class ListEndpoints{
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 25})
+        void patientListShouldUseOneStatementPerTable(int quantity){
+            createPatients(quantity);
+
+            // A página (com person e address) e um 'IN' em lote por coleção, qualquer que seja o tamanho
+            List<PatientResponseDTO> page = statements.assertStatements(3, () ->
+                patientRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 50))
+                    .map(patientMapper::toPatientResponseDTO)
+                    .getContent());
+
+            assertEquals(quantity, page.size());
+            assertTrue(page.stream().allMatch(dto -> "São Paulo".equals(dto.getAddress().getCity())));
+            assertEquals(List.of("Febre", "Tosse"), page.get(0).getSymptoms());
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 25})
+        void medicListShouldUseOneStatement(int quantity){
+            createMedics(quantity);
+
+            List<MedicResponseDTO> page = statements.assertStatements(1, () ->
+                medicRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 50))
+                    .map(medicMapper::toMedicResponseDTO)
+                    .getContent());
+
+            assertEquals(quantity, page.size());
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 25})
+        void personListShouldUseOneStatement(int quantity){
+            createPatients(quantity);
+            createMedics(quantity);
+
+            List<PersonResponseDTO> page = statements.assertStatements(1, () ->
+                personRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100))
+                    .map(personMapper::toDtoResponse)
+                    .getContent());
+
+            assertEquals(quantity * 2, page.size());
+        }
+    }
+
+    @Nested
+    class Export{
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 150})
+        void patientExportShouldLoadCollectionsOncePerChunk(int quantity) throws Exception{
+            createPatients(quantity);
+            NdjsonExporter exporter = new NdjsonExporter(entityManager, new ObjectMapper(), 100);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            // O cursor e, a cada bloco de 100, um 'IN' em lote por coleção (e não dois SELECTs por paciente)
+            long chunks = (quantity + 99) / 100;
+            long written = statements.assertStatements(1 + 2 * chunks, () -> {
+                try (Stream<Patient> patients = patientRepository.streamAll()) {
+                    return exporter.export(patients, patientMapper::toPatientResponseDTO, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            assertEquals(quantity, written);
+            List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(quantity, lines.size());
+            assertTrue(lines.get(0).contains("\"symptoms\":[\"Febre\",\"Tosse\"]"), lines.get(0));
+            // Nada fica no contexto de persistência depois da exportação
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        }
+    }
+
+    @Nested
+    class ClinicalFilters{
+
+        @Test
+        void shouldFilterBySymptomInIdOrder(){
+            createPatients(5);
+            List<Long> all = ids(patientRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+
+            List<Long> withFever = ids(patientRepository.findBySymptom("Febre", 0L, PageRequest.of(0, 10)));
+
+            assertEquals(List.of(all.get(0), all.get(2), all.get(4)), withFever);
+        }
+
+        @Test
+        void shouldContinueAfterCursor(){
+            createPatients(5);
+            List<Long> all = ids(patientRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+
+            List<Long> page = ids(patientRepository.findBySymptom("Tosse", all.get(1), PageRequest.of(0, 2)));
+
+            assertEquals(List.of(all.get(2), all.get(3)), page);
+        }
+
+        @Test
+        void shouldFilterByAllergyAndByBoth(){
+            createPatients(5);
+            List<Long> all = ids(patientRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+
+            assertEquals(List.of(all.get(0), all.get(3)),
+                ids(patientRepository.findByAllergy("Penicilina", 0L, PageRequest.of(0, 10))));
+            assertEquals(List.of(all.get(0)),
+                ids(patientRepository.findBySymptomAndAllergy("Febre", "Penicilina", 0L, PageRequest.of(0, 10))));
+        }
+    }
+
+    @Nested
+    class ClinicalIndexQueries{
+
+        @Test
+        void fingerprintShouldChangeWithEveryUpdate(){
+            createPatients(3);
+            long maxId = patientRepository.findAll().stream().mapToLong(Patient::getId).max().orElseThrow();
+            PatientsFingerprintDTO before = patientRepository.findFingerprint();
+
+            patientRepository.findForUpdateById(maxId).orElseThrow().setHealthPlan("Plano Básico");
+            PatientsFingerprintDTO after = patientRepository.findFingerprint();
+
+            assertEquals(3, before.getCount());
+            assertEquals(maxId, before.getMaxId());
+            assertEquals(before.getVersionSum() + 1, after.getVersionSum());
+        }
+
+        @Test
+        void emptyTableShouldHaveZeroFingerprint(){
+            assertEquals(new PatientsFingerprintDTO(0L, null, null), patientRepository.findFingerprint());
+        }
+
+        @Test
+        void shouldStreamEveryTermPair(){
+            createPatients(3);
+
+            try (Stream<Object[]> symptoms = patientRepository.streamSymptoms();
+                 Stream<Object[]> allergies = patientRepository.streamAllergies();
+                 Stream<Object[]> situations = patientRepository.streamSituations()) {
+                assertEquals(List.of("Febre", "Febre", "Tosse", "Tosse", "Tosse"),
+                    symptoms.map(row -> (String) row[1]).sorted().toList());
+                assertEquals(List.of("Penicilina"), allergies.map(row -> (String) row[1]).toList());
+                assertTrue(situations.allMatch(row -> row[1] == PatientSituation.STABLE && (Long) row[2] == 0L));
+            }
+        }
+
+        @Test
+        void shouldLoadPageFoundInTheIndexInIdOrder(){
+            createPatients(3);
+            List<Long> all = ids(patientRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)));
+
+            // Como a listagem: a página e um 'IN' em lote por coleção
+            List<PatientResponseDTO> found = statements.assertStatements(3, () ->
+                patientRepository.findByIdInOrderByIdAsc(List.of(all.get(2), all.get(0), -1L)).stream()
+                    .map(patientMapper::toPatientResponseDTO)
+                    .toList());
+
+            assertEquals(List.of(all.get(0), all.get(2)), found.stream().map(PatientResponseDTO::getId).toList());
+        }
+    }
+
+    @Nested
+    class UniquenessConflicts{
+
+        @Test
+        void shouldReportEveryConflictInOneStatement(){
+            createPatients(1);
+            createMedics(1);
+
+            UniquenessConflictsDTO conflicts = statements.assertStatements(1, () ->
+                personRepository.findConflicts("p0@email.com", "cpf-m0", "none", "CRM0"));
+
+            assertTrue(conflicts.isEmail());
+            assertTrue(conflicts.isCpf());
+            assertFalse(conflicts.isPhone());
+            assertTrue(conflicts.isCrm());
+        }
+
+        @Test
+        void databaseShouldRejectDuplicateCpf(){
+            createMedics(1);
+
+            assertThrows(DataIntegrityViolationException.class, () -> {
+                patientRepository.save(new Patient("Paciente", new Date(), "cpf-m0", "F", "outro@email.com",
+                        "11777770", address(1), "Descrição", "Plano VIP", PatientSituation.STABLE));
+                patientRepository.flush();
+            });
+        }
+
+        @Test
+        void databaseShouldRejectDuplicatePhoneByName(){
+            // O nome da restrição é o que o PersonService.uniqueKeyConflict procura
+            createMedics(1);
+
+            DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class, () ->
+                patientRepository.saveAndFlush(new Patient("Paciente", new Date(), "outro-cpf", "F", "outro@email.com",
+                        "11888880", address(1), "Descrição", "Plano VIP", PatientSituation.STABLE)));
+            ConstraintViolationException violation = assertInstanceOf(ConstraintViolationException.class, exception.getCause());
+            assertTrue(violation.getConstraintName().toLowerCase(Locale.ROOT).contains("uk_person_phone"));
+        }
+
+        @Test
+        void shouldReportNoConflictWhenNothingMatches(){
+            createMedics(1);
+
+            UniquenessConflictsDTO conflicts = personRepository.findConflicts("new@email.com", "new-cpf", "new-phone", null);
+
+            assertFalse(conflicts.isEmail() || conflicts.isCpf() || conflicts.isPhone() || conflicts.isCrm());
+        }
+    }
+
+    @Nested
+    class BatchInserts{
+
+        @Test
+        void savingManyPatientsShouldGroupInsertsIntoJdbcBatches(){
+            List<Patient> patients = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                patients.add(new Patient("Paciente " + i, new Date(), "cpf-p" + i, "F", "p" + i + "@email.com",
+                        "1199999" + i, address(i), "Descrição", "Plano VIP", PatientSituation.STABLE));
+            }
+            long executed = statements.count(() -> {
+                patientRepository.saveAll(patients);
+                patientRepository.flush();
+            });
+
+            // Sem batching seriam 300 (address, person e patients por paciente);
+            // com hibernate.jdbc.batch_size=50, no máximo um SQL por tabela e lote.
+            assertTrue(executed <= 6, "Inserts were not batched: " + executed + " statements");
+            assertEquals(100, patientRepository.count());
+        }
+    }
+
+    @Nested
+    class DetailEndpoints{
+
+        @Test
+        void patientDetailShouldUseOneStatementPerTable(){
+            createPatients(1);
+            long id = patientRepository.findAll().get(0).getId();
+
+            PatientResponseDTO dto = statements.assertStatements(3, () ->
+                patientMapper.toPatientResponseDTO(patientRepository.findById(id).orElseThrow()));
+
+            assertEquals("São Paulo", dto.getAddress().getCity());
+            assertEquals(List.of("Penicilina"), dto.getAllergies());
+        }
+
+        @Test
+        void emailSenderLookupShouldUseOneStatementWithoutLoadingTheEntity(){
+            createPatients(1);
+            long id = patientRepository.findAll().get(0).getId();
+
+            PersonEmailSenderDto dto = statements.assertStatements(1, () ->
+                personRepository.findEmailSenderById(id).orElseThrow());
+
+            assertEquals("p0@email.com", dto.getEmail());
+            assertEquals("Paciente 0", dto.getNome());
+            assertEquals(0, entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                    .getStatistics().getEntityLoadCount());
+        }
+    }
+}
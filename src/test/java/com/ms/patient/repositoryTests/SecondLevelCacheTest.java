@@ -0,0 +1,252 @@
+package com.ms.patient.repositoryTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ms.patient.config.BlockIdConfig;
+import com.ms.patient.config.SecondLevelCacheConfig;
+import com.ms.patient.dto.PatientResponseDTO;
+import com.ms.patient.enums.Habitation;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.mappers.AddressMapperImpl;
+import com.ms.patient.mappers.PatientMapper;
+import com.ms.patient.mappers.PatientMapperImpl;
+import com.ms.patient.models.Address;
+import com.ms.patient.models.Medic;
+import com.ms.patient.models.Patient;
+import com.ms.patient.models.Person;
+import com.ms.patient.repositories.MedicRepository;
+import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.repositories.PersonRepository;
+import com.ms.patient.service.PersonCacheEvictor;
+import com.ms.patient.utils.BlockAllocator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Garante que as buscas por 'ID' e por e-mail repetidas são servidas pelo cache de segundo
+ * nível (nenhum SQL) e que as atualizações e remoções não deixam entradas desatualizadas.
+ *
+ * <p>Sem a transação de teste do {@code @DataJpaTest}: o cache só recebe o estado
+ * gravado quando a transação que o gravou é confirmada.</p>
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(locations = "classpath:applicationTest.properties")
+@Import({SecondLevelCacheConfig.class, PersonCacheEvictor.class, SimpleMeterRegistry.class, PatientMapperImpl.class,
+    AddressMapperImpl.class, BlockAllocator.class, BlockIdConfig.class})
+public class SecondLevelCacheTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private MedicRepository medicRepository;
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PatientMapper patientMapper;
+    @Autowired
+    private PersonCacheEvictor cacheEvictor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransactionTemplate transaction;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup(){
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanup(){
+        personRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    private Address address(int i){
+        return new Address("Centro", "Rua " + i, i, "São Paulo", "01234-567", Habitation.APARTMENT, "SP", "Apto " + i);
+    }
+
+    private long createPatient(){
+        return patientRepository.save(new Patient("Paciente", new Date(), "cpf-p", "F", "p@email.com",
+                "11999990", address(1), "Descrição", "Plano VIP", PatientSituation.STABLE)).getId();
+    }
+
+    // Busca e mapeia em uma transação própria, como o endpoint de detalhe; retorna os SQLs executados
+    private long statementsOf(Runnable action){
+        statistics.clear();
+        transaction.executeWithoutResult(status -> action.run());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private PatientResponseDTO patientDetail(long id){
+        return transaction.execute(status -> patientMapper.toPatientResponseDTO(patientRepository.findById(id).orElseThrow()));
+    }
+
+    @Nested
+    class Reads{
+
+        @Test
+        void repeatedPatientDetailShouldNotTouchTheDatabase(){
+            long id = createPatient();
+            entityManagerFactory.getCache().evictAll();
+            patientDetail(id);
+
+            long executed = statementsOf(() -> {
+                PatientResponseDTO dto = patientMapper.toPatientResponseDTO(patientRepository.findById(id).orElseThrow());
+                assertEquals("São Paulo", dto.getAddress().getCity());
+            });
+
+            assertEquals(0, executed);
+        }
+
+        @Test
+        void subclassesShouldShareThePersonRegion(){
+            long medicId = medicRepository.save(new Medic("Médico", new Date(), "cpf-m", "M", "m@email.com",
+                    "11888880", address(2), "CRM1", "Cardiologista")).getId();
+            entityManagerFactory.getCache().evictAll();
+            transaction.executeWithoutResult(status -> medicRepository.findById(medicId).orElseThrow());
+
+            long executed = statementsOf(() -> {
+                Person person = personRepository.findById(medicId).orElseThrow();
+                assertTrue(person instanceof Medic);
+            });
+
+            assertEquals(0, executed);
+        }
+
+        @Test
+        void shouldPublishHitsAndMissesPerRegion(){
+            long id = createPatient();
+            entityManagerFactory.getCache().evictAll();
+            patientDetail(id);
+            patientDetail(id);
+
+            double hits = meterRegistry.get("cache.gets").tag("cache", SecondLevelCacheConfig.PERSON_REGION)
+                .tag("result", "hit").functionCounter().count();
+            double misses = meterRegistry.get("cache.gets").tag("cache", SecondLevelCacheConfig.PERSON_REGION)
+                .tag("result", "miss").functionCounter().count();
+            assertTrue(hits >= 1, "hits: " + hits);
+            assertTrue(misses >= 1, "misses: " + misses);
+        }
+    }
+
+    @Nested
+    class NaturalIds{
+
+        @Test
+        void repeatedLookupByEmailShouldNotTouchTheDatabase(){
+            long id = createPatient();
+            entityManagerFactory.getCache().evictAll();
+            transaction.executeWithoutResult(status -> personRepository.findPersonByEmail("p@email.com"));
+
+            long executed = statementsOf(() -> {
+                Person person = personRepository.findPersonByEmail("p@email.com");
+                assertEquals(id, person.getId());
+                assertTrue(person instanceof Patient);
+            });
+
+            assertEquals(0, executed);
+        }
+
+        @Test
+        void unknownEmailShouldReturnNull(){
+            createPatient();
+
+            assertNull(personRepository.findPersonByEmail("none@email.com"));
+        }
+
+        @Test
+        void emailChangeShouldReplaceCachedResolution(){
+            long id = createPatient();
+            personRepository.findPersonByEmail("p@email.com");
+
+            // Mesmo fluxo do PatientService.updatePatient
+            transaction.executeWithoutResult(status -> {
+                patientRepository.findForUpdateById(id).orElseThrow().setEmail("novo@email.com");
+                cacheEvictor.evictAfterCompletion(id);
+            });
+
+            assertNull(personRepository.findPersonByEmail("p@email.com"));
+            assertEquals(id, personRepository.findPersonByEmail("novo@email.com").getId());
+        }
+    }
+
+    @Nested
+    class Writes{
+
+        @Test
+        void updateShouldNotLeaveStaleEntry(){
+            long id = createPatient();
+            patientDetail(id);
+
+            // Mesmo fluxo do PatientService.updatePatient
+            transaction.executeWithoutResult(status -> {
+                Patient patient = patientRepository.findForUpdateById(id).orElseThrow();
+                patient.setName("Paciente Atualizado");
+                patient.getAddress().setCity("Campinas");
+                cacheEvictor.evictAfterCompletion(id);
+            });
+
+            PatientResponseDTO dto = patientDetail(id);
+            assertEquals("Paciente Atualizado", dto.getName());
+            assertEquals("Campinas", dto.getAddress().getCity());
+            // A versão em cache é a mesma do banco (a ETag do detalhe não fica desatualizada)
+            long cachedVersion = transaction.execute(status -> patientRepository.findById(id).orElseThrow().getVersion());
+            assertEquals(patientRepository.findVersionById(id).orElseThrow(), cachedVersion);
+        }
+
+        @Test
+        void addressOnlyUpdateShouldNotLeaveStaleVersion(){
+            long id = createPatient();
+            patientDetail(id);
+
+            transaction.executeWithoutResult(status -> {
+                patientRepository.findForUpdateById(id).orElseThrow().getAddress().setCity("Campinas");
+                cacheEvictor.evictAfterCompletion(id);
+            });
+
+            long cachedVersion = transaction.execute(status -> patientRepository.findById(id).orElseThrow().getVersion());
+            assertEquals(1L, cachedVersion);
+            assertEquals("Campinas", patientDetail(id).getAddress().getCity());
+        }
+
+        @Test
+        void deleteShouldEvictCachedEntry(){
+            long id = createPatient();
+            patientDetail(id);
+
+            patientRepository.deleteById(id);
+
+            assertEquals(Boolean.FALSE, transaction.execute(status -> patientRepository.findById(id).isPresent()));
+            assertEquals(Boolean.FALSE, transaction.execute(status -> personRepository.findById(id).isPresent()));
+        }
+    }
+}
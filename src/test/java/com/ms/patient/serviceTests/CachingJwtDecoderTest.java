@@ -0,0 +1,151 @@
+package com.ms.patient.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import com.ms.patient.config.CachingJwtDecoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CachingJwtDecoderTest {
+
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setup(){
+        delegate = mock(JwtDecoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        decoder = new CachingJwtDecoder(delegate, meterRegistry, 100, Duration.ofMinutes(15), clock);
+    }
+
+    private Jwt jwt(String token, Instant expiresAt){
+        return Jwt.withTokenValue(token)
+            .header("alg", "HS256")
+            .claim("role", "ADMIN")
+            .issuedAt(expiresAt.minusSeconds(3600))
+            .expiresAt(expiresAt)
+            .build();
+    }
+
+    private double cacheGets(String result){
+        return meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", result).functionCounter().count();
+    }
+
+    @Nested
+    class Cache {
+
+        @Test
+        void shouldDecodeSameTokenOnce(){
+            Jwt jwt = jwt("a", clock.instant().plusSeconds(3600));
+            when(delegate.decode("a")).thenReturn(jwt);
+
+            assertSame(jwt, decoder.decode("a"));
+            assertSame(jwt, decoder.decode("a"));
+
+            verify(delegate, times(1)).decode("a");
+            assertEquals(1, cacheGets("hit"));
+            assertEquals(1, cacheGets("miss"));
+            assertEquals(1, meterRegistry.get("jwt.decode").timer().count());
+        }
+
+        @Test
+        void shouldKeepTokensApart(){
+            Jwt first = jwt("a", clock.instant().plusSeconds(3600));
+            Jwt second = jwt("b", clock.instant().plusSeconds(3600));
+            when(delegate.decode("a")).thenReturn(first);
+            when(delegate.decode("b")).thenReturn(second);
+
+            assertSame(first, decoder.decode("a"));
+            assertSame(second, decoder.decode("b"));
+            assertSame(first, decoder.decode("a"));
+        }
+
+        @Test
+        void shouldNotCacheRejectedTokens(){
+            when(delegate.decode("bad")).thenThrow(new BadJwtException("invalid signature"));
+
+            assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+            assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+            verify(delegate, times(2)).decode("bad");
+        }
+    }
+
+    @Nested
+    class Expiration {
+
+        @Test
+        void shouldDecodeAgainAfterExp(){
+            Jwt jwt = jwt("a", clock.instant().plusSeconds(60));
+            when(delegate.decode("a")).thenReturn(jwt);
+
+            decoder.decode("a");
+            clock.advance(Duration.ofSeconds(61));
+            decoder.decode("a");
+
+            verify(delegate, times(2)).decode("a");
+        }
+
+        @Test
+        void shouldNotCacheTokenAlreadyExpired(){
+            // O decodificador original aceita tokens vencidos há pouco (tolerância de relógio)
+            Jwt jwt = jwt("a", clock.instant().minusSeconds(10));
+            when(delegate.decode("a")).thenReturn(jwt);
+
+            decoder.decode("a");
+            decoder.decode("a");
+
+            verify(delegate, times(2)).decode("a");
+        }
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now){
+            this.now = now;
+        }
+
+        void advance(Duration duration){
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone(){
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone){
+            return this;
+        }
+
+        @Override
+        public Instant instant(){
+            return now;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.ms.patient.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ms.patient.dto.PatientsFingerprintDTO;
+import com.ms.patient.enums.PatientSituation;
+import com.ms.patient.exceptions.ClinicalIndexUnavailableException;
+import com.ms.patient.models.Patient;
+import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.service.ClinicalIndex;
+import com.ms.patient.utils.ClinicalQuery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ClinicalIndexTest {
+
+    @Mock
+    private PatientRepository repository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    private Path snapshot;
+    private SimpleMeterRegistry meterRegistry;
+    private ClinicalIndex index;
+
+    @BeforeEach
+    void setup(){
+        snapshot = directory.resolve("clinical-index.bin");
+        meterRegistry = new SimpleMeterRegistry();
+        index = newIndex();
+    }
+
+    private ClinicalIndex newIndex(){
+        return new ClinicalIndex(repository, transactionManager, meterRegistry, true, snapshot.toString());
+    }
+
+    // Pacientes 1 a 3 no banco, todos na versão 1: 1 com febre e internado, 2 com febre e alérgico a penicilina, 3 sem nada
+    private void givenDatabase(){
+        when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(3L, 3L, 3L));
+        when(repository.streamSituations()).thenAnswer(invocation -> Stream.<Object[]>of(
+            new Object[] {1L, PatientSituation.HOSPITALIZED, 1L},
+            new Object[] {2L, PatientSituation.STABLE, 1L},
+            new Object[] {3L, null, 1L}));
+        when(repository.streamSymptoms()).thenAnswer(invocation -> Stream.<Object[]>of(
+            new Object[] {1L, "Febre"},
+            new Object[] {2L, " febre "}));
+        when(repository.streamAllergies()).thenAnswer(invocation -> Stream.<Object[]>of(
+            new Object[] {2L, "Penicilina"}));
+    }
+
+    private static Patient patient(long id, PatientSituation situation, Set<String> symptoms, Set<String> allergies){
+        return patient(id, 0, situation, symptoms, allergies);
+    }
+
+    private static Patient patient(long id, long version, PatientSituation situation, Set<String> symptoms, Set<String> allergies){
+        Patient patient = new Patient();
+        ReflectionTestUtils.setField(patient, "id", id);
+        ReflectionTestUtils.setField(patient, "version", version);
+        patient.setPatientSituation(situation);
+        patient.getSymptoms().addAll(symptoms);
+        patient.getAllergies().addAll(allergies);
+        return patient;
+    }
+
+    private List<Long> search(ClinicalIndex index, String query){
+        return index.search(ClinicalQuery.parse(query), 0, 100);
+    }
+
+    @Nested
+    class WarmUp{
+
+        @Test
+        void shouldBuildFromDatabase(){
+            givenDatabase();
+
+            index.warmUp();
+
+            assertEquals(List.of(1L, 2L), search(index, "symptom:FEBRE"));
+            assertEquals(List.of(2L), search(index, "symptom:febre AND NOT situation:hospitalized"));
+            assertEquals(List.of(1L, 3L), search(index, "NOT allergy:penicilina"));
+            assertEquals(1.0, meterRegistry.get("clinical.index.ready").gauge().value());
+            assertEquals(3.0, meterRegistry.get("clinical.index.patients").gauge().value());
+        }
+
+        @Test
+        void searchShouldBeUnavailableBeforeWarmUp(){
+            assertThrows(ClinicalIndexUnavailableException.class, () -> search(index, "symptom:febre"));
+        }
+
+        @Test
+        void changesCommittedDuringWarmUpShouldBeReplayed(){
+            givenDatabase();
+            // Gravadas depois da leitura do banco: a carga ainda vê o paciente 2 e não vê o 4
+            index.removeAfterCommit(2L, 1L);
+            index.indexAfterCommit(patient(4L, PatientSituation.CRITICAL, Set.of("Febre"), Set.of()));
+
+            index.warmUp();
+
+            assertEquals(List.of(1L, 4L), search(index, "symptom:febre"));
+            assertEquals(List.of(), search(index, "allergy:penicilina"));
+        }
+
+        @Test
+        void changesTheLoadAlreadySawShouldBeIgnored(){
+            givenDatabase();
+            // Confirmada antes da leitura do banco, que já traz o paciente 1 na versão 1
+            index.indexAfterCommit(patient(1L, 1L, PatientSituation.DISCHARGE, Set.of("Tosse"), Set.of()), 0L);
+
+            index.warmUp();
+
+            assertEquals(List.of(1L, 2L), search(index, "symptom:febre"));
+            assertEquals(List.of(1L), search(index, "situation:hospitalized"));
+        }
+
+        @Test
+        void failedWarmUpShouldLeaveSearchUnavailable(){
+            when(repository.findFingerprint()).thenThrow(new IllegalStateException("database down"));
+
+            index.warmUp();
+            index.indexAfterCommit(patient(4L, PatientSituation.CRITICAL, Set.of("Febre"), Set.of()));
+
+            assertThrows(ClinicalIndexUnavailableException.class, () -> search(index, "symptom:febre"));
+        }
+    }
+
+    @Nested
+    class Maintenance{
+
+        @BeforeEach
+        void warmUp(){
+            givenDatabase();
+            index.warmUp();
+        }
+
+        @Test
+        void reindexShouldReplacePreviousTerms(){
+            index.indexAfterCommit(patient(1L, 2L, PatientSituation.DISCHARGE, Set.of("Tosse"), Set.of("Dipirona")), 1L);
+
+            assertEquals(List.of(2L), search(index, "symptom:febre"));
+            assertEquals(List.of(1L), search(index, "symptom:tosse AND allergy:dipirona AND situation:discharge"));
+            assertEquals(List.of(), search(index, "situation:hospitalized"));
+        }
+
+        @Test
+        void removedPatientShouldLeaveEveryBitmap(){
+            index.removeAfterCommit(2L, 1L);
+
+            assertEquals(List.of(1L, 3L), search(index, "NOT symptom:tosse"));
+            assertEquals(List.of(), search(index, "allergy:penicilina OR situation:stable"));
+        }
+
+        @Test
+        void updatesCommittedOutOfOrderShouldKeepTheNewest(){
+            // Os afterCommit das versões 2 e 3 do paciente 1 chegam invertidos
+            index.indexAfterCommit(patient(1L, 3L, PatientSituation.STABLE, Set.of("Dor"), Set.of()), 2L);
+            index.indexAfterCommit(patient(1L, 2L, PatientSituation.DISCHARGE, Set.of("Tosse"), Set.of()), 1L);
+
+            assertEquals(List.of(1L), search(index, "symptom:dor AND situation:stable"));
+            assertEquals(List.of(), search(index, "symptom:tosse OR situation:discharge"));
+            assertEquals(List.of(2L), search(index, "symptom:febre"));
+        }
+
+        @Test
+        void removalShouldNotBeUndoneByALateUpdate(){
+            index.removeAfterCommit(2L, 2L);
+            index.indexAfterCommit(patient(2L, 2L, PatientSituation.STABLE, Set.of("Febre"), Set.of()), 1L);
+
+            assertEquals(List.of(1L), search(index, "symptom:febre"));
+            assertEquals(List.of(1L, 3L), search(index, "NOT situation:critical"));
+        }
+
+        @Test
+        void changesShouldWaitForCommit(){
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                index.indexAfterCommit(patient(5L, PatientSituation.STABLE, Set.of("Febre"), Set.of()));
+                assertEquals(List.of(1L, 2L), search(index, "symptom:febre"));
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                assertEquals(List.of(1L, 2L, 5L), search(index, "symptom:febre"));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        void searchShouldPageByCursor(){
+            index.indexAfterCommit(patient(7L, PatientSituation.STABLE, Set.of("Febre"), Set.of()));
+
+            assertEquals(List.of(2L, 7L), index.search(ClinicalQuery.parse("symptom:febre"), 1L, 2));
+            assertEquals(List.of(1L), index.search(ClinicalQuery.parse("symptom:febre"), 0L, 1));
+            assertEquals(List.of(), index.search(ClinicalQuery.parse("symptom:febre"), 7L, 10));
+        }
+    }
+
+    @Nested
+    class Snapshot{
+
+        @Test
+        void restartShouldLoadSnapshotWithoutReadingTheTables(){
+            givenDatabase();
+            index.warmUp();
+            index.writeSnapshot();
+            assertTrue(Files.exists(snapshot));
+
+            ClinicalIndex restarted = new ClinicalIndex(repository, transactionManager, new SimpleMeterRegistry(), true, snapshot.toString());
+            clearInvocations(repository);
+            restarted.warmUp();
+
+            verify(repository, never()).streamSituations();
+            verify(repository, never()).streamSymptoms();
+            assertEquals(List.of(2L), search(restarted, "symptom:febre AND allergy:penicilina AND situation:stable"));
+            assertEquals(List.of(3L), search(restarted, "NOT symptom:febre"));
+        }
+
+        @Test
+        void snapshotShouldKeepVersionsAndTermsOfEachPatient(){
+            givenDatabase();
+            index.warmUp();
+            index.writeSnapshot();
+
+            ClinicalIndex restarted = newIndex();
+            restarted.warmUp();
+            restarted.indexAfterCommit(patient(2L, 2L, null, Set.of(), Set.of()), 1L);
+            // Versão já refletida no snapshot
+            restarted.indexAfterCommit(patient(1L, 1L, null, Set.of(), Set.of()), 0L);
+
+            assertEquals(List.of(1L), search(restarted, "symptom:febre AND situation:hospitalized"));
+            assertEquals(List.of(), search(restarted, "allergy:penicilina OR situation:stable"));
+        }
+
+        @Test
+        void staleSnapshotShouldBeRebuilt(){
+            givenDatabase();
+            index.warmUp();
+            index.writeSnapshot();
+            // Outra atualização depois do desligamento: soma das versões diferente
+            when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(3L, 3L, 4L));
+
+            ClinicalIndex restarted = new ClinicalIndex(repository, transactionManager, new SimpleMeterRegistry(), true, snapshot.toString());
+            clearInvocations(repository);
+            restarted.warmUp();
+
+            verify(repository).streamSituations();
+            assertEquals(List.of(1L, 2L), search(restarted, "symptom:febre"));
+        }
+
+        @Test
+        void indexThatMissedOtherWritesShouldNotBeSaved() throws Exception {
+            givenDatabase();
+            index.warmUp();
+            Files.writeString(snapshot, "old");
+            // Outra instância cadastrou um paciente que este índice não conhece
+            when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(4L, 9L, 4L));
+
+            index.writeSnapshot();
+
+            assertFalse(Files.exists(snapshot));
+        }
+
+        @Test
+        void ownChangesShouldKeepTheSnapshotValid(){
+            givenDatabase();
+            index.warmUp();
+            index.indexAfterCommit(patient(4L, PatientSituation.CRITICAL, Set.of("Febre"), Set.of()));
+            index.indexAfterCommit(patient(1L, 3L, PatientSituation.DISCHARGE, Set.of(), Set.of()), 1L);
+            index.removeAfterCommit(2L, 1L);
+            // Banco depois das gravações acima: pacientes 1, 3 e 4, versões 3 + 1 + 0
+            when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(3L, 4L, 4L));
+
+            index.writeSnapshot();
+
+            ClinicalIndex restarted = newIndex();
+            clearInvocations(repository);
+            restarted.warmUp();
+            verify(repository, never()).streamSymptoms();
+            assertEquals(List.of(4L), search(restarted, "symptom:febre"));
+        }
+
+        @Test
+        void indexThatMissedAnUpdateShouldNotBeSaved() throws Exception {
+            givenDatabase();
+            index.warmUp();
+            Files.writeString(snapshot, "old");
+            // Outra instância alterou os sintomas do paciente 1: mesma quantidade e maior 'ID', versão maior
+            when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(3L, 3L, 4L));
+
+            index.writeSnapshot();
+
+            assertFalse(Files.exists(snapshot));
+        }
+
+        @Test
+        void changesReplayedAfterWarmUpShouldNotBeSaved(){
+            givenDatabase();
+            // Não dá para saber se o resumo lido na carga já incluía esta atualização
+            index.indexAfterCommit(patient(1L, 2L, PatientSituation.DISCHARGE, Set.of(), Set.of()), 1L);
+            index.warmUp();
+            when(repository.findFingerprint()).thenReturn(new PatientsFingerprintDTO(3L, 3L, 4L));
+
+            index.writeSnapshot();
+
+            assertFalse(Files.exists(snapshot));
+        }
+
+        @Test
+        void corruptedSnapshotShouldBeRebuilt() throws Exception {
+            givenDatabase();
+            Files.write(snapshot, new byte[] {1, 2, 3});
+
+            index.warmUp();
+
+            assertEquals(List.of(1L, 2L), search(index, "symptom:febre"));
+        }
+    }
+}
@@ -24,6 +24,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.ms.patient.dto.MedicCreationDTO;
@@ -31,6 +34,7 @@ import com.ms.patient.dto.MedicResponseDTO;
 import com.ms.patient.enums.Habitation;
 import com.ms.patient.exceptions.BusinessException;
 import com.ms.patient.exceptions.CrmInvalidException;
+import com.ms.patient.exceptions.PreconditionFailedException;
 import com.ms.patient.mappers.AddressMapper;
 import com.ms.patient.mappers.MedicMapper;
 import com.ms.patient.models.Address;
@@ -38,6 +42,7 @@ import com.ms.patient.models.Medic;
 import com.ms.patient.producers.UserCreationProducer;
 import com.ms.patient.repositories.MedicRepository;
 import com.ms.patient.service.MedicService;
+import com.ms.patient.service.PersonCacheEvictor;
 import com.ms.patient.service.PersonService;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,6 +62,8 @@ public class MedicServiceTest {
 
     @Mock
     private MedicMapper mapper;
+    @Mock
+    private PersonCacheEvictor cacheEvictor;
     
     @Mock
     private AddressMapper mapperAddress;
@@ -111,29 +118,28 @@ public class MedicServiceTest {
         @Test
         void shouldCreateMedic() throws JsonProcessingException{
             
-            when(repository.existsByCrm(any())).thenReturn(false);
             when(personService.validatePersonInfo(any())).thenReturn(true);
 
             when(mapper.toMedic(any())).thenReturn(medic);
 
-            when(repository.save(any())).thenReturn(medic);
+            when(repository.saveAndFlush(any())).thenReturn(medic);
 
             doNothing().when(userProducer).publishUserCreationToMedicEvent(any());
 
-            when(repository.save(medic)).thenReturn(medic);
+            when(repository.saveAndFlush(medic)).thenReturn(medic);
 
             Medic result = service.createMedic(medicCreationDTO);
 
             assertNotNull(result);
             assertEquals(medic.getName(), result.getName());
-            verify(repository).save(any(Medic.class));
+            verify(repository).saveAndFlush(any(Medic.class));
             assertEquals(medic.getCrm(), result.getCrm());
         }
 
         @Test
         void shouldThrowWhenCRMIsInvalid(){
 
-            when(repository.existsByCrm(any())).thenReturn(true);
+            when(personService.validatePersonInfo(any())).thenThrow(new CrmInvalidException("CRM already registered"));
             
             CrmInvalidException exception = 
             assertThrows(CrmInvalidException.class, () -> service.createMedic(medicCreationDTO));
@@ -144,7 +150,6 @@ public class MedicServiceTest {
         @Test
         void shouldThrowWhenInvalidMedicData(){
             
-            when(repository.existsByCrm(any())).thenReturn(false);
             when(personService.validatePersonInfo(any())).thenReturn(false);
             
             BusinessException exception = 
@@ -181,11 +186,12 @@ public class MedicServiceTest {
         @Test
         void shouldFindAllMedics(){
             Medic medic2 = new Medic();
-            when(repository.findAll()).thenReturn(List.of(medic,medic2));
+            when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(medic,medic2)));
 
-            List<Medic> result = service.findAll();
+            Slice<Medic> result = service.findAll(0L, 50);
 
-            assertEquals(2, result.size());
+            assertEquals(2, result.getNumberOfElements());
         }
     }
 
@@ -199,7 +205,7 @@ public class MedicServiceTest {
             medic.setEmail("antigo@test.com"); 
             medicCreationDTO.setEmail("novo@test.com");
 
-            when(repository.findById(anyLong())).thenReturn(Optional.of(medic));
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(medic));
             when(personService.validatePersonInfo(medicCreationDTO)).thenReturn(true);
 
             doAnswer(invocation -> {
@@ -209,12 +215,13 @@ public class MedicServiceTest {
                 return null;
             }).when(mapper).updateMedicFromDto(any(MedicCreationDTO.class), any(Medic.class));
 
-            when(repository.save(any(Medic.class))).thenReturn(medic);
+            when(repository.saveAndFlush(any(Medic.class))).thenReturn(medic);
 
-            Medic result = service.updateMedic(medicCreationDTO, idForTest);
+            Medic result = service.updateMedic(medicCreationDTO, idForTest, null);
 
             assertNotNull(result);
-            verify(repository).save(any(Medic.class));
+            verify(repository).saveAndFlush(any(Medic.class));
+            verify(cacheEvictor).evictAfterCompletion(idForTest);
             assertEquals("novo@test.com", result.getEmail());
 
         }
@@ -222,10 +229,10 @@ public class MedicServiceTest {
         @Test
         void shouldThrowIfMedicNotFound(){
 
-            when(repository.findById(anyLong())).thenReturn(Optional.empty());
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.empty());
 
             assertThrows(NoSuchElementException.class, () -> {
-                service.updateMedic(medicCreationDTO, 1L);
+                service.updateMedic(medicCreationDTO, 1L, null);
             });
         }
 
@@ -233,15 +240,26 @@ public class MedicServiceTest {
         void shouldThrowIfDtoIsInvalid(){
 
 
-            when(repository.findById(anyLong())).thenReturn(Optional.of(medic));
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(medic));
             when(personService.validatePersonInfo(medicCreationDTO)).thenReturn(false);
 
             BusinessException exception = assertThrows(BusinessException.class, () -> {
-                service.updateMedic(medicCreationDTO, 1l);
+                service.updateMedic(medicCreationDTO, 1l, null);
             });
 
             assertEquals("Invalid medic data", exception.getMessage());
         }
+
+        @Test
+        void shouldThrowIfVersionDoesNotMatch(){
+
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(medic));
+
+            assertThrows(PreconditionFailedException.class, () -> {
+                service.updateMedic(medicCreationDTO, 1L, 7L);
+            });
+            verify(repository, never()).saveAndFlush(any(Medic.class));
+        }
     }
 
     @Nested
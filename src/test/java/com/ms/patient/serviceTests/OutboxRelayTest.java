@@ -0,0 +1,137 @@
+package com.ms.patient.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ms.patient.enums.OutboxStatus;
+import com.ms.patient.models.OutboxEvent;
+import com.ms.patient.producers.OutboxRelay;
+import com.ms.patient.producers.SqsBatchPublisher;
+import com.ms.patient.repositories.OutboxEventRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OutboxRelayTest {
+
+    private OutboxEventRepository repository;
+    private SqsBatchPublisher publisher;
+    private OutboxRelay relay;
+    private List<OutboxEvent> events;
+    private List<String> published;
+
+    @BeforeEach
+    void setup(){
+        repository = mock(OutboxEventRepository.class);
+        publisher = mock(SqsBatchPublisher.class);
+        relay = new OutboxRelay(repository, publisher, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, 100, 3, 1000, 300000, 60000, 7);
+        events = new ArrayList<>();
+        published = new ArrayList<>();
+        when(repository.lockDue(eq(OutboxStatus.PENDING), any(), any())).thenAnswer(invocation -> events);
+        when(repository.findAllById(any())).thenAnswer(invocation -> events);
+    }
+
+    private void createEvents(int quantity){
+        for (int i = 0; i < quantity; i++) {
+            OutboxEvent event = new OutboxEvent(i, "{\"person_id\":" + i + "}", "application/json", Instant.now());
+            ReflectionTestUtils.setField(event, "id", (long) i);
+            events.add(event);
+        }
+    }
+
+    // Simula o publicador aceitando ou recusando as mensagens cujo payload satisfaz o predicado
+    private void sqsRejects(Predicate<String> rejected){
+        when(publisher.publish(anyString(), anyString())).thenAnswer(invocation -> {
+            String payload = invocation.getArgument(0);
+            published.add(payload);
+            return rejected.test(payload)
+                ? CompletableFuture.failedFuture(new IllegalStateException("Throttled"))
+                : CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @Test
+    void shouldPublishEveryClaimedEventAndMarkItAsSent(){
+        createEvents(25);
+        sqsRejects(payload -> false);
+
+        relay.relay();
+
+        assertEquals(25, published.size());
+        assertTrue(events.stream().allMatch(event -> event.getStatus() == OutboxStatus.SENT));
+        assertTrue(events.stream().allMatch(event -> event.getSentAt() != null));
+    }
+
+    @Test
+    void shouldRescheduleOnlyTheRejectedEventsWithBackoff(){
+        createEvents(3);
+        sqsRejects(payload -> payload.contains(":1}"));
+        Instant before = Instant.now();
+
+        relay.relay();
+
+        OutboxEvent rejected = events.get(1);
+        assertEquals(OutboxStatus.PENDING, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertEquals("Throttled", rejected.getLastError());
+        assertTrue(rejected.getNextAttemptAt().isAfter(before));
+        assertNull(rejected.getSentAt());
+        assertEquals(OutboxStatus.SENT, events.get(0).getStatus());
+        assertEquals(OutboxStatus.SENT, events.get(2).getStatus());
+    }
+
+    @Test
+    void shouldRetryEventsStillUnconfirmedWhenTheWaitExpires(){
+        relay = new OutboxRelay(repository, publisher, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, 100, 3, 1000, 300000, 100, 7);
+        createEvents(2);
+        when(publisher.publish(anyString(), anyString())).thenReturn(new CompletableFuture<>());
+
+        relay.relay();
+
+        assertTrue(events.stream().allMatch(event -> event.getStatus() == OutboxStatus.PENDING));
+        assertTrue(events.stream().allMatch(event -> event.getAttempts() == 1));
+        assertTrue(events.stream().allMatch(event -> "timed out waiting for SQS".equals(event.getLastError())));
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts(){
+        createEvents(1);
+        events.get(0).setAttempts(2);
+        sqsRejects(payload -> true);
+
+        relay.relay();
+
+        assertEquals(OutboxStatus.FAILED, events.get(0).getStatus());
+        assertEquals(3, events.get(0).getAttempts());
+    }
+
+    @Test
+    void shouldNotCallSqsWhenNothingIsDue(){
+        relay.relay();
+
+        verify(publisher, never()).publish(anyString(), any());
+        verify(repository, times(1)).lockDue(eq(OutboxStatus.PENDING), any(), any());
+        verify(repository, never()).findAllById(any());
+    }
+}
@@ -1,6 +1,7 @@
 package com.ms.patient.serviceTests;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -13,27 +14,45 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.ms.patient.dto.BatchCreationResultDTO;
 import com.ms.patient.dto.PatientCreationDTO;
 import com.ms.patient.dto.PatientResponseDTO;
 import com.ms.patient.enums.Habitation;
 import com.ms.patient.enums.PatientSituation;
 import com.ms.patient.exceptions.BusinessException;
+import com.ms.patient.exceptions.CpfAlreadyExistsException;
+import com.ms.patient.exceptions.PreconditionFailedException;
 import com.ms.patient.mappers.AddressMapper;
 import com.ms.patient.mappers.PatientMapper;
 import com.ms.patient.models.Address;
 import com.ms.patient.models.Patient;
 import com.ms.patient.producers.UserCreationProducer;
 import com.ms.patient.repositories.PatientRepository;
+import com.ms.patient.service.ClinicalIndex;
 import com.ms.patient.service.PatientService;
+import com.ms.patient.service.PersonCacheEvictor;
 import com.ms.patient.service.PersonService;
+import com.ms.patient.utils.ClinicalQuery;
+import com.ms.patient.utils.KeysetPageRequest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
@@ -60,6 +79,10 @@ public class PatientServiceTest {
     @Mock
     private PatientMapper mapperPatient;
     @Mock
+    private PersonCacheEvictor cacheEvictor;
+    @Mock
+    private ClinicalIndex clinicalIndex;
+    @Mock
     private AddressMapper mapperAddress;
 
     PatientCreationDTO patientCreationDTO;
@@ -122,18 +145,19 @@ public class PatientServiceTest {
 
             when(mapperPatient.toPatient(any())).thenReturn(patient);
 
-            when(repository.save(any())).thenReturn(patient);
+            when(repository.saveAndFlush(any())).thenReturn(patient);
 
             doNothing().when(userProducer).publishUserCreationToPatientEvent(any());
 
-            when(repository.save(patient)).thenReturn(patient);
+            when(repository.saveAndFlush(patient)).thenReturn(patient);
 
             Patient result = service.createPatient(patientCreationDTO);
 
             assertNotNull(result);
             assertEquals(patient.getName(), result.getName());
-            verify(repository).save(any(Patient.class));
+            verify(repository).saveAndFlush(any(Patient.class));
             assertEquals(PatientSituation.NOT_DEFINED, result.getPatientSituation());
+            verify(clinicalIndex).indexAfterCommit(patient);
         }
 
         @Test
@@ -147,6 +171,75 @@ public class PatientServiceTest {
             assertEquals("Invalid patient data", exception.getMessage());
         }
 
+        @Test
+        void shouldTranslateConcurrentDuplicate() throws JsonProcessingException{
+
+            DataIntegrityViolationException violation = new DataIntegrityViolationException("uk_person_cpf");
+            when(personService.validatePersonInfo(any())).thenReturn(true);
+            when(mapperPatient.toPatient(any())).thenReturn(patient);
+            when(repository.saveAndFlush(patient)).thenThrow(violation);
+            when(personService.uniqueKeyConflict(violation, patient)).thenReturn(new CpfAlreadyExistsException(patient.getCpf()));
+
+            assertThrows(CpfAlreadyExistsException.class, () -> service.createPatient(patientCreationDTO));
+
+            verify(userProducer, never()).publishUserCreationToPatientEvent(any());
+        }
+
+    }
+
+    @Nested
+    class CreatePatients{
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void shouldSaveOnlyAcceptedItemsAndKeepRequestOrder() throws JsonProcessingException{
+            PatientCreationDTO rejected = new PatientCreationDTO();
+            when(personService.validatePersonsInfo(anyList()))
+                .thenReturn(new String[] {null, "duplicate email in batch", null});
+            when(mapperPatient.toPatient(any())).thenAnswer(invocation -> new Patient());
+            when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Patient> patients = invocation.getArgument(0);
+                for (int i = 0; i < patients.size(); i++) {
+                    ReflectionTestUtils.setField(patients.get(i), "id", 10L + i);
+                }
+                return patients;
+            });
+
+            List<BatchCreationResultDTO> result =
+                service.createPatients(List.of(patientCreationDTO, rejected, patientCreationDTO));
+
+            assertEquals(3, result.size());
+            assertTrue(result.get(0).isCreated());
+            assertEquals(10L, result.get(0).getId());
+            assertFalse(result.get(1).isCreated());
+            assertEquals("duplicate email in batch", result.get(1).getError());
+            assertEquals(11L, result.get(2).getId());
+            verify(mapperPatient, times(2)).toPatient(patientCreationDTO);
+            verify(mapperPatient, never()).toPatient(rejected);
+            verify(repository).flush();
+            verify(personService, times(2)).registerUniqueKeys(any());
+            verify(userProducer, times(1)).publishUserCreationToPatientEvents(anyList());
+        }
+
+        @Test
+        void shouldNotPublishWhenEveryItemIsRejected() throws JsonProcessingException{
+            when(personService.validatePersonsInfo(anyList())).thenReturn(new String[] {"invalid cpf"});
+            when(repository.saveAll(anyList())).thenReturn(List.of());
+
+            List<BatchCreationResultDTO> result = service.createPatients(List.of(patientCreationDTO));
+
+            assertEquals("invalid cpf", result.get(0).getError());
+            verify(userProducer, never()).publishUserCreationToPatientEvents(anyList());
+        }
+
+        @Test
+        void shouldRejectEmptyOrOversizedBatches(){
+            List<PatientCreationDTO> tooMany = Collections.nCopies(PatientService.MAX_CREATION_BATCH_SIZE + 1, patientCreationDTO);
+
+            assertThrows(IllegalArgumentException.class, () -> service.createPatients(List.of()));
+            assertThrows(IllegalArgumentException.class, () -> service.createPatients(tooMany));
+            verify(repository, never()).saveAll(anyList());
+        }
     }
 
     @Nested
@@ -175,11 +268,74 @@ public class PatientServiceTest {
         @Test
         void shouldFindAllPatients(){
             Patient patient2 = new Patient();
-            when(repository.findAll()).thenReturn(List.of(patient,patient2));
+            when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(patient,patient2)));
+
+            Slice<Patient> result = service.findAll(0L, 50);
+
+            assertEquals(2, result.getNumberOfElements());
+        }
+
+        @Test
+        void shouldCapPageSizeWhenListingPatients(){
+            when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
 
-            List<Patient> result = service.findAll();
+            service.findAll(10L, 100_000);
 
-            assertEquals(2, result.size());
+            verify(repository).findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, KeysetPageRequest.MAX_LIMIT));
+        }
+
+        @Test
+        void shouldThrowWhenLimitIsNotPositive(){
+            assertThrows(IllegalArgumentException.class, () -> service.findAll(0L, 0));
+        }
+
+        @Test
+        void shouldPickQueryByClinicalFilters(){
+            service.findAll(10L, 50, "Febre", null);
+            service.findAll(10L, 50, null, "Penicilina");
+            service.findAll(10L, 50, "Febre", "Penicilina");
+
+            verify(repository).findBySymptom("Febre", 10L, PageRequest.of(0, 50));
+            verify(repository).findByAllergy("Penicilina", 10L, PageRequest.of(0, 50));
+            verify(repository).findBySymptomAndAllergy("Febre", "Penicilina", 10L, PageRequest.of(0, 50));
+            verify(repository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+        }
+    }
+
+    @Nested
+    class SearchClinical{
+
+        @Test
+        void shouldLoadOnlyThePageFoundInTheIndex(){
+            when(clinicalIndex.search(any(ClinicalQuery.class), anyLong(), anyInt())).thenReturn(List.of(3L, 5L, 8L));
+            when(repository.findByIdInOrderByIdAsc(List.of(3L, 5L))).thenReturn(List.of(patient, patient));
+
+            Slice<Patient> result = service.searchClinical("allergy:penicilina AND situation:hospitalized", 1L, 2);
+
+            // Um 'ID' a mais que a página indica que existe a próxima
+            verify(clinicalIndex).search(any(ClinicalQuery.class), eq(1L), eq(3));
+            assertEquals(2, result.getNumberOfElements());
+            assertTrue(result.hasNext());
+        }
+
+        @Test
+        void shouldNotQueryDatabaseWhenNothingMatches(){
+            when(clinicalIndex.search(any(ClinicalQuery.class), anyLong(), anyInt())).thenReturn(List.of());
+
+            Slice<Patient> result = service.searchClinical("symptom:febre", 0L, 50);
+
+            assertTrue(result.isEmpty());
+            assertFalse(result.hasNext());
+            verify(repository, never()).findByIdInOrderByIdAsc(any());
+        }
+
+        @Test
+        void shouldRejectInvalidQueryBeforeTouchingTheIndex(){
+            assertThrows(IllegalArgumentException.class, () -> service.searchClinical("color:blue", 0L, 50));
+
+            verify(clinicalIndex, never()).search(any(), anyLong(), anyInt());
         }
     }
 
@@ -193,7 +349,7 @@ public class PatientServiceTest {
             patient.setEmail("antigo@test.com"); // Email antigo
             patientCreationDTO.setEmail("novo@test.com");
 
-            when(repository.findById(anyLong())).thenReturn(Optional.of(patient));
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(patient));
             when(personService.validatePersonInfo(patientCreationDTO)).thenReturn(true);
 
             doAnswer(invocation -> {
@@ -203,12 +359,14 @@ public class PatientServiceTest {
                 return null;
             }).when(mapperPatient).updatePatientFromDto(any(PatientCreationDTO.class), any(Patient.class));
 
-            when(repository.save(any(Patient.class))).thenReturn(patient);
+            when(repository.saveAndFlush(any(Patient.class))).thenReturn(patient);
 
-            Patient result = service.updatePatient(patientCreationDTO, idForTest);
+            Patient result = service.updatePatient(patientCreationDTO, idForTest, null);
 
             assertNotNull(result);
-            verify(repository).save(any(Patient.class));
+            verify(repository).saveAndFlush(any(Patient.class));
+            verify(cacheEvictor).evictAfterCompletion(idForTest);
+            verify(clinicalIndex).indexAfterCommit(patient, patient.getVersion());
             assertEquals("novo@test.com", result.getEmail());
 
         }
@@ -216,10 +374,10 @@ public class PatientServiceTest {
         @Test
         void shouldThrowIfPatientNotFound(){
 
-            when(repository.findById(anyLong())).thenReturn(Optional.empty());
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.empty());
 
             assertThrows(NoSuchElementException.class, () -> {
-                service.updatePatient(patientCreationDTO, 1L);
+                service.updatePatient(patientCreationDTO, 1L, null);
             });
         }
 
@@ -227,15 +385,26 @@ public class PatientServiceTest {
         void shouldThrowIfDtoIsInvalid(){
 
 
-            when(repository.findById(anyLong())).thenReturn(Optional.of(patient));
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(patient));
             when(personService.validatePersonInfo(patientCreationDTO)).thenReturn(false);
 
             BusinessException exception = assertThrows(BusinessException.class, () -> {
-                service.updatePatient(patientCreationDTO, 1l);
+                service.updatePatient(patientCreationDTO, 1l, null);
             });
 
             assertEquals("Invalid patient data", exception.getMessage());
         }
+
+        @Test
+        void shouldThrowIfVersionDoesNotMatch(){
+
+            when(repository.findForUpdateById(anyLong())).thenReturn(Optional.of(patient));
+
+            assertThrows(PreconditionFailedException.class, () -> {
+                service.updatePatient(patientCreationDTO, 1L, 7L);
+            });
+            verify(repository, never()).saveAndFlush(any(Patient.class));
+        }
     }
 
     @Nested
@@ -251,6 +420,7 @@ public class PatientServiceTest {
             service.deletePatient(1L);
 
             verify(repository, times(1)).deleteById(1l);
+            verify(clinicalIndex).removeAfterCommit(1L, patient.getVersion());
         }
 
         @Test
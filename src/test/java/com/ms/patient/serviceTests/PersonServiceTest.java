@@ -0,0 +1,314 @@
+package com.ms.patient.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.ms.patient.dto.BatchLookupResultDTO;
+import com.ms.patient.dto.MedicCreationDTO;
+import com.ms.patient.dto.PersonEmailSenderDto;
+import com.ms.patient.dto.UniquenessConflictsDTO;
+import com.ms.patient.exceptions.CpfAlreadyExistsException;
+import com.ms.patient.exceptions.CrmInvalidException;
+import com.ms.patient.exceptions.EmailAlreadyExistsException;
+import com.ms.patient.exceptions.InvalidCpfException;
+import com.ms.patient.exceptions.PhoneAlreadyExistsException;
+import com.ms.patient.exceptions.RegistrationNumberAlreadyExistsException;
+import com.ms.patient.mappers.PersonMapper;
+import com.ms.patient.models.Assistant;
+import com.ms.patient.models.Person;
+import com.ms.patient.repositories.PersonRepository;
+import com.ms.patient.service.PersonService;
+import com.ms.patient.service.UniquenessFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+@ExtendWith(MockitoExtension.class)
+public class PersonServiceTest {
+
+    @Mock
+    private PersonRepository repository;
+
+    @Mock
+    private PersonMapper mapper;
+
+    @Mock
+    private UniquenessFilter uniquenessFilter;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PersonService service;
+
+    @Nested
+    class FindByIds{
+
+        @Test
+        void shouldReturnResultsInRequestOrderWithMisses(){
+            when(repository.findEmailSendersByIdIn(anyCollection())).thenReturn(List.of(
+                new PersonEmailSenderDto(3L, "c@email.com", "C"),
+                new PersonEmailSenderDto(1L, "a@email.com", "A")));
+
+            List<BatchLookupResultDTO<PersonEmailSenderDto>> result =
+                service.findPersonsToSendEmailByIds(List.of(1L, 2L, 3L, 1L));
+
+            assertEquals(List.of(1L, 2L, 3L, 1L), result.stream().map(BatchLookupResultDTO::getId).toList());
+            assertEquals("a@email.com", result.get(0).getData().getEmail());
+            assertFalse(result.get(1).isFound());
+            assertNull(result.get(1).getData());
+            assertEquals("c@email.com", result.get(2).getData().getEmail());
+            assertTrue(result.get(3).isFound());
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void shouldQueryDistinctIdsInChunks(){
+            List<Collection<Long>> chunks = new ArrayList<>();
+            when(repository.findEmailSendersByIdIn(anyCollection())).thenAnswer(invocation -> {
+                chunks.add(new ArrayList<>((Collection<Long>) invocation.getArgument(0)));
+                return List.of();
+            });
+            List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 1000).boxed().toList());
+            ids.addAll(ids);
+
+            service.findPersonsToSendEmailByIds(ids);
+
+            verify(repository, times(2)).findEmailSendersByIdIn(anyCollection());
+            assertEquals(500, chunks.get(0).size());
+            assertEquals(500, chunks.get(1).size());
+        }
+
+        @Test
+        void shouldRejectEmptyOrOversizedBatches(){
+            List<Long> tooMany = LongStream.rangeClosed(1, PersonService.MAX_BATCH_SIZE + 1).boxed().toList();
+
+            assertThrows(IllegalArgumentException.class, () -> service.findPersonsByIds(List.of()));
+            assertThrows(IllegalArgumentException.class, () -> service.findPersonsByIds(tooMany));
+            verify(repository, never()).findByIdIn(anyCollection());
+        }
+    }
+
+    @Nested
+    class ValidatePersonInfo{
+
+        private MedicCreationDTO medicDto(){
+            MedicCreationDTO dto = new MedicCreationDTO();
+            dto.setEmail("medic@email.com");
+            dto.setCpf("123.456.789-09");
+            dto.setPhone("(11) 99999-0000");
+            dto.setCrm("CRM123");
+            return dto;
+        }
+
+        @Test
+        void shouldRejectAnInvalidCpfBeforeQuerying(){
+            MedicCreationDTO dto = medicDto();
+            dto.setCpf("123.456.789-00");
+
+            assertThrows(InvalidCpfException.class, () -> service.validatePersonInfo(dto));
+            verify(repository, never()).findConflicts(any(), any(), any(), any());
+        }
+
+        @Test
+        void shouldSkipTheQueryWhenTheFilterRulesOutEveryKey(){
+            when(uniquenessFilter.mightConflict("medic@email.com", "12345678909", "11999990000", "CRM123")).thenReturn(false);
+
+            assertTrue(service.validatePersonInfo(medicDto()));
+            verify(repository, never()).findConflicts(any(), any(), any(), any());
+        }
+
+        @Test
+        void shouldCheckEveryKeyInOneQuery(){
+            when(uniquenessFilter.mightConflict(any(), any(), any(), any())).thenReturn(true);
+            when(repository.findConflicts("medic@email.com", "12345678909", "11999990000", "CRM123"))
+                .thenReturn(new UniquenessConflictsDTO(0L, 0L, 0L, 0L));
+
+            assertTrue(service.validatePersonInfo(medicDto()));
+            verify(repository, times(1)).findConflicts(any(), any(), any(), any());
+        }
+
+        @Test
+        void shouldThrowForTheConflictingKey(){
+            when(uniquenessFilter.mightConflict(any(), any(), any(), any())).thenReturn(true);
+            when(repository.findConflicts(any(), any(), any(), any()))
+                .thenReturn(new UniquenessConflictsDTO(null, 1L, null, 1L));
+
+            assertThrows(CpfAlreadyExistsException.class, () -> service.validatePersonInfo(medicDto()));
+            assertEquals(1, meterRegistry.get("person.uniqueness.conflicts")
+                .tags("key", "cpf", "source", "registered").counter().count());
+        }
+
+        @Test
+        void shouldThrowWhenCrmIsTaken(){
+            when(uniquenessFilter.mightConflict(any(), any(), any(), any())).thenReturn(true);
+            when(repository.findConflicts(any(), any(), any(), any()))
+                .thenReturn(new UniquenessConflictsDTO(0L, 0L, 0L, 1L));
+
+            CrmInvalidException exception = assertThrows(CrmInvalidException.class, () -> service.validatePersonInfo(medicDto()));
+            assertEquals("CRM already registered", exception.getMessage());
+        }
+
+        @Test
+        void shouldThrowWhenPhoneIsTaken(){
+            when(uniquenessFilter.mightConflict(any(), any(), any(), any())).thenReturn(true);
+            when(repository.findConflicts(any(), any(), any(), any()))
+                .thenReturn(new UniquenessConflictsDTO(0L, 0L, 1L, 0L));
+
+            assertThrows(PhoneAlreadyExistsException.class, () -> service.validatePersonInfo(medicDto()));
+        }
+    }
+
+    @Nested
+    class UniqueKeyConflict{
+
+        private final Person person = new Person("Pessoa", new Date(), "12345678909", "F", "p@email.com", "11999990000", null);
+
+        @Test
+        void shouldMapViolatedConstraintToConflict(){
+            // Nome extraído pelo Hibernate de uma violação no H2
+            DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate"), "PUBLIC.UK_PERSON_CPF_INDEX_8"));
+
+            RuntimeException conflict = service.uniqueKeyConflict(e, person);
+
+            assertInstanceOf(CpfAlreadyExistsException.class, conflict);
+            assertEquals("12345678909", conflict.getMessage());
+            assertEquals(1, meterRegistry.get("person.uniqueness.conflicts")
+                .tags("key", "cpf", "source", "constraint").counter().count());
+        }
+
+        @Test
+        void shouldFallBackToDatabaseMessage(){
+            DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Duplicate entry 'p@email.com' for key 'person.uk_person_email'"));
+
+            assertInstanceOf(EmailAlreadyExistsException.class, service.uniqueKeyConflict(e, person));
+            assertInstanceOf(CrmInvalidException.class, service.uniqueKeyConflict(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("Duplicate entry 'CRM1' for key 'medics.uk_medics_crm'")), null));
+        }
+
+        @Test
+        void shouldMapRegistrationNumberToConflict(){
+            Assistant assistant = new Assistant();
+            assistant.setRegistrationNumber("000000042");
+            DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate"),
+                    "PUBLIC.UK_EMPLOYEES_REGISTRATION_NUMBER_INDEX_C"));
+
+            RuntimeException conflict = service.uniqueKeyConflict(e, assistant);
+
+            assertInstanceOf(RegistrationNumberAlreadyExistsException.class, conflict);
+            assertEquals("000000042", conflict.getMessage());
+            assertEquals(1, meterRegistry.get("person.uniqueness.conflicts")
+                .tags("key", "registration_number", "source", "constraint").counter().count());
+            assertInstanceOf(RegistrationNumberAlreadyExistsException.class, service.uniqueKeyConflict(
+                new DataIntegrityViolationException("could not execute statement", new SQLException(
+                    "Duplicate entry '000000042' for key 'employees.uk_employees_registration_number'")), null));
+        }
+
+        @Test
+        void shouldKeepOtherViolations(){
+            DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Column 'name' cannot be null"));
+
+            assertSame(e, service.uniqueKeyConflict(e, person));
+        }
+    }
+
+    @Nested
+    class ValidatePersonsInfo{
+
+        private MedicCreationDTO medicDto(String email, String cpf, String phone){
+            MedicCreationDTO dto = new MedicCreationDTO();
+            dto.setName("Medic");
+            dto.setGender("F");
+            dto.setEmail(email);
+            dto.setCpf(cpf);
+            dto.setPhone(phone);
+            dto.setCrm("CRM123");
+            return dto;
+        }
+
+        @Test
+        void shouldReportDuplicatesInsideTheBatchWithoutQuerying(){
+            List<MedicCreationDTO> dtos = Arrays.asList(
+                medicDto("a@email.com", "123.456.789-09", "(11) 99999-0000"),
+                medicDto("A@email.com", "529.982.247-25", "(11) 99999-0001"),
+                medicDto("b@email.com", "12345678909", "(11) 99999-0002"),
+                medicDto("c@email.com", "529.982.247-25", "11999990000"),
+                medicDto("d@email.com", "529.982.247-26", "(11) 99999-0003"),
+                medicDto("e-mail", "529.982.247-25", "(11) 99999-0004"),
+                null);
+
+            String[] errors = service.validatePersonsInfo(dtos);
+
+            assertNull(errors[0]);
+            assertEquals("duplicate email in batch", errors[1]);
+            assertEquals("duplicate cpf in batch", errors[2]);
+            assertEquals("duplicate phone in batch", errors[3]);
+            assertEquals("invalid cpf", errors[4]);
+            assertTrue(errors[5].startsWith("email "));
+            assertEquals("item must not be null", errors[6]);
+            verify(repository, never()).findExistingEmails(anyList());
+            for (String key : List.of("email", "cpf", "phone")) {
+                assertEquals(1, meterRegistry.get("person.uniqueness.conflicts")
+                    .tags("key", key, "source", "batch").counter().count());
+            }
+        }
+
+        @Test
+        void shouldQueryOnlyTheValuesTheFilterCannotRuleOut(){
+            when(uniquenessFilter.mightContain(any(), any())).thenReturn(false);
+            when(uniquenessFilter.mightContain(UniquenessFilter.Key.EMAIL, "taken@email.com")).thenReturn(true);
+            when(uniquenessFilter.mightContain(UniquenessFilter.Key.PHONE, "11999990001")).thenReturn(true);
+            when(repository.findExistingEmails(List.of("taken@email.com"))).thenReturn(List.of("Taken@email.com"));
+            when(repository.findExistingPhones(List.of("11999990001"))).thenReturn(List.of());
+
+            String[] errors = service.validatePersonsInfo(List.of(
+                medicDto("Taken@email.com", "123.456.789-09", "(11) 99999-0000"),
+                medicDto("free@email.com", "529.982.247-25", "(11) 99999-0001")));
+
+            assertEquals("email already registered", errors[0]);
+            assertNull(errors[1]);
+            verify(repository, never()).findExistingCpfs(anyList());
+            verify(repository, times(1)).findExistingPhones(eq(List.of("11999990001")));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ms.patient.serviceTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ms.patient.producers.SqsBatchPublisher;
+import com.ms.patient.testUtils.LocalSqsAsyncClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SqsBatchPublisherTest {
+
+    private LocalSqsAsyncClient sqs;
+    private SimpleMeterRegistry meterRegistry;
+    private SqsBatchPublisher publisher;
+
+    @BeforeEach
+    void setup(){
+        sqs = new LocalSqsAsyncClient();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void close() throws InterruptedException{
+        sqs.release();
+        publisher.destroy();
+    }
+
+    private SqsBatchPublisher publisher(int capacity, int maxInFlight){
+        publisher = new SqsBatchPublisher(sqs, meterRegistry, "EntityRegistrationQueue", capacity, 50, 50, maxInFlight, 3);
+        return publisher;
+    }
+
+    private static void await(List<CompletableFuture<Void>> results) throws Exception{
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldGroupMessagesIntoBatchesOfTen() throws Exception{
+        publisher(100, 8);
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            results.add(publisher.publish("m" + i));
+        }
+
+        await(results);
+
+        assertEquals(25, sqs.received.size());
+        assertTrue(sqs.batchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(sqs.batchSizes.size() <= 4, "batches: " + sqs.batchSizes);
+        assertEquals(25.0, meterRegistry.get("sqs.publisher.entries").tag("result", "sent").counter().count());
+        assertEquals(sqs.batchSizes.size(), meterRegistry.get("sqs.publisher.batch.size").summary().count());
+    }
+
+    @Test
+    void shouldFlushAPartialBatchAfterTheLingerTime() throws Exception{
+        publisher(100, 8);
+
+        publisher.publish("alone").get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1), sqs.batchSizes);
+        assertEquals(1, meterRegistry.get("sqs.publisher.flush.latency").timer().count());
+    }
+
+    @Test
+    void shouldSendTheContentTypeAsAMessageAttribute() throws Exception{
+        publisher(100, 8);
+
+        await(List.of(publisher.publish("{}"), publisher.publish("oWE=", "application/cbor")));
+
+        assertEquals(List.of("application/cbor", "application/json"), sqs.contentTypes.stream().sorted().toList());
+    }
+
+    @Test
+    void shouldRetryOnlyTheEntriesTheServerRejected() throws Exception{
+        publisher(100, 8);
+        Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+        sqs.failEntries(body -> body.equals("b") && failedOnce.add(body), false);
+
+        await(List.of(publisher.publish("a"), publisher.publish("b"), publisher.publish("c")));
+
+        assertEquals(List.of("a", "b", "c"), sqs.received.stream().sorted().toList());
+        assertEquals(4, sqs.attempted.size());
+        assertEquals(1.0, meterRegistry.get("sqs.publisher.entries").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    void shouldNotRetrySenderFaults(){
+        publisher(100, 8);
+        sqs.failEntries(body -> body.equals("bad"), true);
+
+        CompletableFuture<Void> result = publisher.publish("bad");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("InvalidMessageContents"));
+        assertEquals(1, sqs.attempted.size());
+    }
+
+    @Test
+    void shouldRetryTheWholeBatchWhenTheRequestFails() throws Exception{
+        publisher(100, 8);
+        sqs.failNextRequests(1);
+
+        await(List.of(publisher.publish("a"), publisher.publish("b")));
+
+        assertEquals(2, sqs.received.size());
+        assertTrue(sqs.batchSizes.size() >= 2);
+    }
+
+    @Test
+    void shouldRejectWhenTheQueueIsFull() throws Exception{
+        publisher(1, 1);
+        sqs.hold();
+
+        // 1º em andamento no SQS, 2º retido pelo limite de lotes em andamento, 3º ocupa a fila
+        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+        accepted.add(publisher.publish("first"));
+        Thread.sleep(200);
+        accepted.add(publisher.publish("second"));
+        Thread.sleep(200);
+        accepted.add(publisher.publish("third"));
+        CompletableFuture<Void> overflow = publisher.publish("overflow");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> overflow.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+
+        sqs.release();
+        await(accepted);
+        assertEquals(3, sqs.received.size());
+        assertEquals(1.0, meterRegistry.get("sqs.publisher.entries").tag("result", "rejected").counter().count());
+    }
+}
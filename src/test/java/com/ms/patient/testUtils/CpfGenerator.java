@@ -0,0 +1,55 @@
+package com.ms.patient.testUtils;
+
+/**
+ * Gera CPFs válidos (segundo {@code CpfValidatorUtils}) a partir de um número, para massas de
+ * dados de teste e benchmarks.
+ */
+public final class CpfGenerator {
+
+    /** Quantidade de bases possíveis (os 9 primeiros dígitos do CPF). */
+    public static final long BASES = 1_000_000_000L;
+
+    private CpfGenerator() {
+    }
+
+    /**
+     * CPF válido cujos 9 primeiros dígitos são {@code base % 10^9}, completado com os dois dígitos
+     * verificadores. Bases diferentes geram CPFs diferentes.
+     *
+     * <p>Bases com os 9 dígitos iguais (ex: {@code 111111111}) geram CPFs que o validador recusa.</p>
+     *
+     * @param base O número base.
+     * @return O CPF com 11 dígitos, sem máscara.
+     */
+    public static String cpf(long base) {
+        long value = base % BASES;
+        int[] digits = new int[11];
+        for (int i = 8; i >= 0; i--) {
+            digits[i] = (int) (value % 10);
+            value /= 10;
+        }
+        digits[9] = checkDigit(digits, 9);
+        digits[10] = checkDigit(digits, 10);
+        char[] cpf = new char[11];
+        for (int i = 0; i < 11; i++) {
+            cpf[i] = (char) ('0' + digits[i]);
+        }
+        return new String(cpf);
+    }
+
+    /**
+     * A base (9 primeiros dígitos) de um CPF sem máscara.
+     */
+    public static long base(String cpf) {
+        return Long.parseLong(cpf.substring(0, 9));
+    }
+
+    private static int checkDigit(int[] digits, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += digits[i] * (length + 1 - i);
+        }
+        int rest = sum % 11;
+        return rest < 2 ? 0 : 11 - rest;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ms.patient.testUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+/**
+ * Substituto em memória do SQS para testes: guarda as mensagens recebidas e permite
+ * simular falhas por entrada, falhas da requisição inteira e respostas atrasadas.
+ */
+public class LocalSqsAsyncClient implements SqsAsyncClient {
+
+    /** Corpos aceitos, na ordem de chegada. */
+    public final List<String> received = new CopyOnWriteArrayList<>();
+    /** Tamanho de cada {@code SendMessageBatch} recebido. */
+    public final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    /** Atributo {@code contentType} de cada mensagem aceita. */
+    public final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    /** Todos os corpos recebidos, inclusive os recusados. */
+    public final List<String> attempted = new CopyOnWriteArrayList<>();
+
+    private volatile Predicate<String> failEntry = body -> false;
+    private volatile boolean senderFault;
+    private final AtomicInteger failRequests = new AtomicInteger();
+    private volatile CompletableFuture<Void> gate = CompletableFuture.completedFuture(null);
+
+    /** Recusa as entradas cujo corpo satisfaz o predicado (a cada tentativa). */
+    public void failEntries(Predicate<String> failEntry, boolean senderFault) {
+        this.failEntry = failEntry;
+        this.senderFault = senderFault;
+    }
+
+    /** Faz as próximas {@code count} requisições falharem por inteiro. */
+    public void failNextRequests(int count) {
+        failRequests.set(count);
+    }
+
+    /** Segura as respostas até {@link #release()}. */
+    public void hold() {
+        gate = new CompletableFuture<>();
+    }
+
+    public void release() {
+        gate.complete(null);
+    }
+
+    @Override
+    public CompletableFuture<GetQueueUrlResponse> getQueueUrl(GetQueueUrlRequest request) {
+        return CompletableFuture.completedFuture(
+            GetQueueUrlResponse.builder().queueUrl("http://localhost/queue/" + request.queueName()).build());
+    }
+
+    @Override
+    public CompletableFuture<SendMessageBatchResponse> sendMessageBatch(SendMessageBatchRequest request) {
+        return gate.thenApply(ignored -> {
+            batchSizes.add(request.entries().size());
+            if (failRequests.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw SqsException.builder().message("connection reset").build();
+            }
+            List<SendMessageBatchResultEntry> ok = new ArrayList<>();
+            List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                attempted.add(entry.messageBody());
+                if (failEntry.test(entry.messageBody())) {
+                    failed.add(BatchResultErrorEntry.builder().id(entry.id())
+                        .code(senderFault ? "InvalidMessageContents" : "InternalError")
+                        .message("injected failure").senderFault(senderFault).build());
+                } else {
+                    received.add(entry.messageBody());
+                    var contentType = entry.messageAttributes().get("contentType");
+                    contentTypes.add(contentType == null ? null : contentType.stringValue());
+                    ok.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId(entry.id()).build());
+                }
+            }
+            return SendMessageBatchResponse.builder().successful(ok).failed(failed).build();
+        });
+    }
+
+    @Override
+    public String serviceName() {
+        return "sqs";
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,61 @@
+package com.ms.patient.testUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Utilitário de teste que conta quantos SQLs (round trips) o Hibernate prepara
+ * durante uma operação, usando as estatísticas da {@link SessionFactory}.
+ *
+ * <p>Requer {@code hibernate.generate_statistics=true} (ver {@code applicationTest.properties}).
+ * Antes de medir, o contexto de persistência é descarregado (flush) e limpo (clear),
+ * para que nada já carregado mascare um N+1.</p>
+ */
+public class StatementCounter {
+
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public StatementCounter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+
+    /**
+     * Executa a operação e retorna a quantidade de SQLs preparados por ela.
+     *
+     * @param action A operação a ser medida (ex: consulta + mapeamento para DTO).
+     * @return A quantidade de SQLs executados.
+     */
+    public long count(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Executa a operação e falha se a quantidade de SQLs for diferente da esperada.
+     *
+     * @param expected A quantidade esperada de SQLs.
+     * @param action A operação a ser medida; seu retorno é repassado ao chamador.
+     * @return O valor retornado pela operação.
+     */
+    public <T> T assertStatements(long expected, Supplier<T> action) {
+        Object[] result = new Object[1];
+        long executed = count(() -> result[0] = action.get());
+        assertEquals(expected, executed, "Unexpected number of SQL statements");
+        @SuppressWarnings("unchecked")
+        T value = (T) result[0];
+        return value;
+    }
+}
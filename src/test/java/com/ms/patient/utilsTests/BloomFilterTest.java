@@ -0,0 +1,52 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.ms.patient.utils.BloomFilter;
+
+public class BloomFilterTest {
+
+    @Test
+    void shouldNeverReportAnInsertedValueAsAbsent(){
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("person" + i + "@email.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("person" + i + "@email.com"));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearTheConfiguredRate(){
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("person" + i + "@email.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFpp() < 0.03);
+    }
+
+    @Test
+    void shouldReportNullAsAbsent(){
+        assertFalse(new BloomFilter(10, 0.01).mightContain(null));
+    }
+
+    @Test
+    void shouldRejectInvalidSizing(){
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+}
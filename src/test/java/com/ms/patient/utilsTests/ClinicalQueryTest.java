@@ -0,0 +1,99 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.roaringbitmap.RoaringBitmap;
+
+import com.ms.patient.utils.ClinicalQuery;
+import com.ms.patient.utils.ClinicalQuery.Field;
+
+public class ClinicalQueryTest {
+
+    // Pacientes 1 a 6: 1-3 com febre, 2 e 5 alérgicos a penicilina, 2 e 4 internados
+    private static final ClinicalQuery.Postings POSTINGS = new ClinicalQuery.Postings() {
+
+        private final Map<String, RoaringBitmap> terms = Map.of(
+            "SYMPTOM:febre", RoaringBitmap.bitmapOf(1, 2, 3),
+            "SYMPTOM:dor de cabeça", RoaringBitmap.bitmapOf(3, 6),
+            "ALLERGY:penicilina", RoaringBitmap.bitmapOf(2, 5),
+            "SITUATION:HOSPITALIZED", RoaringBitmap.bitmapOf(2, 4));
+        private final RoaringBitmap all = RoaringBitmap.bitmapOf(1, 2, 3, 4, 5, 6);
+
+        @Override
+        public RoaringBitmap of(Field field, String term) {
+            return terms.get(field + ":" + term);
+        }
+
+        @Override
+        public RoaringBitmap all() {
+            return all;
+        }
+    };
+
+    private static int[] evaluate(String query){
+        return ClinicalQuery.parse(query).evaluate(POSTINGS).toArray();
+    }
+
+    @Test
+    void shouldCombineTermsWithAndOrNot(){
+        assertArrayEquals(new int[] {2}, evaluate("allergy:penicilina AND situation:HOSPITALIZED"));
+        assertArrayEquals(new int[] {1, 2, 3, 5}, evaluate("symptom:febre OR allergy:penicilina"));
+        assertArrayEquals(new int[] {1, 3}, evaluate("symptom:febre AND NOT allergy:penicilina"));
+        assertArrayEquals(new int[] {4, 5, 6}, evaluate("NOT symptom:febre"));
+    }
+
+    @Test
+    void andShouldBindTighterThanOr(){
+        ClinicalQuery query = ClinicalQuery.parse("symptom:febre OR allergy:penicilina AND situation:hospitalized");
+
+        assertEquals("(symptom:febre OR (allergy:penicilina AND situation:HOSPITALIZED))", query.toString());
+        assertArrayEquals(new int[] {1, 2, 3}, query.evaluate(POSTINGS).toArray());
+        assertArrayEquals(new int[] {2}, evaluate("(symptom:febre OR allergy:penicilina) AND situation:hospitalized"));
+    }
+
+    @Test
+    void adjacentTermsShouldMeanAnd(){
+        assertArrayEquals(evaluate("symptom:febre AND NOT situation:HOSPITALIZED"),
+            evaluate("symptom:febre not situation:hospitalized"));
+    }
+
+    @Test
+    void shouldNormalizeValuesAndAcceptQuotes(){
+        assertArrayEquals(new int[] {3, 6}, evaluate("symptom:\"  Dor de Cabeça \""));
+        assertArrayEquals(new int[] {1, 2, 3}, evaluate("SYMPTOM:FEBRE"));
+    }
+
+    @Test
+    void unknownTermShouldMatchNothing(){
+        assertArrayEquals(new int[] {}, evaluate("allergy:látex"));
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6}, evaluate("NOT allergy:látex"));
+    }
+
+    @Test
+    void resultShouldNotShareTheIndexBitmap(){
+        RoaringBitmap result = ClinicalQuery.parse("symptom:febre").evaluate(POSTINGS);
+        result.add(6);
+
+        assertArrayEquals(new int[] {1, 2, 3}, evaluate("symptom:febre"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "febre", "color:blue", "symptom:", "situation:sleeping", "(symptom:febre",
+        "symptom:febre)", "symptom:febre AND", "NOT", "symptom:\"dor", "\"dor de cabeça\"", "symptom:febre OR OR allergy:x"})
+    void shouldRejectInvalidQueries(String query){
+        assertThrows(IllegalArgumentException.class, () -> ClinicalQuery.parse(query));
+    }
+
+    @Test
+    void shouldRejectTooLongQueries(){
+        assertThrows(IllegalArgumentException.class,
+            () -> ClinicalQuery.parse("symptom:" + "a".repeat(ClinicalQuery.MAX_LENGTH)));
+    }
+}
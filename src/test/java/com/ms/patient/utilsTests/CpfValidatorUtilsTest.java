@@ -0,0 +1,51 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.ms.patient.utils.CpfValidatorUtils;
+
+public class CpfValidatorUtilsTest {
+
+    @Test
+    void shouldAcceptValidCpfWithOrWithoutMask(){
+        assertTrue(CpfValidatorUtils.isValidCpf("123.456.789-09"));
+        assertTrue(CpfValidatorUtils.isValidCpf("12345678909"));
+        assertTrue(CpfValidatorUtils.isValidCpf("529.982.247-25"));
+    }
+
+    @Test
+    void shouldAcceptValidCpfStartingWithZero(){
+        assertTrue(CpfValidatorUtils.isValidCpf("012.345.678-90"));
+    }
+
+    @Test
+    void shouldRejectInvalidCpf(){
+        assertFalse(CpfValidatorUtils.isValidCpf("123.456.789-00"));
+        assertFalse(CpfValidatorUtils.isValidCpf("123.456.789-19"));
+        assertFalse(CpfValidatorUtils.isValidCpf("111.111.111-11"));
+        assertFalse(CpfValidatorUtils.isValidCpf("1234567890"));
+        assertFalse(CpfValidatorUtils.isValidCpf("123456789091"));
+        assertFalse(CpfValidatorUtils.isValidCpf(""));
+        assertFalse(CpfValidatorUtils.isValidCpf(null));
+    }
+
+    @Test
+    void shouldKeepOnlyDigits(){
+        assertEquals("12345678909", CpfValidatorUtils.digitsOnly("123.456.789-09"));
+        assertEquals("11999990000", CpfValidatorUtils.digitsOnly("(11) 99999-0000"));
+        assertEquals("", CpfValidatorUtils.digitsOnly("abc"));
+        assertNull(CpfValidatorUtils.digitsOnly(null));
+    }
+
+    @Test
+    void shouldReturnTheSameInstanceWhenAlreadyNormalized(){
+        String cpf = "12345678909";
+        assertSame(cpf, CpfValidatorUtils.digitsOnly(cpf));
+    }
+}
@@ -0,0 +1,63 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.ms.patient.exceptions.PreconditionFailedException;
+import com.ms.patient.utils.EntityTags;
+
+public class EntityTagsTest {
+
+    @Test
+    void shouldDeriveStrongTagFromIdAndVersion(){
+        assertEquals("\"42-3\"", EntityTags.of(42, 3));
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenTagMatches(){
+        ResponseEntity<Object> response = EntityTags.notModified("\"1-0\", W/\"42-3\"", 42, id -> Optional.of(3L));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"42-3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldSendBodyWhenTagIsStaleOrMissing(){
+        assertNull(EntityTags.notModified("\"42-2\"", 42, id -> Optional.of(3L)));
+        assertNull(EntityTags.notModified("\"42-3\"", 42, id -> Optional.empty()));
+    }
+
+    @Test
+    void shouldNotLookUpVersionWithoutIfNoneMatch(){
+        AtomicInteger lookups = new AtomicInteger();
+
+        assertNull(EntityTags.notModified(null, 42, id -> {
+            lookups.incrementAndGet();
+            return Optional.of(3L);
+        }));
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void shouldReadExpectedVersionFromIfMatch(){
+        assertEquals(3L, EntityTags.expectedVersion("\"42-3\"", 42));
+        assertEquals(3L, EntityTags.expectedVersion("\"7-1\", \"42-3\"", 42));
+        assertNull(EntityTags.expectedVersion(null, 42));
+        assertNull(EntityTags.expectedVersion("*", 42));
+    }
+
+    @Test
+    void shouldRejectIfMatchForOtherResourceOrWeakTag(){
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.expectedVersion("\"7-3\"", 42));
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.expectedVersion("W/\"42-3\"", 42));
+        assertThrows(PreconditionFailedException.class, () -> EntityTags.expectedVersion("\"42-x\"", 42));
+    }
+}
@@ -0,0 +1,141 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ms.patient.repositories.AssistantRepository;
+import com.ms.patient.utils.BlockAllocator;
+import com.ms.patient.utils.RegistrationNumber;
+
+public class RegistrationNumberTest {
+
+    private AssistantRepository assistantRepository;
+    private JdbcTemplate jdbcTemplate;
+    private BlockAllocator blockAllocator;
+
+    @BeforeEach
+    void setup(){
+        assistantRepository = mock(AssistantRepository.class);
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table number_blocks (next_value bigint not null, name varchar(64) not null, primary key (name))");
+        blockAllocator = new BlockAllocator(dataSource, 2);
+    }
+
+    @AfterEach
+    void close(){
+        blockAllocator.close();
+    }
+
+    private RegistrationNumber generator(int blockSize, String key){
+        return new RegistrationNumber(blockAllocator, assistantRepository, blockSize, key);
+    }
+
+    private long counter(){
+        return jdbcTemplate.queryForObject(
+            "select next_value from number_blocks where name = 'assistant_registration_number'", Long.class);
+    }
+
+    @Test
+    void shouldReserveTheNextBlockBeforeTheCurrentOneRunsOut() throws InterruptedException{
+        RegistrationNumber generator = generator(10, "");
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            numbers.add(generator.generateNumber());
+        }
+        assertEquals(10, counter());
+
+        // Metade do bloco: o próximo é reservado em segundo plano
+        numbers.add(generator.generateNumber());
+        for (int i = 0; i < 50 && counter() != 20; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(20, counter());
+
+        for (int i = 5; i < 10; i++) {
+            numbers.add(generator.generateNumber());
+        }
+        numbers.add(generator.generateNumber());
+
+        assertEquals("000000000", numbers.get(0));
+        assertEquals("000000010", numbers.get(10));
+        verify(assistantRepository, times(1)).findAllRegistrationNumbers();
+    }
+
+    @Test
+    void shouldNotRepeatNumbersAcrossNodes(){
+        RegistrationNumber first = generator(5, "secret");
+        RegistrationNumber second = generator(5, "secret");
+
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(numbers.add(first.generateNumber()));
+            assertTrue(numbers.add(second.generateNumber()));
+        }
+    }
+
+    @Test
+    void shouldHandOutUniqueNineDigitNumbersConcurrently() throws Exception{
+        RegistrationNumber generator = generator(50, "secret");
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    String number = generator.generateNumber();
+                    assertEquals(9, number.length());
+                    assertTrue(numbers.add(number), "duplicate " + number);
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8000, numbers.size());
+        assertNotEquals("000000000", generator(1, "secret").generateNumber());
+    }
+
+    @Test
+    void shouldSkipNumbersAssignedByTheOldRandomGenerator(){
+        when(assistantRepository.findAllRegistrationNumbers()).thenReturn(List.of("000000001"));
+        RegistrationNumber generator = generator(10, "");
+
+        assertEquals("000000000", generator.generateNumber());
+        assertEquals("000000002", generator.generateNumber());
+    }
+
+    @Test
+    void shouldFailWhenTheNumberSpaceIsExhausted(){
+        jdbcTemplate.update("insert into number_blocks (name, next_value) values ('assistant_registration_number', 1000000000)");
+
+        assertThrows(IllegalStateException.class, () -> generator(10, "").generateNumber());
+    }
+}
@@ -0,0 +1,65 @@
+package com.ms.patient.utilsTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.ms.patient.events.UserCreationEvent;
+import com.ms.patient.events.UserCreationEventEncoder;
+
+public class UserCreationEventEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserCreationEvent event(long personId, String username, String role){
+        var event = new UserCreationEvent();
+        event.setPerson_id(personId);
+        event.setUsername(username);
+        event.setRole(role);
+        return event;
+    }
+
+    @Test
+    void jsonShouldMatchTheObjectMapperOutput() throws Exception{
+        UserCreationEventEncoder encoder = new UserCreationEventEncoder(objectMapper, "json");
+
+        UserCreationEventEncoder.Encoded encoded = encoder.encode(42L, "joão@email.com", "USER");
+
+        assertEquals(objectMapper.writeValueAsString(event(42L, "joão@email.com", "USER")), encoded.body());
+        assertEquals(UserCreationEventEncoder.JSON, encoded.contentType());
+    }
+
+    @Test
+    void shouldNotLeakContentBetweenCallsSharingTheBuffer() throws Exception{
+        UserCreationEventEncoder encoder = new UserCreationEventEncoder(objectMapper, "json");
+
+        String longer = encoder.encode(1L, "a-very-long-username@email.com", "ASSISTANT").body();
+        String shorter = encoder.encode(2L, "b@email.com", "USER").body();
+
+        assertEquals(objectMapper.writeValueAsString(event(1L, "a-very-long-username@email.com", "ASSISTANT")), longer);
+        assertEquals(objectMapper.writeValueAsString(event(2L, "b@email.com", "USER")), shorter);
+    }
+
+    @Test
+    void cborShouldRoundTripThroughBase64() throws Exception{
+        UserCreationEventEncoder encoder = new UserCreationEventEncoder(objectMapper, "cbor");
+
+        UserCreationEventEncoder.Encoded encoded = encoder.encode(7L, "medic@email.com", "MEDIC");
+        UserCreationEvent decoded = new CBORMapper().readValue(Base64.getDecoder().decode(encoded.body()), UserCreationEvent.class);
+
+        assertEquals(UserCreationEventEncoder.CBOR, encoded.contentType());
+        assertEquals(7L, decoded.getPerson_id());
+        assertEquals("medic@email.com", decoded.getUsername());
+        assertEquals("MEDIC", decoded.getRole());
+    }
+
+    @Test
+    void shouldRejectUnknownEncodings(){
+        assertThrows(IllegalArgumentException.class, () -> new UserCreationEventEncoder(objectMapper, "xml"));
+    }
+}